@@ -0,0 +1,333 @@
+package com.github.sailarize.context;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.github.sailarize.http.Header;
+import com.github.sailarize.url.QueryString;
+import com.github.sailarize.utils.ToStringBuilder;
+
+/**
+ * The state of the request being sailarized: the API base path, the server
+ * name, the headers and parameters propagated to links and forms, and the
+ * locale. It is created once per request (by
+ * {@link com.github.sailarize.servlet.SailarizeFilter}) and it is held by a
+ * single ThreadLocal.
+ * <p>
+ * A context never changes: setting any value replaces the current context with
+ * a modified copy. Its headers are an unmodifiable copy of the given ones, so
+ * it can be shared with the threads that process the request. The holders ({@link com.github.sailarize.url.PathHolder},
+ * {@link com.github.sailarize.http.HeaderHolder},
+ * {@link com.github.sailarize.http.ParameterHolder} and
+ * {@link com.github.sailarize.servlet.RequestHolder}) are views over the
+ * current context.
+ * 
+ * @author agusmunioz
+ *
+ */
+public final class SailContext {
+
+    private static final ThreadLocal<SailContext> CURRENT = new ThreadLocal<SailContext>();
+
+    /**
+     * The context of a thread that is not sailarizing any request.
+     */
+    public static final SailContext EMPTY = new SailContext(null, null, null, null, null, null);
+
+    private final String path;
+
+    private final String serverName;
+
+    private final Collection<Header> headers;
+
+    private final QueryString parameters;
+
+    private final Locale locale;
+
+    private final HttpServletRequest request;
+
+    private SailContext(String path, String serverName, Collection<Header> headers, QueryString parameters,
+            Locale locale, HttpServletRequest request) {
+
+        this.path = path;
+        this.serverName = serverName;
+        this.headers = headers == null ? null : Collections.unmodifiableList(new ArrayList<Header>(headers));
+        this.parameters = parameters;
+        this.locale = locale;
+        this.request = request;
+    }
+
+    /**
+     * Gets the context of the current thread.
+     * 
+     * @return the context, {@link #EMPTY} if there is none.
+     */
+    public static SailContext current() {
+
+        SailContext context = CURRENT.get();
+
+        return context == null ? EMPTY : context;
+    }
+
+    /**
+     * Sets the context of the current thread. An empty context cleans it.
+     * 
+     * @param context
+     *            the context.
+     */
+    public static void set(SailContext context) {
+
+        if (context == null || context.isEmpty()) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(context);
+        }
+    }
+
+    /**
+     * Removes the context of the current thread.
+     */
+    public static void clean() {
+
+        CURRENT.remove();
+    }
+
+    /**
+     * Sets this context as the current thread's one.
+     * 
+     * @return the context the thread had, for restoring it with
+     *         {@link #set(SailContext)}.
+     */
+    public SailContext attach() {
+
+        SailContext previous = current();
+
+        set(this);
+
+        return previous;
+    }
+
+    /**
+     * Creates a builder for a new context.
+     * 
+     * @return the builder.
+     */
+    public static Builder builder() {
+
+        return new Builder();
+    }
+
+    /**
+     * Determines if the context holds nothing.
+     * 
+     * @return true if empty.
+     */
+    public boolean isEmpty() {
+
+        return this.path == null && this.serverName == null && this.headers == null && this.parameters == null
+                && this.locale == null && this.request == null;
+    }
+
+    /**
+     * The API path (protocol, domain and application path).
+     * 
+     * @return the path or null if not set.
+     */
+    public String getPath() {
+
+        return path;
+    }
+
+    /**
+     * The name of the server that received the request.
+     * 
+     * @return the server name or null if not set.
+     */
+    public String getServerName() {
+
+        return serverName;
+    }
+
+    /**
+     * The headers that must be added in all links and forms except in
+     * cross-domain cases.
+     * 
+     * @return the unmodifiable headers or null if not set.
+     */
+    public Collection<Header> getHeaders() {
+
+        return headers;
+    }
+
+    /**
+     * The parameters that must be added in all links and forms except in
+     * cross-domain cases.
+     * 
+     * @return the parameters or null if not set.
+     */
+    public QueryString getParameters() {
+
+        return parameters;
+    }
+
+    /**
+     * The locale of the request.
+     * 
+     * @return the locale or null if not set.
+     */
+    public Locale getLocale() {
+
+        return locale;
+    }
+
+    /**
+     * The request.
+     * 
+     * @return the request or null if not held.
+     */
+    public HttpServletRequest getRequest() {
+
+        return request;
+    }
+
+    /**
+     * Creates a copy with another path.
+     * 
+     * @param path
+     *            the path.
+     * 
+     * @return the new context.
+     */
+    public SailContext withPath(String path) {
+
+        return new SailContext(path, this.serverName, this.headers, this.parameters, this.locale, this.request);
+    }
+
+    /**
+     * Creates a copy with other headers.
+     * 
+     * @param headers
+     *            the headers.
+     * 
+     * @return the new context.
+     */
+    public SailContext withHeaders(Collection<Header> headers) {
+
+        return new SailContext(this.path, this.serverName, headers, this.parameters, this.locale, this.request);
+    }
+
+    /**
+     * Creates a copy with other parameters.
+     * 
+     * @param parameters
+     *            the parameters.
+     * 
+     * @return the new context.
+     */
+    public SailContext withParameters(QueryString parameters) {
+
+        return new SailContext(this.path, this.serverName, this.headers, parameters, this.locale, this.request);
+    }
+
+    /**
+     * Creates a copy with another locale.
+     * 
+     * @param locale
+     *            the locale.
+     * 
+     * @return the new context.
+     */
+    public SailContext withLocale(Locale locale) {
+
+        return new SailContext(this.path, this.serverName, this.headers, this.parameters, locale, this.request);
+    }
+
+    /**
+     * Creates a copy with another request. The server name is taken from it.
+     * 
+     * @param request
+     *            the request.
+     * 
+     * @return the new context.
+     */
+    public SailContext withRequest(HttpServletRequest request) {
+
+        String serverName = request == null ? null : request.getServerName();
+
+        return new SailContext(this.path, serverName, this.headers, this.parameters, this.locale, request);
+    }
+
+    @Override
+    public String toString() {
+
+        return ToStringBuilder.toString(this);
+    }
+
+    /**
+     * Builds a {@link SailContext}.
+     */
+    public static class Builder {
+
+        private String path;
+
+        private String serverName;
+
+        private Collection<Header> headers;
+
+        private QueryString parameters;
+
+        private Locale locale;
+
+        private HttpServletRequest request;
+
+        private Builder() {
+
+        }
+
+        public Builder path(String path) {
+
+            this.path = path;
+            return this;
+        }
+
+        public Builder serverName(String serverName) {
+
+            this.serverName = serverName;
+            return this;
+        }
+
+        public Builder headers(Collection<Header> headers) {
+
+            this.headers = headers;
+            return this;
+        }
+
+        public Builder parameters(QueryString parameters) {
+
+            this.parameters = parameters;
+            return this;
+        }
+
+        public Builder locale(Locale locale) {
+
+            this.locale = locale;
+            return this;
+        }
+
+        public Builder request(HttpServletRequest request) {
+
+            this.request = request;
+            return this;
+        }
+
+        public SailContext build() {
+
+            return new SailContext(this.path, this.serverName, this.headers, this.parameters, this.locale,
+                    this.request);
+        }
+    }
+}
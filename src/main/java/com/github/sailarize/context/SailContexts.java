@@ -0,0 +1,391 @@
+package com.github.sailarize.context;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Propagates the {@link SailContext} to other threads, so links and forms
+ * built there have the same path, headers and parameters as in the request
+ * thread.
+ * <p>
+ * Tasks capture the context of the thread that creates (or submits) them and
+ * run under it. The thread context is restored when the task ends, so pooled
+ * threads never keep a request context.
+ * <p>
+ * Contexts are propagated per task, never per thread: a thread may outlive
+ * the request that created it and serve other ones. For any executor, even a
+ * thread per task one (e.g. using virtual threads), wrap the executor or the
+ * tasks.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class SailContexts {
+
+    /**
+     * Wraps a task so it runs under the current context.
+     * 
+     * @param task
+     *            the task.
+     * 
+     * @return the wrapped task.
+     */
+    public static Runnable wrap(Runnable task) {
+
+        return new ContextRunnable(SailContext.current(), task);
+    }
+
+    /**
+     * Wraps a task so it runs under a specific context.
+     * 
+     * @param context
+     *            the context.
+     * 
+     * @param task
+     *            the task.
+     * 
+     * @return the wrapped task.
+     */
+    public static Runnable wrap(SailContext context, Runnable task) {
+
+        return new ContextRunnable(context, task);
+    }
+
+    /**
+     * Wraps a task so it runs under the current context.
+     * 
+     * @param task
+     *            the task.
+     * 
+     * @return the wrapped task.
+     */
+    public static <V> Callable<V> wrap(Callable<V> task) {
+
+        return new ContextCallable<V>(SailContext.current(), task);
+    }
+
+    /**
+     * Wraps a {@link java.util.concurrent.CompletableFuture} supplier (e.g.
+     * for supplyAsync) so it runs under the current context.
+     * 
+     * @param supplier
+     *            the supplier.
+     * 
+     * @return the wrapped supplier.
+     */
+    public static <T> Supplier<T> supplier(final Supplier<T> supplier) {
+
+        final SailContext context = SailContext.current();
+
+        return new Supplier<T>() {
+
+            @Override
+            public T get() {
+
+                SailContext previous = context.attach();
+
+                try {
+                    return supplier.get();
+                } finally {
+                    SailContext.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps a {@link java.util.concurrent.CompletableFuture} stage function
+     * (e.g. for thenApply) so it runs under the current context.
+     * 
+     * @param function
+     *            the function.
+     * 
+     * @return the wrapped function.
+     */
+    public static <T, R> Function<T, R> function(final Function<T, R> function) {
+
+        final SailContext context = SailContext.current();
+
+        return new Function<T, R>() {
+
+            @Override
+            public R apply(T value) {
+
+                SailContext previous = context.attach();
+
+                try {
+                    return function.apply(value);
+                } finally {
+                    SailContext.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps a {@link java.util.concurrent.CompletableFuture} stage function
+     * (e.g. for thenCombine or handle) so it runs under the current context.
+     * 
+     * @param function
+     *            the function.
+     * 
+     * @return the wrapped function.
+     */
+    public static <T, U, R> BiFunction<T, U, R> function(final BiFunction<T, U, R> function) {
+
+        final SailContext context = SailContext.current();
+
+        return new BiFunction<T, U, R>() {
+
+            @Override
+            public R apply(T value, U other) {
+
+                SailContext previous = context.attach();
+
+                try {
+                    return function.apply(value, other);
+                } finally {
+                    SailContext.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps a {@link java.util.concurrent.CompletableFuture} stage consumer
+     * (e.g. for thenAccept) so it runs under the current context.
+     * 
+     * @param consumer
+     *            the consumer.
+     * 
+     * @return the wrapped consumer.
+     */
+    public static <T> Consumer<T> consumer(final Consumer<T> consumer) {
+
+        final SailContext context = SailContext.current();
+
+        return new Consumer<T>() {
+
+            @Override
+            public void accept(T value) {
+
+                SailContext previous = context.attach();
+
+                try {
+                    consumer.accept(value);
+                } finally {
+                    SailContext.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps an executor so every task runs under the context of the thread
+     * that submits it. Useful as the executor of
+     * {@link java.util.concurrent.CompletableFuture} async stages.
+     * 
+     * @param executor
+     *            the executor.
+     * 
+     * @return the wrapped executor.
+     */
+    public static Executor executor(final Executor executor) {
+
+        return new Executor() {
+
+            @Override
+            public void execute(Runnable command) {
+
+                executor.execute(wrap(command));
+            }
+        };
+    }
+
+    /**
+     * Wraps an executor service so every task runs under the context of the
+     * thread that submits it.
+     * 
+     * @param executor
+     *            the executor service.
+     * 
+     * @return the wrapped executor service.
+     */
+    public static ExecutorService executorService(ExecutorService executor) {
+
+        return new ContextExecutorService(executor);
+    }
+
+    /**
+     * Runs a task under a context.
+     */
+    private static class ContextRunnable implements Runnable {
+
+        private SailContext context;
+
+        private Runnable task;
+
+        public ContextRunnable(SailContext context, Runnable task) {
+
+            this.context = context;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+
+            SailContext previous = this.context.attach();
+
+            try {
+                this.task.run();
+            } finally {
+                SailContext.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Calls a task under a context.
+     */
+    private static class ContextCallable<V> implements Callable<V> {
+
+        private SailContext context;
+
+        private Callable<V> task;
+
+        public ContextCallable(SailContext context, Callable<V> task) {
+
+            this.context = context;
+            this.task = task;
+        }
+
+        @Override
+        public V call() throws Exception {
+
+            SailContext previous = this.context.attach();
+
+            try {
+                return this.task.call();
+            } finally {
+                SailContext.set(previous);
+            }
+        }
+    }
+
+    /**
+     * An {@link ExecutorService} that wraps every submitted task.
+     */
+    private static class ContextExecutorService implements ExecutorService {
+
+        private ExecutorService executor;
+
+        public ContextExecutorService(ExecutorService executor) {
+
+            this.executor = executor;
+        }
+
+        private <T> Collection<Callable<T>> wrapAll(Collection<? extends Callable<T>> tasks) {
+
+            List<Callable<T>> wrapped = new ArrayList<Callable<T>>(tasks.size());
+
+            for (Callable<T> task : tasks) {
+                wrapped.add(wrap(task));
+            }
+
+            return wrapped;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+
+            this.executor.execute(wrap(command));
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+
+            return this.executor.submit(wrap(task));
+        }
+
+        @Override
+        public <T> Future<T> submit(Runnable task, T result) {
+
+            return this.executor.submit(wrap(task), result);
+        }
+
+        @Override
+        public Future<?> submit(Runnable task) {
+
+            return this.executor.submit(wrap(task));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+
+            return this.executor.invokeAll(this.wrapAll(tasks));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException {
+
+            return this.executor.invokeAll(this.wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+                throws InterruptedException, ExecutionException {
+
+            return this.executor.invokeAny(this.wrapAll(tasks));
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+
+            return this.executor.invokeAny(this.wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public void shutdown() {
+
+            this.executor.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+
+            return this.executor.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+
+            return this.executor.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+
+            return this.executor.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+
+            return this.executor.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.util.LinkedList;
 import java.util.Map;
 
 import com.github.sailarize.http.Header;
+import com.github.sailarize.link.LinkBlockKey;
 import com.github.sailarize.url.Filter;
 import com.github.sailarize.utils.ToStringBuilder;
 
@@ -19,6 +20,43 @@ import com.github.sailarize.utils.ToStringBuilder;
  */
 public abstract class BaseFacetOption implements FacetOption {
 
+    /**
+     * The count of an option whose amount of matching resources is not known.
+     */
+    public static final long UNKNOWN_COUNT = -1;
+
+    /**
+     * The options of this library, whose {@link FilterSet} methods are
+     * equivalent to the {@link Collection} ones.
+     */
+    private static final Collection<Class<?>> LIBRARY = Arrays.<Class<?>> asList(BaseFacetOption.class,
+            ExclusiveFacetOption.class, InclusiveFacetOption.class, IsolatedFacetOption.class,
+            ClearFacetOption.class);
+
+    /**
+     * Whether a class inherits {@link #apply(Collection)} from the library.
+     */
+    private static final ClassValue<Boolean> LIBRARY_APPLY = new ClassValue<Boolean>() {
+
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+
+            return library(type, "apply", Collection.class);
+        }
+    };
+
+    /**
+     * Whether a class inherits {@link #isCompatible(Filter)} from the library.
+     */
+    private static final ClassValue<Boolean> LIBRARY_COMPATIBLE = new ClassValue<Boolean>() {
+
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+
+            return library(type, "isCompatible", Filter.class);
+        }
+    };
+
     private String facet;
 
     private String name;
@@ -31,6 +69,8 @@ public abstract class BaseFacetOption implements FacetOption {
 
     private Collection<Header> headers;
 
+    private long count = UNKNOWN_COUNT;
+
     /**
      * Creates an initialized {@link BaseFacetOption}.
      * 
@@ -138,6 +178,27 @@ public abstract class BaseFacetOption implements FacetOption {
         return this.data;
     }
 
+    /**
+     * Gets the amount of resources matching the option.
+     * 
+     * @return the count or {@link #UNKNOWN_COUNT}.
+     */
+    public long getCount() {
+
+        return this.count;
+    }
+
+    /**
+     * Sets the amount of resources matching the option.
+     * 
+     * @param count
+     *            the count.
+     */
+    public void setCount(long count) {
+
+        this.count = count;
+    }
+
     /**
      * Sets the option extra data.
      * 
@@ -173,6 +234,10 @@ public abstract class BaseFacetOption implements FacetOption {
             return false;
         }
 
+        if (filters instanceof FilterSet) {
+            return this.isApplied((FilterSet) filters);
+        }
+
         Boolean result = Boolean.FALSE;
 
         for (Filter filter : filters) {
@@ -186,6 +251,10 @@ public abstract class BaseFacetOption implements FacetOption {
     @Override
     public Collection<Filter> compatibles(Collection<Filter> filters) {
 
+        if (filters instanceof FilterSet) {
+            return this.compatibles((FilterSet) filters);
+        }
+
         Collection<Filter> compatibles = new LinkedList<Filter>();
 
         for (Filter filter : filters) {
@@ -203,6 +272,104 @@ public abstract class BaseFacetOption implements FacetOption {
         filters.add(new Filter(this.getFacet(), this.getValue()));
     }
 
+    /**
+     * Determines if the option is applied in a set of filters.
+     * 
+     * @param filters
+     *            the filters.
+     * 
+     * @return true if applied.
+     */
+    public boolean isApplied(FilterSet filters) {
+
+        return filters.contains(this.getFacet(), this.getValue());
+    }
+
+    /**
+     * Derives the set of filters that are compatible with the option. This
+     * implementation tests each filter; subclasses override it with a direct
+     * overlay when possible, as long as {@link #isCompatible(Filter)} is not
+     * overridden (see {@link #isOverlayCompatible()}).
+     * 
+     * @param filters
+     *            the filters.
+     * 
+     * @return the compatible filters.
+     */
+    public FilterSet compatibles(FilterSet filters) {
+
+        FilterSet compatibles = filters;
+
+        for (Filter filter : filters) {
+
+            if (!this.isCompatible(filter)) {
+                compatibles = compatibles.without(filter);
+            }
+        }
+
+        return compatibles;
+    }
+
+    /**
+     * Derives a set of filters with the option applied.
+     * 
+     * @param filters
+     *            the filters.
+     * 
+     * @return the filters with the option applied.
+     */
+    public FilterSet apply(FilterSet filters) {
+
+        return filters.with(new Filter(this.getFacet(), this.getValue()));
+    }
+
+    /**
+     * Determines if {@link #apply(FilterSet)} can be used instead of
+     * {@link #apply(Collection)}, that is to say, the latter is not overridden
+     * by a class out of this library.
+     * 
+     * @return true if the set can be derived.
+     */
+    boolean isOverlayApply() {
+
+        return LIBRARY_APPLY.get(this.getClass());
+    }
+
+    /**
+     * Determines if the compatible filters can be derived with an overlay
+     * instead of testing each filter, that is to say,
+     * {@link #isCompatible(Filter)} is not overridden by a class out of this
+     * library.
+     * 
+     * @return true if an overlay can be used.
+     */
+    boolean isOverlayCompatible() {
+
+        return LIBRARY_COMPATIBLE.get(this.getClass());
+    }
+
+    /**
+     * Determines if the closest declaration of a method in a class hierarchy
+     * belongs to this library.
+     */
+    private static boolean library(Class<?> type, String name, Class<?>... parameters) {
+
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+
+            try {
+
+                current.getDeclaredMethod(name, parameters);
+
+                return LIBRARY.contains(current);
+
+            } catch (NoSuchMethodException e) {
+                // Inherited, keep looking.
+            }
+        }
+
+        return false;
+    }
+
     @Override
     public Collection<Header> getHeaders() {
         return headers;
@@ -222,6 +389,24 @@ public abstract class BaseFacetOption implements FacetOption {
      */
     protected abstract boolean isCompatible(Filter fiter);
 
+    /**
+     * Describes the option for caching the links built for it.
+     * 
+     * @param key
+     *            the key of the cached links.
+     */
+    protected void describe(LinkBlockKey key) {
+
+        key.add(this.getClass().getName())
+                .add(this.facet)
+                .add(this.name)
+                .add(this.value)
+                .add(this.title)
+                .add(this.count)
+                .data(this.data)
+                .headers(this.headers);
+    }
+
     @Override
     public String toString() {
 
@@ -44,4 +44,26 @@ public class ClearFacetOption extends BaseFacetOption {
         return false;
     }
 
+    @Override
+    public FilterSet compatibles(FilterSet filters) {
+
+        if (!this.isOverlayCompatible()) {
+            return super.compatibles(filters);
+        }
+
+        return filters.without(this.getFacet());
+    }
+
+    @Override
+    public FilterSet apply(FilterSet filters) {
+
+        return filters;
+    }
+
+    @Override
+    public boolean isApplied(FilterSet filters) {
+
+        return false;
+    }
+
 }
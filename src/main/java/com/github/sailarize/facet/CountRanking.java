@@ -0,0 +1,121 @@
+package com.github.sailarize.facet;
+
+/**
+ * Ranks facet options by count over primitive arrays. Options are referred to
+ * by their position; higher counts rank first and, for the same count, the
+ * option given first does.
+ *
+ * @author agusmunioz
+ *
+ */
+class CountRanking {
+
+    /**
+     * Gets the best ranked options, in rank order. Selecting k out of n options
+     * takes O(n log k) by keeping the k best in a heap.
+     *
+     * @param positions
+     *            the positions of the candidate options.
+     *
+     * @param length
+     *            the amount of candidates in positions.
+     *
+     * @param counts
+     *            the count of every option, indexed by position.
+     *
+     * @param k
+     *            the amount of options to select.
+     *
+     * @return the positions of the selected options.
+     */
+    static int[] top(int[] positions, int length, long[] counts, int k) {
+
+        k = Math.min(k, length);
+
+        if (k <= 0) {
+            return new int[0];
+        }
+
+        // min-heap: the worst of the selected options at the root.
+        int[] heap = new int[k];
+        int size = 0;
+
+        for (int i = 0; i < length; i++) {
+
+            int position = positions[i];
+
+            if (size < k) {
+                heap[size] = position;
+                up(heap, size++, counts);
+            } else if (before(position, heap[0], counts)) {
+                heap[0] = position;
+                down(heap, k, 0, counts);
+            }
+        }
+
+        int[] ranked = new int[k];
+
+        for (int i = k - 1; i >= 0; i--) {
+            ranked[i] = heap[0];
+            heap[0] = heap[i];
+            down(heap, i, 0, counts);
+        }
+
+        return ranked;
+    }
+
+    /**
+     * Determines if an option ranks before another.
+     */
+    private static boolean before(int one, int other, long[] counts) {
+
+        return counts[one] > counts[other] || (counts[one] == counts[other] && one < other);
+    }
+
+    private static void up(int[] heap, int index, long[] counts) {
+
+        while (index > 0) {
+
+            int parent = (index - 1) >>> 1;
+
+            if (!before(heap[parent], heap[index], counts)) {
+                return;
+            }
+
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void down(int[] heap, int size, int index, long[] counts) {
+
+        while (true) {
+
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+
+            if (left < size && before(heap[worst], heap[left], counts)) {
+                worst = left;
+            }
+
+            if (right < size && before(heap[worst], heap[right], counts)) {
+                worst = right;
+            }
+
+            if (worst == index) {
+                return;
+            }
+
+            swap(heap, worst, index);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int one, int other) {
+
+        int swap = heap[one];
+        heap[one] = heap[other];
+        heap[other] = swap;
+    }
+}
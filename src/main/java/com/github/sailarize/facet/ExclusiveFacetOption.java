@@ -31,4 +31,14 @@ public class ExclusiveFacetOption extends BaseFacetOption {
         return !this.getFacet().equals(filter.getName());
     }
 
+    @Override
+    public FilterSet compatibles(FilterSet filters) {
+
+        if (!this.isOverlayCompatible()) {
+            return super.compatibles(filters);
+        }
+
+        return filters.without(this.getFacet());
+    }
+
 }
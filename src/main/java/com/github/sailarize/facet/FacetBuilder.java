@@ -3,6 +3,7 @@ package com.github.sailarize.facet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
@@ -10,10 +11,18 @@ import java.util.Map.Entry;
 
 import javax.servlet.http.HttpServletRequest;
 
+import com.github.sailarize.form.Form;
+import com.github.sailarize.form.FormBuilder;
+import com.github.sailarize.form.MultiSelectInput;
+import com.github.sailarize.form.Option;
+import com.github.sailarize.form.SelectInput;
+import com.github.sailarize.form.SingleSelectInput;
 import com.github.sailarize.http.Header;
-import com.github.sailarize.http.ParameterHolder;
 import com.github.sailarize.link.HypermediaLink;
+import com.github.sailarize.link.LinkBlockBuilder;
+import com.github.sailarize.link.LinkBlockKey;
 import com.github.sailarize.link.LinkBuilder;
+import com.github.sailarize.link.LinkFamily;
 import com.github.sailarize.link.RelBuilder;
 import com.github.sailarize.page.PageConstants;
 import com.github.sailarize.properties.Titles;
@@ -21,6 +30,7 @@ import com.github.sailarize.resource.SailResource;
 import com.github.sailarize.resource.SailTags;
 import com.github.sailarize.servlet.RequestHolder;
 import com.github.sailarize.url.Filter;
+import com.github.sailarize.url.RequestFilters;
 import com.github.sailarize.utils.ToStringBuilder;
 
 /**
@@ -29,7 +39,7 @@ import com.github.sailarize.utils.ToStringBuilder;
  * @author agusmunioz
  * 
  */
-public class FacetBuilder {
+public class FacetBuilder implements LinkBlockBuilder {
 
     private static final String REFINES = "refines";
 
@@ -43,6 +53,22 @@ public class FacetBuilder {
      */
     public static final String CLEAN = "clean" + SailTags.KEY;
 
+    /**
+     * Rel prefix for the link to the options after the ones built.
+     */
+    public static final String MORE = "more" + SailTags.KEY;
+
+    /**
+     * Postfix of the facet name for the parameter with the offset of the first
+     * option to build.
+     */
+    public static final String OFFSET = RequestFilters.OFFSET;
+
+    /**
+     * Link data with the amount of resources matching the option.
+     */
+    public static final String COUNT = "count";
+
     private final static Collection<String> filterBlacklist = Arrays.asList(PageConstants.PAGE_PARAM);
 
     private String name;
@@ -69,6 +95,22 @@ public class FacetBuilder {
 
     private Collection<Header> headers;
 
+    private long[] counts;
+
+    private boolean byCount = false;
+
+    private boolean dropEmpty = false;
+
+    private int top;
+
+    private int offset;
+
+    private boolean more = false;
+
+    private boolean compact = false;
+
+    private String moreTitle;
+
     private FacetBuilder(String name) {
 
         this.name = name;
@@ -190,6 +232,109 @@ public class FacetBuilder {
         return this;
     }
 
+    /**
+     * Configures the amount of resources matching each facet value. Counts set
+     * in the options themselves take precedence.
+     * 
+     * @param counts
+     *            the list of counts for each facet value. The order must match
+     *            the order of values.
+     * 
+     * @return the builder for further build.
+     */
+    public FacetBuilder counts(long... counts) {
+
+        this.counts = counts;
+        return this;
+    }
+
+    /**
+     * Configures the builder to build the options with higher counts first.
+     * Options with the same count keep their order.
+     * 
+     * @return the builder for further build.
+     */
+    public FacetBuilder byCount() {
+
+        this.byCount = true;
+        return this;
+    }
+
+    /**
+     * Configures the builder not to build options with a zero count, unless
+     * they are applied.
+     * 
+     * @return the builder for further build.
+     */
+    public FacetBuilder dropEmpty() {
+
+        this.dropEmpty = true;
+        return this;
+    }
+
+    /**
+     * Configures the builder to build a limited amount of options. Applied
+     * options are always built (first) and are not part of the limit.
+     * 
+     * @param size
+     *            the max amount of options to build.
+     * 
+     * @return the builder for further build.
+     */
+    public FacetBuilder top(int size) {
+
+        this.top = size;
+        return this;
+    }
+
+    /**
+     * Configures the position of the first option to build, for paging through
+     * the options with {@link #top(int)}. It is taken from the facet name plus
+     * {@link #OFFSET} request parameter when there is one.
+     * 
+     * @param offset
+     *            the offset.
+     * 
+     * @return the builder for further build.
+     */
+    public FacetBuilder offset(int offset) {
+
+        this.offset = Math.max(0, offset);
+        return this;
+    }
+
+    /**
+     * Configures a link to the options after the built ones, when there are
+     * more.
+     * 
+     * @param title
+     *            the more link title.
+     * 
+     * @return the builder for further build.
+     */
+    public FacetBuilder more(String title) {
+
+        this.more = true;
+        this.moreTitle = title;
+        return this;
+    }
+
+    /**
+     * Configures the builder to build the facet as a single GET form with a
+     * select input of the options, instead of a link per option. Other facets
+     * filters are the form filters, applied options are the selected ones and
+     * options data (refines, count and any extra data) is kept in the select
+     * options. The select allows multiple values when all options are
+     * inclusive. The form title is taken from the "facets.[name]" title key.
+     * 
+     * @return the builder for further build.
+     */
+    public FacetBuilder compact() {
+
+        this.compact = true;
+        return this;
+    }
+
     /**
      * Adds a filter to all facet links.
      * 
@@ -202,18 +347,40 @@ public class FacetBuilder {
      * @return the builder for further build.
      */
     public FacetBuilder filter(String name, Object value) {
-        if (name != null && !filterBlacklist.contains(name)) {
-            Collection<Filter> filters = this.filtersByName.get(name);
-            if (filters == null) {
-                filters = new ArrayList<Filter>();
-            }
-            filters.add(new Filter(name, value.toString()));
-            this.filtersByName.put(name, filters);
+        if (name != null && !filterBlacklist.contains(name) && !name.equals(this.getOffsetParam())) {
+            this.add(new Filter(name, value.toString()));
         }
 
         return this;
     }
 
+    private void add(Filter filter) {
+
+        Collection<Filter> filters = this.filtersByName.get(filter.getName());
+
+        if (filters == null) {
+            filters = new ArrayList<Filter>();
+            this.filtersByName.put(filter.getName(), filters);
+        }
+
+        filters.add(filter);
+    }
+
+    /**
+     * Gets the filters with a specific name configured so far.
+     * 
+     * @param name
+     *            the filter name.
+     * 
+     * @return the filters, an empty collection if there are none.
+     */
+    Collection<Filter> getFilters(String name) {
+
+        Collection<Filter> filters = this.filtersByName.get(name);
+
+        return filters == null ? Collections.<Filter> emptyList() : filters;
+    }
+
     /**
      * Excludes a filter
      * 
@@ -228,7 +395,7 @@ public class FacetBuilder {
 
     /**
      * Adds all the query parameters in the request as filters in all facet
-     * links.
+     * links, but the facet offsets (see {@link RequestFilters#withoutOffsets()}).
      * 
      * @param request
      *            the HTTP request with the parameters.
@@ -237,15 +404,18 @@ public class FacetBuilder {
      */
     public FacetBuilder filter(HttpServletRequest request) {
 
-        for (Entry<String, String[]> filter : request.getParameterMap().entrySet()) {
-
-            for (String value : filter.getValue()) {
+        RequestFilters filters = RequestFilters.of(request).without(filterBlacklist);
 
-                if (!ParameterHolder.get().contains(filter.getKey())) {
-                    this.filter(filter.getKey(), value);
-                }
+        for (Filter offset : filters.get(this.getOffsetParam())) {
+            try {
+                this.offset(Integer.parseInt(offset.getValue()));
+            } catch (NumberFormatException e) {
+                this.offset(0);
             }
+        }
 
+        for (Filter filter : filters.without(this.getOffsetParam()).withoutOffsets().filters()) {
+            this.add(filter);
         }
 
         return this;
@@ -352,31 +522,128 @@ public class FacetBuilder {
      * @param list
      *            the resource where to add all the facet links.
      */
+    @Override
     public void build(SailResource list, Object... values) {
 
         for (String excludedFilterName : this.excludedFilters) {
             this.filtersByName.remove(excludedFilterName);
         }
 
-        Collection<Filter> filters = new ArrayList<Filter>();
+        Collection<Filter> flat = new ArrayList<Filter>();
         for (Collection<Filter> filterCollection : this.filtersByName.values()) {
-            filters.addAll(filterCollection);
+            flat.addAll(filterCollection);
         }
 
+        FilterSet filters = FilterSet.of(flat);
+
+        LinkFamily family = LinkFamily.of(list, values).headers(this.headers);
+
         if (this.all) {
 
-            Collection<Filter> allFilters = new LinkedList<Filter>();
+            HypermediaLink link = family.link("all").title(this.allTitle)
+                    .filters(filters.without(this.name))
+                    .data(REFINES, "false")
+                    .build();
+
+            if (grouped) {
+                list.add(link, GROUP, this.name);
+            } else {
+                list.add(link);
+            }
+        }
+
+        FacetOption[] options = this.options.toArray(new FacetOption[this.options.size()]);
+
+        boolean[] applied = new boolean[options.length];
+
+        long[] counts = new long[options.length];
+
+        for (int i = 0; i < options.length; i++) {
+            applied[i] = options[i].isApplied(filters);
+            counts[i] = this.getCount(options[i], i);
+        }
+
+        boolean trims = this.top > 0 || this.offset > 0;
+
+        int[] selected = new int[options.length];
+
+        int pinned = 0;
+
+        int[] candidates = new int[options.length];
 
-            for (Filter filter : filters) {
-                if (!filter.getName().equals(this.name)) {
-                    allFilters.add(filter);
+        int length = 0;
+
+        for (int i = 0; i < options.length; i++) {
+
+            if (trims && applied[i]) {
+                selected[pinned++] = i;
+            } else if (!this.dropEmpty || applied[i] || counts[i] != 0) {
+                candidates[length++] = i;
+            }
+        }
+
+        int from = Math.min(this.offset, length);
+
+        int to = this.top > 0 ? Math.min(length, from + this.top) : length;
+
+        int[] window = this.byCount ? CountRanking.top(candidates, length, counts, to) : candidates;
+
+        System.arraycopy(window, from, selected, pinned, to - from);
+
+        selected = Arrays.copyOf(selected, pinned + to - from);
+
+        if (this.compact) {
+            this.form(list, values, options, selected, applied, counts, filters);
+        } else {
+
+            for (int index : selected) {
+
+                FacetOption option = options[index];
+
+                Collection<Filter> compatibleFilters = option.compatibles(filters);
+
+                String rel = this.getRel(option);
+
+                String residue = null;
+
+                String refines = "true";
+
+                if (applied[index]) {
+                    rel = this.getCleanPrefix(option) + rel;
+                    residue = option.getFacet() + "=" + option.getValue();
+                    refines = "false";
+                } else {
+                    compatibleFilters = apply(option, compatibleFilters);
+                }
+
+                LinkBuilder builder = family.link(rel).title(this.getTitle(option, index))
+                        .data(REFINES, refines)
+                        .residue(residue)
+                        .filters(compatibleFilters)
+                        .headers(option.getHeaders());
+
+                if (counts[index] != BaseFacetOption.UNKNOWN_COUNT) {
+                    builder.data(COUNT, Long.toString(counts[index]));
+                }
+
+                this.addData(builder, option, index);
+
+                if (grouped) {
+                    list.add(builder.build(), GROUP, this.name);
+                } else {
+                    list.add(builder.build());
                 }
             }
+        }
+
+        if (this.more && to < length) {
+
+            String title = this.moreTitle == null ? Titles.get("facets." + this.name + ".more") : this.moreTitle;
 
-            HypermediaLink link = new LinkBuilder(list, "all", values).title(this.allTitle)
-                    .filters(allFilters)
+            HypermediaLink link = family.link(MORE + this.name).title(title)
+                    .filters(filters)
+                    .filter(this.getOffsetParam(), Integer.toString(to))
                     .data(REFINES, "false")
-                    .headers(this.headers)
                     .build();
 
             if (grouped) {
@@ -386,44 +653,157 @@ public class FacetBuilder {
             }
         }
 
-        int index = 0;
+    }
 
-        for (FacetOption option : this.options) {
+    @Override
+    public void describe(LinkBlockKey key) {
 
-            Collection<Filter> compatibleFilters = option.compatibles(filters);
+        key.add(this.name).add(this.relPrefix).add(this.relPostfix).add(this.options.size());
 
-            String rel = this.getRel(option);
+        for (FacetOption option : this.options) {
 
-            String residue = null;
+            if (option instanceof BaseFacetOption) {
+                ((BaseFacetOption) option).describe(key);
+            } else {
+                key.add(option.getClass().getName()).add(option);
+            }
+        }
 
-            String refines = "true";
+        Collection<Filter> filters = new ArrayList<Filter>();
 
-            if (option.isApplied(filters)) {
-                rel = this.getCleanPrefix(option) + rel;
-                residue = option.getFacet() + "=" + option.getValue();
-                refines = "false";
-            } else {
-                option.apply(compatibleFilters);
+        for (Entry<String, Collection<Filter>> named : this.filtersByName.entrySet()) {
+            if (!this.excludedFilters.contains(named.getKey())) {
+                filters.addAll(named.getValue());
             }
+        }
 
-            LinkBuilder builder = new LinkBuilder(list, rel, values).title(this.getTitle(option, index))
-                    .data(REFINES, refines)
-                    .residue(residue)
-                    .filters(compatibleFilters)
-                    .headers(this.headers)
-                    .headers(option.getHeaders());
+        key.filters(filters)
+                .add(this.titles)
+                .data(this.data)
+                .add(this.all ? 1 : 0)
+                .add(this.allTitle)
+                .add(this.grouped ? 1 : 0)
+                .headers(this.headers)
+                .add(this.counts == null ? null : Arrays.toString(this.counts))
+                .add(this.byCount ? 1 : 0)
+                .add(this.dropEmpty ? 1 : 0)
+                .add(this.top)
+                .add(this.offset)
+                .add(this.more ? 1 : 0)
+                .add(this.moreTitle)
+                .add(this.compact ? 1 : 0);
+    }
 
-            this.addData(builder, option, index);
+    /**
+     * Builds the facet form of the compact mode.
+     */
+    private void form(SailResource list, Object[] values, FacetOption[] options, int[] selected, boolean[] applied,
+            long[] counts, FilterSet filters) {
 
-            if (grouped) {
-                list.add(builder.build(), GROUP, this.name);
-            } else {
-                list.add(builder.build());
+        boolean multiple = selected.length > 0;
+
+        for (int index : selected) {
+            multiple &= options[index] instanceof InclusiveFacetOption;
+        }
+
+        SelectInput input = multiple ? new MultiSelectInput(this.name) : new SingleSelectInput(this.name);
+
+        for (int index : selected) {
+
+            FacetOption option = options[index];
+
+            Option item = new Option(this.getTitle(option, index), option.getValue(), applied[index]);
+
+            item.addData(REFINES, Boolean.toString(!applied[index]));
+
+            if (counts[index] != BaseFacetOption.UNKNOWN_COUNT) {
+                item.addData(COUNT, counts[index]);
             }
 
-            index++;
+            this.addData(item, option, index);
+
+            input.add(item);
+        }
+
+        Form form = FormBuilder.get(list, values)
+                .id(this.name)
+                .title(Titles.get("facets." + this.name))
+                .input(input)
+                .filters(filters.without(this.name))
+                .headers(this.headers == null ? null : new LinkedList<Header>(this.headers))
+                .build();
+
+        if (grouped) {
+            list.add(form, GROUP);
+        } else {
+            list.add(form);
+        }
+    }
+
+    /**
+     * Gets the name of the parameter with the offset of the first option to
+     * build.
+     * 
+     * @return the parameter name.
+     */
+    private String getOffsetParam() {
+
+        return this.name + OFFSET;
+    }
+
+    /**
+     * Gets the amount of resources matching an option.
+     * 
+     * @param option
+     *            the facet option.
+     * 
+     * @param position
+     *            the position of the option in the list.
+     * 
+     * @return the count or {@link BaseFacetOption#UNKNOWN_COUNT}.
+     */
+    private long getCount(FacetOption option, int position) {
+
+        long count = option instanceof BaseFacetOption ? ((BaseFacetOption) option).getCount()
+                : BaseFacetOption.UNKNOWN_COUNT;
+
+        if (count != BaseFacetOption.UNKNOWN_COUNT) {
+            return count;
         }
 
+        if (this.counts != null && position < this.counts.length) {
+            return this.counts[position];
+        }
+
+        return BaseFacetOption.UNKNOWN_COUNT;
+    }
+
+    /**
+     * Applies an option to its compatible filters. Options based on
+     * {@link BaseFacetOption} derive an overlay of the shared filter set,
+     * unless they override {@link FacetOption#apply(Collection)}. Other ones
+     * get a copy to add to.
+     * 
+     * @param option
+     *            the facet option.
+     * 
+     * @param filters
+     *            the compatible filters.
+     * 
+     * @return the filters with the option applied.
+     */
+    private static Collection<Filter> apply(FacetOption option, Collection<Filter> filters) {
+
+        if (option instanceof BaseFacetOption && filters instanceof FilterSet
+                && ((BaseFacetOption) option).isOverlayApply()) {
+            return ((BaseFacetOption) option).apply((FilterSet) filters);
+        }
+
+        Collection<Filter> applied = new LinkedList<Filter>(filters);
+
+        option.apply(applied);
+
+        return applied;
     }
 
     /**
@@ -486,6 +866,41 @@ public class FacetBuilder {
         }
     }
 
+    /**
+     * Adds the facet option extra data to a select option of the compact mode.
+     * 
+     * @param item
+     *            the select option.
+     * 
+     * @param option
+     *            the facet option.
+     * 
+     * @param position
+     *            the position of the option in the list.
+     */
+    private void addData(Option item, FacetOption option, int position) {
+
+        if (option.getData() != null) {
+
+            for (Entry<String, Object> data : option.getData().entrySet()) {
+
+                item.addData(data.getKey(), data.getValue());
+            }
+        }
+
+        if (this.data != null) {
+
+            for (Entry<String, Object[]> optionData : this.data.entrySet()) {
+
+                if (optionData.getValue() != null && position < optionData.getValue().length) {
+
+                    item.addData(optionData.getKey(), optionData.getValue()[position]);
+                }
+            }
+
+        }
+    }
+
     /**
      * Builds the rel for the facet option link.
      * 
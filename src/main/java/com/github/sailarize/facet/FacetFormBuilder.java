@@ -2,7 +2,6 @@ package com.github.sailarize.facet;
 
 import java.util.Collection;
 import java.util.LinkedList;
-import java.util.Map.Entry;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -11,12 +10,11 @@ import com.github.sailarize.form.FormInput;
 import com.github.sailarize.form.Template;
 import com.github.sailarize.form.ValueInput;
 import com.github.sailarize.http.Header;
-import com.github.sailarize.http.ParameterHolder;
 import com.github.sailarize.link.LinkBuilder;
 import com.github.sailarize.resource.SailResource;
 import com.github.sailarize.servlet.RequestHolder;
 import com.github.sailarize.url.Filter;
-import com.github.sailarize.utils.Collector;
+import com.github.sailarize.url.RequestFilters;
 
 /**
  * Builder that creates forms for faceting a list of resources.
@@ -189,13 +187,7 @@ public class FacetFormBuilder {
      */
     public FacetFormBuilder filter(String name, Object value) {
 
-        Filter filter = new Filter(name, value.toString());
-
-        this.filters.add(filter);
-
-        if (this.option.getFacet().equals(name)) {
-            this.applied.add(filter);
-        }
+        this.add(new Filter(name, value.toString()));
 
         return this;
     }
@@ -211,18 +203,20 @@ public class FacetFormBuilder {
      */
     public FacetFormBuilder filter(HttpServletRequest request) {
 
-        for (Entry<String, String[]> filter : request.getParameterMap().entrySet()) {
+        for (Filter filter : RequestFilters.of(request).withoutOffsets().filters()) {
+            this.add(filter);
+        }
 
-            for (String value : filter.getValue()) {
+        return this;
+    }
 
-                if (!ParameterHolder.get().contains(filter.getKey())) {
-                    this.filter(filter.getKey(), value);
-                }
-            }
+    private void add(Filter filter) {
 
-        }
+        this.filters.add(filter);
 
-        return this;
+        if (this.option.getFacet().equals(filter.getName())) {
+            this.applied.add(filter);
+        }
     }
 
     /**
@@ -319,12 +313,14 @@ public class FacetFormBuilder {
      */
     public void build(SailResource resource) {
 
+        FilterSet filters = FilterSet.of(this.filters);
+
         if (grouped) {
             resource.add(FormBuilder.get(resource)
                     .id(this.id)
                     .title(this.title)
                     .inputs(this.inputs)
-                    .filters(this.option.compatibles(this.filters))
+                    .filters(this.option.compatibles(filters))
                     .headers(this.headers)
                     .headers(this.headersApply)
                     .build(), FacetBuilder.GROUP);
@@ -333,7 +329,7 @@ public class FacetFormBuilder {
                     .id(this.id)
                     .title(this.title)
                     .inputs(this.inputs)
-                    .filters(this.option.compatibles(this.filters))
+                    .filters(this.option.compatibles(filters))
                     .headers(this.headers)
                     .headers(this.headersApply)
                     .build());
@@ -350,14 +346,14 @@ public class FacetFormBuilder {
             String residue = clean.getName() + "=" + clean.getValue();
 
             if (grouped) {
-                resource.add(new LinkBuilder(resource, rel).filters(Collector.reject(this.filters, clean))
+                resource.add(new LinkBuilder(resource, rel).filters(filters.without(clean))
                         .title(title)
                         .headers(this.headers)
                         .headers(this.headersClean)
                         .residue(residue)
                         .build(), FacetBuilder.GROUP, this.option.getFacet());
             } else {
-                resource.add(new LinkBuilder(resource, rel).filters(Collector.reject(this.filters, clean))
+                resource.add(new LinkBuilder(resource, rel).filters(filters.without(clean))
                         .headers(this.headers)
                         .headers(this.headersClean)
                         .residue(residue)
@@ -0,0 +1,295 @@
+package com.github.sailarize.facet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable tree of facet values, like a category taxonomy. Nodes are
+ * stored in parallel arrays and the children of every node are contiguous in a
+ * single array, so a tree is meant to be built once and shared by all
+ * requests.
+ *
+ * @author agusmunioz
+ *
+ */
+public final class FacetTree {
+
+    /**
+     * The parent of root nodes.
+     */
+    public static final int ROOT = -1;
+
+    private final String name;
+
+    private final String[] values;
+
+    private final String[] titles;
+
+    private final int[] parents;
+
+    private final int[] depths;
+
+    /**
+     * The children of the node n (ROOT included as slot 0) are in
+     * children[start[n + 1]] to children[start[n + 2] - 1].
+     */
+    private final int[] children;
+
+    private final int[] start;
+
+    private final Map<String, Integer> index;
+
+    private FacetTree(String name, List<String> values, List<String> titles, List<Integer> parents,
+            Map<String, Integer> index) {
+
+        int size = values.size();
+
+        this.name = name;
+        this.values = values.toArray(new String[size]);
+        this.titles = titles.toArray(new String[size]);
+        this.parents = new int[size];
+        this.depths = new int[size];
+        this.index = index;
+
+        for (int node = 0; node < size; node++) {
+            this.parents[node] = parents.get(node);
+            this.depths[node] = this.parents[node] == ROOT ? 0 : this.depths[this.parents[node]] + 1;
+        }
+
+        this.start = new int[size + 2];
+
+        for (int node = 0; node < size; node++) {
+            this.start[this.parents[node] + 2]++;
+        }
+
+        for (int slot = 2; slot < this.start.length; slot++) {
+            this.start[slot] += this.start[slot - 1];
+        }
+
+        this.children = new int[size];
+
+        int[] next = new int[size + 1];
+
+        for (int node = 0; node < size; node++) {
+            int slot = this.parents[node] + 1;
+            this.children[this.start[slot] + next[slot]++] = node;
+        }
+    }
+
+    /**
+     * Creates a builder for a tree.
+     *
+     * @param name
+     *            the facet name.
+     *
+     * @return the builder.
+     */
+    public static Builder builder(String name) {
+
+        return new Builder(name);
+    }
+
+    /**
+     * The facet name.
+     *
+     * @return the name.
+     */
+    public String getName() {
+
+        return name;
+    }
+
+    /**
+     * The amount of nodes.
+     *
+     * @return the size.
+     */
+    public int size() {
+
+        return this.values.length;
+    }
+
+    /**
+     * Finds a node by value.
+     *
+     * @param value
+     *            the node value.
+     *
+     * @return the node or {@link #ROOT} if there is none with the value.
+     */
+    public int indexOf(String value) {
+
+        Integer node = this.index.get(value);
+
+        return node == null ? ROOT : node;
+    }
+
+    /**
+     * The value of a node.
+     *
+     * @param node
+     *            the node.
+     *
+     * @return the value.
+     */
+    public String getValue(int node) {
+
+        return this.values[node];
+    }
+
+    /**
+     * The title of a node.
+     *
+     * @param node
+     *            the node.
+     *
+     * @return the title or null if it has none.
+     */
+    public String getTitle(int node) {
+
+        return this.titles[node];
+    }
+
+    /**
+     * The parent of a node.
+     *
+     * @param node
+     *            the node.
+     *
+     * @return the parent or {@link #ROOT} for root nodes.
+     */
+    public int getParent(int node) {
+
+        return this.parents[node];
+    }
+
+    /**
+     * The depth of a node, being 0 the one of root nodes.
+     *
+     * @param node
+     *            the node.
+     *
+     * @return the depth.
+     */
+    public int getDepth(int node) {
+
+        return this.depths[node];
+    }
+
+    /**
+     * The amount of children of a node.
+     *
+     * @param node
+     *            the node or {@link #ROOT} for the root nodes.
+     *
+     * @return the amount of children.
+     */
+    public int getChildCount(int node) {
+
+        return this.start[node + 2] - this.start[node + 1];
+    }
+
+    /**
+     * A child of a node.
+     *
+     * @param node
+     *            the node or {@link #ROOT} for the root nodes.
+     *
+     * @param position
+     *            the child position, from 0 to the amount of children.
+     *
+     * @return the child.
+     */
+    public int getChild(int node, int position) {
+
+        return this.children[this.start[node + 1] + position];
+    }
+
+    /**
+     * Builds a {@link FacetTree}. Nodes must be added after their parents.
+     */
+    public static class Builder {
+
+        private String name;
+
+        private List<String> values = new ArrayList<String>();
+
+        private List<String> titles = new ArrayList<String>();
+
+        private List<Integer> parents = new ArrayList<Integer>();
+
+        private Map<String, Integer> index = new HashMap<String, Integer>();
+
+        private Builder(String name) {
+
+            this.name = name;
+        }
+
+        /**
+         * Adds a node.
+         *
+         * @param value
+         *            the node value, unique in the tree.
+         *
+         * @param parent
+         *            the parent value or null for root nodes.
+         *
+         * @return the builder for further build.
+         */
+        public Builder node(String value, String parent) {
+
+            return this.node(value, null, parent);
+        }
+
+        /**
+         * Adds a node.
+         *
+         * @param value
+         *            the node value, unique in the tree.
+         *
+         * @param title
+         *            the node title.
+         *
+         * @param parent
+         *            the parent value or null for root nodes.
+         *
+         * @return the builder for further build.
+         *
+         * @throws IllegalArgumentException
+         *             if the value is repeated or the parent was not added.
+         */
+        public Builder node(String value, String title, String parent) {
+
+            if (value == null || this.index.containsKey(value)) {
+                throw new IllegalArgumentException("Missing or repeated facet tree value " + value);
+            }
+
+            Integer parentNode = ROOT;
+
+            if (parent != null) {
+
+                parentNode = this.index.get(parent);
+
+                if (parentNode == null) {
+                    throw new IllegalArgumentException(
+                            "Facet tree parent " + parent + " must be added before " + value);
+                }
+            }
+
+            this.index.put(value, this.values.size());
+            this.values.add(value);
+            this.titles.add(title);
+            this.parents.add(parentNode);
+
+            return this;
+        }
+
+        public FacetTree build() {
+
+            return new FacetTree(this.name, this.values, this.titles, this.parents,
+                    new HashMap<String, Integer>(this.index));
+        }
+    }
+}
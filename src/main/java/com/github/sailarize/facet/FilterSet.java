@@ -0,0 +1,412 @@
+package com.github.sailarize.facet;
+
+import java.util.AbstractCollection;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.github.sailarize.url.Filter;
+
+/**
+ * An immutable set of filters indexed by name and by name and value. Derived
+ * sets (without some filters or with an applied one) are overlays that share
+ * the index of the set they come from and only hold a membership bitset, so
+ * deriving the filters of each facet option does not copy them.
+ *
+ * @author agusmunioz
+ *
+ */
+public final class FilterSet extends AbstractCollection<Filter> {
+
+    private static final Filter[] NONE = new Filter[0];
+
+    private final Index index;
+
+    private final BitSet members;
+
+    /**
+     * Filters appended to the indexed ones.
+     */
+    private final Filter[] extras;
+
+    private FilterSet(Index index, BitSet members, Filter[] extras) {
+
+        this.index = index;
+        this.members = members;
+        this.extras = extras;
+    }
+
+    /**
+     * Creates a set indexing some filters.
+     *
+     * @param filters
+     *            the filters. The set keeps their order.
+     *
+     * @return the set, or the same instance if it already is a
+     *         {@link FilterSet}.
+     */
+    public static FilterSet of(Collection<Filter> filters) {
+
+        if (filters instanceof FilterSet) {
+            return (FilterSet) filters;
+        }
+
+        Index index = new Index(filters);
+
+        BitSet members = new BitSet(index.filters.length);
+        members.set(0, index.filters.length);
+
+        return new FilterSet(index, members, NONE);
+    }
+
+    /**
+     * Determines if there is a filter with a specific name and value.
+     *
+     * @param name
+     *            the filter name.
+     *
+     * @param value
+     *            the filter value.
+     *
+     * @return true if there is at least one.
+     */
+    public boolean contains(String name, String value) {
+
+        return this.contains(new Filter(name, value));
+    }
+
+    @Override
+    public boolean contains(Object filter) {
+
+        BitSet positions = this.index.byFilter.get(filter);
+
+        if (positions != null && positions.intersects(this.members)) {
+            return true;
+        }
+
+        for (Filter extra : this.extras) {
+            if (extra.equals(filter)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines if there is a filter with a specific name.
+     *
+     * @param name
+     *            the filter name.
+     *
+     * @return true if there is at least one.
+     */
+    public boolean containsName(String name) {
+
+        BitSet positions = this.index.byName.get(name);
+
+        if (positions != null && positions.intersects(this.members)) {
+            return true;
+        }
+
+        for (Filter extra : this.extras) {
+            if (equals(name, extra.getName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Derives a set without the filters with a specific name.
+     *
+     * @param name
+     *            the filter name.
+     *
+     * @return the derived set.
+     */
+    public FilterSet without(String name) {
+
+        BitSet members = this.members;
+
+        BitSet positions = this.index.byName.get(name);
+
+        if (positions != null && positions.intersects(members)) {
+            members = (BitSet) members.clone();
+            members.andNot(positions);
+        }
+
+        Filter[] extras = this.extras;
+
+        for (Filter extra : this.extras) {
+            if (equals(name, extra.getName())) {
+                extras = this.reject(name, null, false);
+                break;
+            }
+        }
+
+        return this.derive(members, extras);
+    }
+
+    /**
+     * Derives a set without the filters with a specific name and value.
+     *
+     * @param name
+     *            the filter name.
+     *
+     * @param value
+     *            the filter value.
+     *
+     * @return the derived set.
+     */
+    public FilterSet without(String name, String value) {
+
+        Filter filter = new Filter(name, value);
+
+        BitSet members = this.members;
+
+        BitSet positions = this.index.byFilter.get(filter);
+
+        if (positions != null && positions.intersects(members)) {
+            members = (BitSet) members.clone();
+            members.andNot(positions);
+        }
+
+        Filter[] extras = this.extras;
+
+        for (Filter extra : this.extras) {
+            if (extra.equals(filter)) {
+                extras = this.reject(name, value, true);
+                break;
+            }
+        }
+
+        return this.derive(members, extras);
+    }
+
+    /**
+     * Derives a set without the first occurrence of a filter, as
+     * {@link Collection#remove(Object)} does.
+     *
+     * @param filter
+     *            the filter.
+     *
+     * @return the derived set.
+     */
+    public FilterSet without(Filter filter) {
+
+        BitSet positions = this.index.byFilter.get(filter);
+
+        if (positions != null) {
+
+            for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+
+                if (this.members.get(i)) {
+
+                    BitSet members = (BitSet) this.members.clone();
+                    members.clear(i);
+
+                    return new FilterSet(this.index, members, this.extras);
+                }
+            }
+        }
+
+        for (int i = 0; i < this.extras.length; i++) {
+
+            if (this.extras[i].equals(filter)) {
+
+                Filter[] extras = new Filter[this.extras.length - 1];
+                System.arraycopy(this.extras, 0, extras, 0, i);
+                System.arraycopy(this.extras, i + 1, extras, i, extras.length - i);
+
+                return new FilterSet(this.index, this.members, extras);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Derives a set with only the filters with specific names.
+     *
+     * @param names
+     *            the filter names to keep.
+     *
+     * @return the derived set.
+     */
+    public FilterSet only(Collection<String> names) {
+
+        BitSet members = new BitSet(this.index.filters.length);
+
+        for (String name : names) {
+
+            BitSet positions = this.index.byName.get(name);
+
+            if (positions != null) {
+                members.or(positions);
+            }
+        }
+
+        members.and(this.members);
+
+        int kept = 0;
+
+        Filter[] extras = new Filter[this.extras.length];
+
+        for (Filter extra : this.extras) {
+            if (names.contains(extra.getName())) {
+                extras[kept++] = extra;
+            }
+        }
+
+        return new FilterSet(this.index, members, kept == extras.length ? this.extras : trim(extras, kept));
+    }
+
+    /**
+     * Derives a set with one more filter, placed after the current ones.
+     *
+     * @param filter
+     *            the filter.
+     *
+     * @return the derived set.
+     */
+    public FilterSet with(Filter filter) {
+
+        Filter[] extras = new Filter[this.extras.length + 1];
+        System.arraycopy(this.extras, 0, extras, 0, this.extras.length);
+        extras[this.extras.length] = filter;
+
+        return new FilterSet(this.index, this.members, extras);
+    }
+
+    @Override
+    public int size() {
+
+        return this.members.cardinality() + this.extras.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+
+        return this.extras.length == 0 && this.members.isEmpty();
+    }
+
+    @Override
+    public Iterator<Filter> iterator() {
+
+        return new Iterator<Filter>() {
+
+            private int next = members.nextSetBit(0);
+
+            private int extra = 0;
+
+            @Override
+            public boolean hasNext() {
+
+                return this.next >= 0 || this.extra < extras.length;
+            }
+
+            @Override
+            public Filter next() {
+
+                if (this.next >= 0) {
+
+                    Filter filter = index.filters[this.next];
+                    this.next = members.nextSetBit(this.next + 1);
+
+                    return filter;
+                }
+
+                if (this.extra < extras.length) {
+                    return extras[this.extra++];
+                }
+
+                throw new NoSuchElementException();
+            }
+
+            @Override
+            public void remove() {
+
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private FilterSet derive(BitSet members, Filter[] extras) {
+
+        if (members == this.members && extras == this.extras) {
+            return this;
+        }
+
+        return new FilterSet(this.index, members, extras);
+    }
+
+    private Filter[] reject(String name, String value, boolean byValue) {
+
+        Filter[] extras = new Filter[this.extras.length];
+
+        int kept = 0;
+
+        for (Filter extra : this.extras) {
+            if (!equals(name, extra.getName()) || (byValue && !equals(value, extra.getValue()))) {
+                extras[kept++] = extra;
+            }
+        }
+
+        return trim(extras, kept);
+    }
+
+    private static Filter[] trim(Filter[] filters, int length) {
+
+        Filter[] trimmed = new Filter[length];
+        System.arraycopy(filters, 0, trimmed, 0, length);
+
+        return trimmed;
+    }
+
+    private static boolean equals(String one, String other) {
+
+        return one == null ? other == null : one.equals(other);
+    }
+
+    /**
+     * The positions of the filters of a root set, shared by all its derived
+     * sets.
+     */
+    private static class Index {
+
+        private final Filter[] filters;
+
+        private final Map<String, BitSet> byName;
+
+        private final Map<Filter, BitSet> byFilter;
+
+        private Index(Collection<Filter> filters) {
+
+            this.filters = filters.toArray(new Filter[filters.size()]);
+            this.byName = new HashMap<String, BitSet>();
+            this.byFilter = new HashMap<Filter, BitSet>();
+
+            for (int i = 0; i < this.filters.length; i++) {
+                position(this.byName, this.filters[i].getName(), i);
+                position(this.byFilter, this.filters[i], i);
+            }
+        }
+
+        private static <K> void position(Map<K, BitSet> positions, K key, int position) {
+
+            BitSet bits = positions.get(key);
+
+            if (bits == null) {
+                bits = new BitSet();
+                positions.put(key, bits);
+            }
+
+            bits.set(position);
+        }
+    }
+}
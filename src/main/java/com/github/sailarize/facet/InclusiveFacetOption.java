@@ -46,4 +46,14 @@ public class InclusiveFacetOption extends BaseFacetOption {
         return !this.getFacet().equals(filter.getName()) || !this.getValue().equals(filter.getValue());
     }
 
+    @Override
+    public FilterSet compatibles(FilterSet filters) {
+
+        if (!this.isOverlayCompatible()) {
+            return super.compatibles(filters);
+        }
+
+        return filters.without(this.getFacet(), this.getValue());
+    }
+
 }
@@ -1,8 +1,10 @@
 package com.github.sailarize.facet;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
+import com.github.sailarize.link.LinkBlockKey;
 import com.github.sailarize.url.Filter;
 
 /**
@@ -52,4 +54,25 @@ public class IsolatedFacetOption extends BaseFacetOption {
         return this.retain.contains(filter.getName());
     }
 
+    @Override
+    public FilterSet compatibles(FilterSet filters) {
+
+        if (!this.isOverlayCompatible()) {
+            return super.compatibles(filters);
+        }
+
+        return filters.only(this.retain);
+    }
+
+    @Override
+    protected void describe(LinkBlockKey key) {
+
+        super.describe(key);
+
+        String[] retain = this.retain.toArray(new String[this.retain.size()]);
+        Arrays.sort(retain);
+
+        key.add(retain);
+    }
+
 }
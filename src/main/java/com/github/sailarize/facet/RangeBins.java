@@ -0,0 +1,254 @@
+package com.github.sailarize.facet;
+
+import java.util.Arrays;
+
+/**
+ * Computes range boundaries and bin counts over primitive arrays of values.
+ * Values are read in place: the only arrays created are the boundaries and
+ * counts, whose size depends on the amount of bins and not on the amount of
+ * values.
+ * <p>
+ * Bins are defined by increasing edges: bin i holds the values from edges[i]
+ * (inclusive) to edges[i + 1] (exclusive), except the last one that includes
+ * its upper edge.
+ *
+ * @author agusmunioz
+ *
+ */
+class RangeBins {
+
+    /**
+     * The amount of fine bins per quantile used to approximate quantile edges.
+     */
+    private static final int RESOLUTION = 64;
+
+    /**
+     * Gets the minimum and maximum of some values, NaN ignored.
+     *
+     * @param doubles
+     *            the values, or null if given as longs.
+     *
+     * @param longs
+     *            the values, or null if given as doubles.
+     *
+     * @return the minimum and maximum, null if there are no values.
+     */
+    static double[] bounds(double[] doubles, long[] longs) {
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        int length = length(doubles, longs);
+
+        for (int i = 0; i < length; i++) {
+
+            double value = doubles != null ? doubles[i] : longs[i];
+
+            if (value < min) {
+                min = value;
+            }
+
+            if (value > max) {
+                max = value;
+            }
+        }
+
+        return min > max ? null : new double[] { min, max };
+    }
+
+    /**
+     * Computes equally sized edges rounded to nice numbers (1, 2 or 5 times a
+     * power of ten) that cover a range.
+     *
+     * @param min
+     *            the minimum value.
+     *
+     * @param max
+     *            the maximum value.
+     *
+     * @param bins
+     *            the desired amount of bins. The result can have a few more or
+     *            less.
+     *
+     * @return the edges.
+     */
+    static double[] nice(double min, double max, int bins) {
+
+        double step = step((max - min) / Math.max(1, bins));
+
+        double low = Math.floor(min / step) * step;
+        double high = Math.ceil(max / step) * step;
+
+        if (high <= low) {
+            high = low + step;
+        }
+
+        int count = (int) Math.round((high - low) / step);
+
+        double[] edges = new double[count + 1];
+
+        for (int i = 0; i <= count; i++) {
+            edges[i] = round(low + i * step, step);
+        }
+
+        return edges;
+    }
+
+    /**
+     * Computes edges that split some values in bins with about the same amount
+     * of values. Quantiles are approximated over a fine histogram of nice
+     * edges, so they are nice numbers too and no copy of the values is sorted.
+     *
+     * @param doubles
+     *            the values, or null if given as longs.
+     *
+     * @param longs
+     *            the values, or null if given as doubles.
+     *
+     * @param bins
+     *            the desired amount of bins. Can be less if values repeat.
+     *
+     * @return the edges, null if there are no values.
+     */
+    static double[] quantiles(double[] doubles, long[] longs, int bins) {
+
+        double[] bounds = bounds(doubles, longs);
+
+        if (bounds == null) {
+            return null;
+        }
+
+        double[] fine = nice(bounds[0], bounds[1], Math.max(1, bins) * RESOLUTION);
+
+        long[] counts = count(fine, doubles, longs);
+
+        long total = 0;
+
+        for (long count : counts) {
+            total += count;
+        }
+
+        double[] edges = new double[bins + 1];
+
+        edges[0] = fine[0];
+
+        int size = 1;
+
+        long accumulated = 0;
+
+        int quantile = 1;
+
+        for (int i = 0; i < counts.length && quantile < bins; i++) {
+
+            accumulated += counts[i];
+
+            if (accumulated * bins >= quantile * total) {
+
+                if (fine[i + 1] > edges[size - 1] && i + 1 < counts.length) {
+                    edges[size++] = fine[i + 1];
+                }
+
+                while (quantile < bins && accumulated * bins >= quantile * total) {
+                    quantile++;
+                }
+            }
+        }
+
+        edges[size++] = fine[fine.length - 1];
+
+        return Arrays.copyOf(edges, size);
+    }
+
+    /**
+     * Counts the values of each bin. Values out of the edges are ignored.
+     *
+     * @param edges
+     *            the bin edges.
+     *
+     * @param doubles
+     *            the values, or null if given as longs.
+     *
+     * @param longs
+     *            the values, or null if given as doubles.
+     *
+     * @return the count of each bin.
+     */
+    static long[] count(double[] edges, double[] doubles, long[] longs) {
+
+        long[] counts = new long[Math.max(0, edges.length - 1)];
+
+        int length = length(doubles, longs);
+
+        for (int i = 0; i < length; i++) {
+
+            int bin = bin(edges, doubles != null ? doubles[i] : longs[i]);
+
+            if (bin >= 0) {
+                counts[bin]++;
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Finds the bin of a value with a binary search over the edges.
+     *
+     * @param edges
+     *            the bin edges.
+     *
+     * @param value
+     *            the value.
+     *
+     * @return the bin or -1 if the value is out of the edges.
+     */
+    static int bin(double[] edges, double value) {
+
+        int last = edges.length - 1;
+
+        if (last < 1 || !(value >= edges[0] && value <= edges[last])) {
+            return -1;
+        }
+
+        int position = Arrays.binarySearch(edges, value);
+
+        if (position >= 0) {
+            return position == last ? last - 1 : position;
+        }
+
+        return -position - 2;
+    }
+
+    private static int length(double[] doubles, long[] longs) {
+
+        return doubles != null ? doubles.length : (longs != null ? longs.length : 0);
+    }
+
+    /**
+     * Rounds a raw step to 1, 2 or 5 times a power of ten.
+     */
+    private static double step(double raw) {
+
+        if (!(raw > 0) || Double.isInfinite(raw)) {
+            return 1;
+        }
+
+        double power = Math.pow(10, Math.floor(Math.log10(raw)));
+
+        double fraction = raw / power;
+
+        double nice = fraction <= 1 ? 1 : (fraction <= 2 ? 2 : (fraction <= 5 ? 5 : 10));
+
+        return nice * power;
+    }
+
+    /**
+     * Removes the floating point noise of a multiple of a step.
+     */
+    private static double round(double value, double step) {
+
+        double scale = Math.pow(10, Math.max(0, -Math.floor(Math.log10(step))) + 1);
+
+        return Math.round(value * scale) / scale;
+    }
+}
@@ -0,0 +1,351 @@
+package com.github.sailarize.facet;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.sailarize.http.Header;
+import com.github.sailarize.resource.SailResource;
+import com.github.sailarize.url.Filter;
+
+/**
+ * Builder that creates links for faceting a list of resources by numeric
+ * ranges, like prices or sizes. Ranges are computed from the values of the
+ * resources (a double or long array, counted in place) or given as a
+ * precomputed histogram, with fixed, nice number or quantile boundaries.
+ * <p>
+ * Each range is an exclusive option whose value is "lower-upper", so a single
+ * range can be applied at a time. Links are built by a {@link FacetBuilder}
+ * and carry the range counts and bounds as data.
+ *
+ * @author agusmunioz
+ *
+ */
+public class RangeFacetBuilder {
+
+    /**
+     * Separator between the lower and upper bound in option values.
+     */
+    public static final String SEPARATOR = "-";
+
+    /**
+     * Link data with the lower bound of the range.
+     */
+    public static final String MIN = "min";
+
+    /**
+     * Link data with the upper bound of the range.
+     */
+    public static final String MAX = "max";
+
+    private static final int DEFAULT_BINS = 5;
+
+    private enum Mode {
+        FIXED, NICE, QUANTILES
+    }
+
+    private String name;
+
+    private FacetBuilder facet;
+
+    private double[] doubles;
+
+    private long[] longs;
+
+    private double[] edges;
+
+    private long[] counts;
+
+    private Mode mode = Mode.NICE;
+
+    private int bins = DEFAULT_BINS;
+
+    private RangeFacetBuilder(String name) {
+
+        this.name = name;
+        this.facet = FacetBuilder.facet(name);
+    }
+
+    /**
+     * Creates an initialized {@link RangeFacetBuilder}.
+     *
+     * @param name
+     *            the facet name.
+     *
+     * @return the builder for further build.
+     */
+    public static RangeFacetBuilder facet(String name) {
+
+        return new RangeFacetBuilder(name);
+    }
+
+    /**
+     * Configures the values the ranges are computed from.
+     *
+     * @param values
+     *            the value of each resource. Not copied nor modified.
+     *
+     * @return the builder for further build.
+     */
+    public RangeFacetBuilder values(double[] values) {
+
+        this.doubles = values;
+        this.longs = null;
+        return this;
+    }
+
+    /**
+     * Configures the values the ranges are computed from.
+     *
+     * @param values
+     *            the value of each resource. Not copied nor modified.
+     *
+     * @return the builder for further build.
+     */
+    public RangeFacetBuilder values(long[] values) {
+
+        this.longs = values;
+        this.doubles = null;
+        return this;
+    }
+
+    /**
+     * Configures precomputed ranges, like a search engine histogram.
+     *
+     * @param edges
+     *            the increasing range edges.
+     *
+     * @param counts
+     *            the count of each range, one less than edges.
+     *
+     * @return the builder for further build.
+     */
+    public RangeFacetBuilder histogram(double[] edges, long[] counts) {
+
+        if (edges.length != counts.length + 1) {
+            throw new IllegalArgumentException("A histogram must have one edge more than counts");
+        }
+
+        this.mode = Mode.FIXED;
+        this.edges = edges;
+        this.counts = counts;
+        return this;
+    }
+
+    /**
+     * Configures fixed range edges.
+     *
+     * @param edges
+     *            the increasing range edges.
+     *
+     * @return the builder for further build.
+     */
+    public RangeFacetBuilder fixed(double... edges) {
+
+        this.mode = Mode.FIXED;
+        this.edges = edges;
+        this.counts = null;
+        return this;
+    }
+
+    /**
+     * Configures equally sized ranges with nice number edges (1, 2 or 5 times a
+     * power of ten) covering the values. This is the default, with 5 ranges.
+     *
+     * @param bins
+     *            the approximate amount of ranges.
+     *
+     * @return the builder for further build.
+     *
+     * @throws IllegalArgumentException
+     *             if bins is less than 1.
+     */
+    public RangeFacetBuilder nice(int bins) {
+
+        if (bins < 1) {
+            throw new IllegalArgumentException("A range facet must have at least one range");
+        }
+
+        this.mode = Mode.NICE;
+        this.bins = bins;
+        this.counts = null;
+        return this;
+    }
+
+    /**
+     * Configures ranges holding about the same amount of values.
+     *
+     * @param bins
+     *            the max amount of ranges.
+     *
+     * @return the builder for further build.
+     *
+     * @throws IllegalArgumentException
+     *             if bins is less than 1.
+     */
+    public RangeFacetBuilder quantiles(int bins) {
+
+        if (bins < 1) {
+            throw new IllegalArgumentException("A range facet must have at least one range");
+        }
+
+        this.mode = Mode.QUANTILES;
+        this.bins = bins;
+        this.counts = null;
+        return this;
+    }
+
+    /**
+     * Configures the builder not to build empty ranges, unless applied.
+     *
+     * @return the builder for further build.
+     */
+    public RangeFacetBuilder dropEmpty() {
+
+        this.facet.dropEmpty();
+        return this;
+    }
+
+    /**
+     * Configures the builder with a rel prefix.
+     *
+     * @param prefix
+     *            the prefix to be added in all facet links rel.
+     *
+     * @return the builder for further build.
+     */
+    public RangeFacetBuilder relPrefix(String prefix) {
+
+        this.facet.relPrefix(prefix);
+        return this;
+    }
+
+    /**
+     * Adds a filter to all facet links.
+     *
+     * @param name
+     *            the filter name.
+     *
+     * @param value
+     *            the filter value.
+     *
+     * @return the builder for further build.
+     */
+    public RangeFacetBuilder filter(String name, Object value) {
+
+        this.facet.filter(name, value);
+        return this;
+    }
+
+    /**
+     * Excludes a filter
+     *
+     * @param filtersName
+     *            the filters name to exclude
+     * @return the builder for further build.
+     */
+    public RangeFacetBuilder exclude(String... filtersName) {
+
+        this.facet.exclude(filtersName);
+        return this;
+    }
+
+    /**
+     * Configures a header in the facet if the header is not null.
+     *
+     * @param header
+     *            the header.
+     *
+     * @return the builder for further building.
+     */
+    public RangeFacetBuilder header(Header header) {
+
+        this.facet.header(header);
+        return this;
+    }
+
+    /**
+     * Configures the builder in order not to group facet links in a link group.
+     *
+     * @return the builder for further building.
+     */
+    public RangeFacetBuilder ungroup() {
+
+        this.facet.ungroup();
+        return this;
+    }
+
+    /**
+     * Builds a link for each range and adds them to the resource. An applied
+     * range that is not among the computed ones (as ranges are usually computed
+     * over the already filtered resources) is built first, so it can be
+     * cleaned.
+     *
+     * @param list
+     *            the resource where to add all the facet links.
+     */
+    public void build(SailResource list, Object... values) {
+
+        double[] edges = this.getEdges();
+
+        long[] counts = this.counts != null && edges == this.edges ? this.counts
+                : RangeBins.count(edges, this.doubles, this.longs);
+
+        List<FacetOption> options = new ArrayList<FacetOption>(counts.length + 1);
+
+        for (int i = 0; i < counts.length; i++) {
+
+            String lower = format(edges[i]);
+            String upper = format(edges[i + 1]);
+
+            BaseFacetOption option = new ExclusiveFacetOption(this.name, lower + SEPARATOR + upper);
+            option.setTitle(lower + " " + SEPARATOR + " " + upper);
+            option.setCount(counts[i]);
+            option.addData(MIN, lower);
+            option.addData(MAX, upper);
+
+            options.add(option);
+        }
+
+        for (Filter filter : this.facet.getFilters(this.name)) {
+
+            boolean computed = false;
+
+            for (FacetOption option : options) {
+                computed |= option.getValue().equals(filter.getValue());
+            }
+
+            if (!computed) {
+                options.add(0, new ExclusiveFacetOption(this.name, filter.getValue()));
+            }
+        }
+
+        this.facet.options(options).build(list, values);
+    }
+
+    private double[] getEdges() {
+
+        switch (this.mode) {
+        case FIXED:
+            return this.edges == null ? new double[0] : this.edges;
+        case QUANTILES:
+            double[] quantiles = RangeBins.quantiles(this.doubles, this.longs, this.bins);
+            return quantiles == null ? new double[0] : quantiles;
+        default:
+            double[] bounds = RangeBins.bounds(this.doubles, this.longs);
+            return bounds == null ? new double[0] : RangeBins.nice(bounds[0], bounds[1], this.bins);
+        }
+    }
+
+    /**
+     * Formats an edge without decimals when it is a whole number.
+     */
+    private static String format(double edge) {
+
+        if (edge == Math.rint(edge) && Math.abs(edge) < Long.MAX_VALUE) {
+            return Long.toString((long) edge);
+        }
+
+        return BigDecimal.valueOf(edge).stripTrailingZeros().toPlainString();
+    }
+}
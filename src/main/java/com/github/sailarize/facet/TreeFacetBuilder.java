@@ -0,0 +1,254 @@
+package com.github.sailarize.facet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import com.github.sailarize.http.Header;
+import com.github.sailarize.resource.SailResource;
+import com.github.sailarize.url.Filter;
+
+/**
+ * Builder that creates links for faceting a list of resources over a
+ * {@link FacetTree}. Instead of a link per node, it builds the collapsed tree:
+ * the path to the applied node, the applied node with its siblings and the
+ * children of the applied node (the root nodes when none is applied). Links
+ * are built by a {@link FacetBuilder}, with nodes as exclusive options, so the
+ * applied node gets a clean link.
+ *
+ * @author agusmunioz
+ *
+ */
+public class TreeFacetBuilder {
+
+    /**
+     * Link data with the depth of the node in the tree.
+     */
+    public static final String DEPTH = "depth";
+
+    private static final String REFINES = "refines";
+
+    private FacetTree tree;
+
+    private FacetBuilder facet;
+
+    private long[] counts;
+
+    private TreeFacetBuilder(FacetTree tree) {
+
+        this.tree = tree;
+        this.facet = FacetBuilder.facet(tree.getName());
+    }
+
+    /**
+     * Creates an initialized {@link TreeFacetBuilder}.
+     *
+     * @param tree
+     *            the facet tree.
+     *
+     * @return the builder for further build.
+     */
+    public static TreeFacetBuilder facet(FacetTree tree) {
+
+        return new TreeFacetBuilder(tree);
+    }
+
+    /**
+     * Configures the amount of resources matching a node.
+     *
+     * @param value
+     *            the node value.
+     *
+     * @param count
+     *            the count.
+     *
+     * @return the builder for further build.
+     */
+    public TreeFacetBuilder count(String value, long count) {
+
+        int node = this.tree.indexOf(value);
+
+        if (node != FacetTree.ROOT) {
+
+            if (this.counts == null) {
+                this.counts = new long[this.tree.size()];
+                Arrays.fill(this.counts, BaseFacetOption.UNKNOWN_COUNT);
+            }
+
+            this.counts[node] = count;
+        }
+
+        return this;
+    }
+
+    /**
+     * Configures the builder with a rel prefix.
+     *
+     * @param prefix
+     *            the prefix to be added in all facet links rel.
+     *
+     * @return the builder for further build.
+     */
+    public TreeFacetBuilder relPrefix(String prefix) {
+
+        this.facet.relPrefix(prefix);
+        return this;
+    }
+
+    /**
+     * Adds a filter to all facet links.
+     *
+     * @param name
+     *            the filter name.
+     *
+     * @param value
+     *            the filter value.
+     *
+     * @return the builder for further build.
+     */
+    public TreeFacetBuilder filter(String name, Object value) {
+
+        this.facet.filter(name, value);
+        return this;
+    }
+
+    /**
+     * Excludes a filter
+     *
+     * @param filtersName
+     *            the filters name to exclude
+     * @return the builder for further build.
+     */
+    public TreeFacetBuilder exclude(String... filtersName) {
+
+        this.facet.exclude(filtersName);
+        return this;
+    }
+
+    /**
+     * Configures a header in the facet if the header is not null.
+     *
+     * @param header
+     *            the header.
+     *
+     * @return the builder for further building.
+     */
+    public TreeFacetBuilder header(Header header) {
+
+        this.facet.header(header);
+        return this;
+    }
+
+    /**
+     * Configures the all link to be built in the facet group link.
+     *
+     * @param title
+     *            the all link title.
+     *
+     * @return the builder for further building.
+     */
+    public TreeFacetBuilder all(String title) {
+
+        this.facet.all(title);
+        return this;
+    }
+
+    /**
+     * Configures the builder in order not to group facet links in a link group.
+     *
+     * @return the builder for further building.
+     */
+    public TreeFacetBuilder ungroup() {
+
+        this.facet.ungroup();
+        return this;
+    }
+
+    /**
+     * Builds the facet links of the collapsed tree and adds them to the
+     * resource.
+     *
+     * @param list
+     *            the resource where to add all the facet links.
+     */
+    public void build(SailResource list, Object... values) {
+
+        int applied = this.getApplied();
+
+        List<FacetOption> options = new ArrayList<FacetOption>();
+
+        if (applied != FacetTree.ROOT) {
+
+            int[] path = new int[this.tree.getDepth(applied)];
+
+            int node = applied;
+
+            for (int i = path.length - 1; i >= 0; i--) {
+                node = this.tree.getParent(node);
+                path[i] = node;
+            }
+
+            for (int ancestor : path) {
+
+                BaseFacetOption option = this.option(ancestor);
+                option.addData(REFINES, "false");
+                options.add(option);
+            }
+        }
+
+        int parent = applied == FacetTree.ROOT ? FacetTree.ROOT : this.tree.getParent(applied);
+
+        for (int i = 0; i < this.tree.getChildCount(parent); i++) {
+
+            int sibling = this.tree.getChild(parent, i);
+
+            options.add(this.option(sibling));
+
+            if (sibling == applied) {
+
+                for (int j = 0; j < this.tree.getChildCount(applied); j++) {
+                    options.add(this.option(this.tree.getChild(applied, j)));
+                }
+            }
+        }
+
+        this.facet.options(options).build(list, values);
+    }
+
+    /**
+     * Gets the applied node: the last filter of the facet that is in the tree.
+     *
+     * @return the node or {@link FacetTree#ROOT} if none is applied.
+     */
+    private int getApplied() {
+
+        int applied = FacetTree.ROOT;
+
+        Collection<Filter> filters = this.facet.getFilters(this.tree.getName());
+
+        for (Filter filter : filters) {
+
+            int node = this.tree.indexOf(filter.getValue());
+
+            if (node != FacetTree.ROOT) {
+                applied = node;
+            }
+        }
+
+        return applied;
+    }
+
+    private BaseFacetOption option(int node) {
+
+        BaseFacetOption option = new ExclusiveFacetOption(this.tree.getName(), this.tree.getValue(node));
+        option.setTitle(this.tree.getTitle(node));
+        option.addData(DEPTH, this.tree.getDepth(node));
+
+        if (this.counts != null) {
+            option.setCount(this.counts[node]);
+        }
+
+        return option;
+    }
+}
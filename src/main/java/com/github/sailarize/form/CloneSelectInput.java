@@ -1,6 +1,7 @@
 package com.github.sailarize.form;
 
 import java.util.Collection;
+import java.util.LinkedList;
 
 /**
  * A select that can be cloned to send a select values multiple times in the
@@ -61,4 +62,16 @@ public class CloneSelectInput extends SelectInput {
         this.selected = selected;
     }
 
+    @Override
+    public CloneSelectInput copy() {
+
+        CloneSelectInput copy = (CloneSelectInput) super.copy();
+
+        if (this.selected != null) {
+            copy.selected = new LinkedList<Object>(this.selected);
+        }
+
+        return copy;
+    }
+
 }
@@ -1,7 +1,7 @@
 package com.github.sailarize.form;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Map;
 
@@ -128,7 +128,7 @@ public class Form {
     public void addData(String name, Object value) {
 
         if (this.data == null) {
-            this.data = new HashMap<String, Object>();
+            this.data = new LinkedHashMap<String, Object>();
         }
 
         this.data.put("data-" + name, value);
@@ -254,6 +254,41 @@ public class Form {
         this.inputs = inputs;
     }
 
+    /**
+     * Creates a copy of the form that does not share its headers, data and
+     * inputs.
+     * 
+     * @return the copy.
+     */
+    public Form copy() {
+
+        Form copy = new Form();
+        copy.id = this.id;
+        copy.action = this.action;
+        copy.method = this.method;
+        copy.title = this.title;
+        copy.body = this.body;
+
+        if (this.data != null) {
+            copy.data = new LinkedHashMap<String, Object>(this.data);
+        }
+
+        if (this.headers != null) {
+            copy.headers = new LinkedList<Header>(this.headers);
+        }
+
+        if (this.inputs != null) {
+
+            copy.inputs = new LinkedList<FormInput>();
+
+            for (FormInput input : this.inputs) {
+                copy.inputs.add(input.copy());
+            }
+        }
+
+        return copy;
+    }
+
     @Override
     public String toString() {
 
@@ -8,10 +8,9 @@ import java.util.LinkedList;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import com.github.sailarize.context.SailContext;
 import com.github.sailarize.http.Header;
-import com.github.sailarize.http.HeaderHolder;
 import com.github.sailarize.http.Http;
-import com.github.sailarize.http.ParameterHolder;
 import com.github.sailarize.resource.SailResource;
 import com.github.sailarize.url.Domain;
 import com.github.sailarize.url.Filter;
@@ -534,24 +533,29 @@ public class FormBuilder {
             }
         }
 
-        if (!Domain.cross(this.action)) {
+        SailContext context = SailContext.current();
 
-            Collection<Header> headers = HeaderHolder.get();
+        QueryString query = this.query;
 
-            for (Header header : headers) {
-                form.add(header);
+        if (!Domain.cross(this.action, context)) {
+
+            if (context.getHeaders() != null) {
+
+                for (Header header : context.getHeaders()) {
+                    form.add(header);
+                }
             }
 
-            if (this.query == null) {
-                this.query = ParameterHolder.get();
-            } else {
-                this.query.append(ParameterHolder.get());
+            if (query == null) {
+                query = context.getParameters();
+            } else if (context.getParameters() != null) {
+                query.append(context.getParameters());
             }
         }
 
         StringBuilder action = new StringBuilder(this.action);
 
-        if (this.query != null) {
+        if (query != null) {
             action.append(query);
         }
 
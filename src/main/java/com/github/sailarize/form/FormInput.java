@@ -2,7 +2,7 @@ package com.github.sailarize.form;
 
 import com.github.sailarize.utils.ToStringBuilder;
 
-public abstract class FormInput {
+public abstract class FormInput implements Cloneable {
 
     private String id;
 
@@ -76,6 +76,24 @@ public abstract class FormInput {
         this.title = title;
     }
 
+    /**
+     * Creates a copy of the input that can be changed without changing this
+     * one. Subclasses with collections or other mutable fields override it
+     * to copy them too.
+     * 
+     * @return the copy.
+     */
+    public FormInput copy() {
+
+        try {
+
+            return (FormInput) this.clone();
+
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public String toString() {
         return ToStringBuilder.toString(this);
@@ -1,5 +1,8 @@
 package com.github.sailarize.form;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import com.github.sailarize.utils.ToStringBuilder;
 
 public class Option {
@@ -10,6 +13,8 @@ public class Option {
 
     private Boolean selected;
 
+    private Map<String, Object> data;
+
     public Option(Object value) {
         this.value = value;
     }
@@ -53,6 +58,48 @@ public class Option {
         this.selected = selected;
     }
 
+    /**
+     * Adds any extra data to the option.
+     * 
+     * @param name
+     *            the data name.
+     * 
+     * @param value
+     *            the data value.
+     */
+    public void addData(String name, Object value) {
+
+        if (this.data == null) {
+            this.data = new LinkedHashMap<String, Object>();
+        }
+
+        this.data.put("data-" + name, value);
+    }
+
+    public Map<String, Object> getData() {
+        return data;
+    }
+
+    public void setData(Map<String, Object> data) {
+        this.data = data;
+    }
+
+    /**
+     * Creates a copy of the option that does not share its data.
+     * 
+     * @return the copy.
+     */
+    public Option copy() {
+
+        Option copy = new Option(this.title, this.value, this.selected);
+
+        if (this.data != null) {
+            copy.data = new LinkedHashMap<String, Object>(this.data);
+        }
+
+        return copy;
+    }
+
     @Override
     public String toString() {
 
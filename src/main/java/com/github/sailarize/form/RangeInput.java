@@ -36,4 +36,16 @@ public class RangeInput extends ValueInput {
         this.range = range;
     }
 
-}
\ No newline at end of file
+    @Override
+    public RangeInput copy() {
+
+        RangeInput copy = (RangeInput) super.copy();
+
+        if (this.range != null) {
+            copy.range = new Range((String) this.range.getStart(), (String) this.range.getEnd(),
+                    this.range.getStep());
+        }
+
+        return copy;
+    }
+}
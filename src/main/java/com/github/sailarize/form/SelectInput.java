@@ -62,5 +62,22 @@ public abstract class SelectInput extends FormInput {
         return this;
     }
 
+    @Override
+    public SelectInput copy() {
+
+        SelectInput copy = (SelectInput) super.copy();
+
+        if (this.options != null) {
+
+            copy.options = new LinkedList<Option>();
+
+            for (Option option : this.options) {
+                copy.options.add(option.copy());
+            }
+        }
+
+        return copy;
+    }
+
     public abstract <T> T behave(SelectBehavioral<T> behavioural);
 }
@@ -1,103 +1,105 @@
 package com.github.sailarize.form;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Models a Sail input template value.
- * 
+ * <p>
+ * A template is compiled once into literal segments and variable slots and is
+ * immutable, so the same instance can be shared between threads. An instance
+ * matches the template when it starts and ends with the template literals and
+ * every variable takes at least one character, earlier variables taking as
+ * many characters as possible (like a greedy regex).
+ *
  * @author agusmunioz
- * 
+ *
  */
-public class Template {
+public final class Template {
 
     /**
-     * Java Regex character that must be escaped in the template to prevent bad
-     * regexs.
+     * Max amount of compiled templates kept in the shared cache.
      */
-    private static Pattern ESCAPE = Pattern.compile("[()\\[\\].+*?^$\\\\|]");
-
-    /**
-     * Regular expression for any character more than once.
-     */
-    private static final String ANY_CHAR = "(.+)";
+    private static final int CACHE_LIMIT = 512;
 
     /**
      * Variable used in templates for printing the complete value.
      */
-    private static String VALUE_VAR = "{#value}";
+    private static final String VALUE_VAR = "{#value}";
 
-    /**
-     * Pattern for matching variables in the template.
-     */
-    private static Pattern VARIABLE_PATTERN = Pattern.compile("\\{#\\w+\\}");
+    private static final ConcurrentMap<String, Template> CACHE = new ConcurrentHashMap<String, Template>();
+
+    private static final Template EMPTY = compile("");
 
-    private Pattern pattern;
+    private final String template;
 
-    private Map<String, Integer> groups = new HashMap<String, Integer>();
+    private final String[] literals;
 
-    private Map<String, String> variables = new HashMap<String, String>();
+    private final String[] variables;
 
     /**
      * Creates an initialized {@link Template}.
-     * 
+     *
      * @param template
      *            an expression this templates models.
+     *
+     * @param literals
+     *            the text around the variables, one more than variables.
+     *
+     * @param variables
+     *            the variables in order of appearance.
      */
-    private Template(String template) {
-
-        String regex = ESCAPE.matcher(template).replaceAll("\\\\$0");
-
-        int group = 1;
-
-        Matcher matcher = VARIABLE_PATTERN.matcher(template);
-
-        while (matcher.find()) {
-
-            String variable = matcher.group();
-
-            regex = regex.replace(variable, ANY_CHAR);
-
-            groups.put(variable, group++);
+    private Template(String template, String[] literals, String[] variables) {
 
-        }
-
-        this.pattern = Pattern.compile(regex);
+        this.template = template;
+        this.literals = literals;
+        this.variables = variables;
     }
 
     /**
-     * Creates an initialized {@link Template}.
-     * 
+     * Gets an initialized {@link Template}, compiled the first time it is
+     * used.
+     *
      * @param template
      *            a template that uses Sail template variables. Null value is
      *            replaced with an empty String.
-     * 
+     *
      * @return a {@link Template} ready for being used.
      */
     public static Template template(String template) {
 
-        if (template == null) {
-            return new Template("");
+        if (template == null || template.isEmpty()) {
+            return EMPTY;
+        }
+
+        Template compiled = CACHE.get(template);
+
+        if (compiled == null) {
+
+            compiled = compile(template);
+
+            if (CACHE.size() < CACHE_LIMIT) {
+                CACHE.putIfAbsent(template, compiled);
+            }
         }
 
-        return new Template(template);
+        return compiled;
     }
 
     /**
      * Generates a String using the configured instance as the data source,
      * following the pattern and the configured template for resolving variables
      * values.
-     * 
+     *
      * @param expression
      *            an expression that optionally uses the template variables.
-     * 
+     *
      * @param instance
      *            a String that follows the template structure but with
      *            variables replaced using specific values.
-     * 
+     *
      * @return the result of evaluating the expression using the instance as
      *         source, or the instance if the expression is null or empty.
      */
@@ -107,25 +109,177 @@ public class Template {
             return instance;
         }
 
-        Matcher matcher = this.pattern.matcher(instance);
+        Template compiled = template(expression);
+
+        if (compiled.variables.length == 0) {
+            return expression;
+        }
+
+        String[] values = this.match(instance);
+
+        StringBuilder result = new StringBuilder(expression.length() + instance.length());
+
+        for (int i = 0; i < compiled.variables.length; i++) {
+
+            result.append(compiled.literals[i]);
+
+            String variable = compiled.variables[i];
+
+            String value = this.value(variable, values);
+
+            if (value == null && VALUE_VAR.equals(variable)) {
+                value = instance;
+            }
+
+            result.append(value == null ? variable : value);
+        }
+
+        return result.append(compiled.literals[compiled.variables.length]).toString();
+    }
+
+    @Override
+    public String toString() {
+
+        return this.template;
+    }
+
+    /**
+     * Compiles a template into literals and variables.
+     */
+    private static Template compile(String template) {
+
+        List<String> literals = new LinkedList<String>();
+        List<String> variables = new LinkedList<String>();
+
+        int start = 0;
+        int from = 0;
+
+        while (true) {
+
+            int open = template.indexOf("{#", from);
+
+            if (open < 0) {
+                break;
+            }
+
+            int close = open + 2;
+
+            while (close < template.length() && isWord(template.charAt(close))) {
+                close++;
+            }
+
+            if (close == open + 2 || close == template.length() || template.charAt(close) != '}') {
+                from = open + 1;
+                continue;
+            }
+
+            literals.add(template.substring(start, open));
+            variables.add(template.substring(open, close + 1));
+
+            start = close + 1;
+            from = start;
+        }
+
+        literals.add(template.substring(start));
+
+        return new Template(template, literals.toArray(new String[literals.size()]),
+                variables.toArray(new String[variables.size()]));
+    }
 
-        this.variables.put(VALUE_VAR, instance);
+    /**
+     * Matches an instance against the template.
+     *
+     * @return the value of every variable slot or null if the instance does
+     *         not match or the template has no variables.
+     */
+    private String[] match(String instance) {
 
-        if (matcher.matches()) {
+        if (this.variables.length == 0 || instance == null) {
+            return null;
+        }
 
-            for (Entry<String, Integer> group : this.groups.entrySet()) {
+        String first = this.literals[0];
 
-                this.variables.put(group.getKey(), matcher.group(group.getValue()));
+        if (!instance.startsWith(first)) {
+            return null;
+        }
+
+        int[] ends = new int[this.variables.length];
+
+        if (!this.match(instance, 0, first.length(), ends)) {
+            return null;
+        }
+
+        String[] values = new String[this.variables.length];
+
+        int start = first.length();
+
+        for (int i = 0; i < ends.length; i++) {
+            values[i] = instance.substring(start, ends[i]);
+            start = ends[i] + this.literals[i + 1].length();
+        }
+
+        return values;
+    }
+
+    /**
+     * Matches the variable slot at a position of the instance, trying the
+     * longest value first and backtracking when the rest does not match.
+     */
+    private boolean match(String instance, int slot, int start, int[] ends) {
+
+        String next = this.literals[slot + 1];
+
+        if (slot == this.variables.length - 1) {
+
+            int end = instance.length() - next.length();
+
+            ends[slot] = end;
+
+            return end > start && instance.startsWith(next, end);
+        }
+
+        int end = instance.lastIndexOf(next, instance.length() - 1);
+
+        while (end > start) {
+
+            ends[slot] = end;
+
+            if (this.match(instance, slot + 1, end + next.length(), ends)) {
+                return true;
             }
+
+            end = instance.lastIndexOf(next, end - 1);
         }
 
-        String result = expression;
+        return false;
+    }
+
+    /**
+     * Gets the value of a variable, taken from its last slot as repeated
+     * variables are not checked to be equal.
+     */
+    private String value(String variable, String[] values) {
+
+        if (values == null) {
+            return null;
+        }
 
-        for (Entry<String, String> variable : this.variables.entrySet()) {
+        for (int i = this.variables.length - 1; i >= 0; i--) {
 
-            result = result.replace(variable.getKey(), variable.getValue());
+            if (this.variables[i].equals(variable)) {
+                return values[i];
+            }
         }
 
-        return result;
+        return null;
+    }
+
+    /**
+     * Checks a character can be part of a variable name (a regex \w).
+     */
+    private static boolean isWord(char c) {
+
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
     }
 }
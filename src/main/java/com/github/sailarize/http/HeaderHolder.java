@@ -1,21 +1,25 @@
 package com.github.sailarize.http;
 
+import java.util.AbstractCollection;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 
+import com.github.sailarize.context.SailContext;
+
 /**
  * 
- * Holder for HTTP headers that must be added in all links and forms. It uses a
- * {@link ThreadLocal} so {@link HeaderHolder#clean()} must be used in order to
- * properly clean the TreadLocal.
+ * Holder for HTTP headers that must be added in all links and forms. It is a
+ * view over the current {@link SailContext} so {@link HeaderHolder#clean()}
+ * must be used in order to properly clean the TreadLocal.
  * 
  * @author agusmunioz
  * 
  */
 public class HeaderHolder {
 
-    private static ThreadLocal<Collection<Header>> HEADERS = new ThreadLocal<Collection<Header>>();
-
     /**
      * Sets the list of headers that must be added in all links and forms.
      * 
@@ -24,28 +28,100 @@ public class HeaderHolder {
      */
     public static void set(Collection<Header> headers) {
 
-        HEADERS.set(headers);
+        SailContext.set(SailContext.current().withHeaders(headers));
+    }
+
+    /**
+     * Adds a header that must be added in all links and forms.
+     * 
+     * @param header
+     *            the header.
+     */
+    public static void add(Header header) {
+
+        Collection<Header> headers = new LinkedList<Header>(get());
+
+        headers.add(header);
+
+        set(headers);
     }
 
     /**
      * Gets the current list of headers that must be added in all links and
-     * forms.
+     * forms. The list is a view over the current context: changing it (e.g.
+     * adding a header) replaces the context with a copy holding the change.
      * 
      * @return this list of headers.
      */
     public static Collection<Header> get() {
 
-        if (HEADERS.get() == null) {
-            set(new LinkedList<Header>());
+        return new ContextHeaders();
+    }
+
+    private static Collection<Header> headers() {
+
+        Collection<Header> headers = SailContext.current().getHeaders();
+
+        if (headers == null) {
+            return Collections.emptyList();
         }
 
-        return HEADERS.get();
+        return headers;
     }
 
     /**
-     * Cleans the {@link ThreadLocal}.
+     * Cleans the headers.
      */
     public static void clean() {
-        HEADERS.remove();
+        set(null);
+    }
+
+    /**
+     * The headers of the current context, writing any change back into it.
+     */
+    private static class ContextHeaders extends AbstractCollection<Header> {
+
+        @Override
+        public boolean add(Header header) {
+
+            HeaderHolder.add(header);
+
+            return true;
+        }
+
+        @Override
+        public Iterator<Header> iterator() {
+
+            final Collection<Header> headers = new ArrayList<Header>(headers());
+            final Iterator<Header> iterator = headers.iterator();
+
+            return new Iterator<Header>() {
+
+                @Override
+                public boolean hasNext() {
+
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Header next() {
+
+                    return iterator.next();
+                }
+
+                @Override
+                public void remove() {
+
+                    iterator.remove();
+                    set(headers);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+
+            return headers().size();
+        }
     }
 }
@@ -1,17 +1,17 @@
 package com.github.sailarize.http;
 
+import com.github.sailarize.context.SailContext;
 import com.github.sailarize.url.QueryString;
 
 /**
- * Holder for URL parameters used for parameter propagation.
+ * Holder for URL parameters used for parameter propagation. It is a view over
+ * the current {@link SailContext}.
  * 
  * @author agustinmunoz
  *
  */
 public class ParameterHolder {
 
-    private static ThreadLocal<QueryString> PARAMETERS = new ThreadLocal<QueryString>();
-
     /**
      * Sets the parameters that must be added in all links and forms.
      * 
@@ -20,7 +20,7 @@ public class ParameterHolder {
      */
     public static void set(QueryString parameters) {
 
-        PARAMETERS.set(parameters);
+        SailContext.set(SailContext.current().withParameters(parameters));
     }
 
     /**
@@ -31,17 +31,20 @@ public class ParameterHolder {
      */
     public static QueryString get() {
 
-        if (PARAMETERS.get() == null) {
-            set(new QueryString());
+        QueryString parameters = SailContext.current().getParameters();
+
+        if (parameters == null) {
+            parameters = new QueryString();
+            set(parameters);
         }
 
-        return PARAMETERS.get();
+        return parameters;
     }
 
     /**
-     * Cleans the {@link ThreadLocal}.
+     * Cleans the parameters.
      */
     public static void clean() {
-        PARAMETERS.remove();
+        set(null);
     }
 }
@@ -0,0 +1,75 @@
+package com.github.sailarize.json;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.github.sailarize.utils.ClassMetadata;
+
+/**
+ * Resolves, once per class and stop class, the fields serialized as JSON
+ * properties of a plain bean out of its {@link ClassMetadata}.
+ *
+ * @author agusmunioz
+ *
+ */
+class BeanProperties {
+
+    /**
+     * The fields of each class, by stop class.
+     */
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Field[]>> CACHE =
+            new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, Field[]>>();
+
+    /**
+     * Gets the instance fields of a class, superclass fields first, that are
+     * declared below a specific class in the hierarchy.
+     *
+     * @param type
+     *            the bean class.
+     *
+     * @param stop
+     *            the class whose fields (and its superclasses fields) are not
+     *            included.
+     *
+     * @return the accessible fields.
+     */
+    static Field[] of(Class<?> type, Class<?> stop) {
+
+        ConcurrentMap<Class<?>, Field[]> stops = CACHE.get(type);
+
+        if (stops == null) {
+
+            stops = new ConcurrentHashMap<Class<?>, Field[]>(4);
+
+            ConcurrentMap<Class<?>, Field[]> current = CACHE.putIfAbsent(type, stops);
+
+            if (current != null) {
+                stops = current;
+            }
+        }
+
+        Field[] fields = stops.get(stop);
+
+        if (fields == null) {
+            fields = resolve(type, stop);
+            stops.putIfAbsent(stop, fields);
+        }
+
+        return fields;
+    }
+
+    private static Field[] resolve(Class<?> type, Class<?> stop) {
+
+        Field[] properties = ClassMetadata.of(type).getProperties();
+
+        int from = 0;
+
+        while (from < properties.length && properties[from].getDeclaringClass().isAssignableFrom(stop)) {
+            from++;
+        }
+
+        return Arrays.copyOfRange(properties, from, properties.length);
+    }
+}
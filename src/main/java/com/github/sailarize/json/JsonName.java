@@ -0,0 +1,106 @@
+package com.github.sailarize.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A JSON field name pre-encoded as UTF-8, quotes and colon included, so it can
+ * be copied as is into a {@link JsonOutput}.
+ *
+ * @author agusmunioz
+ *
+ */
+public final class JsonName {
+
+    /**
+     * Max amount of dynamic names (like Sail group keys) kept encoded.
+     */
+    private static final int CACHE_LIMIT = 1024;
+
+    private static final ConcurrentMap<String, JsonName> CACHE = new ConcurrentHashMap<String, JsonName>();
+
+    private final String name;
+
+    private final byte[] bytes;
+
+    private JsonName(String name) {
+
+        this.name = name;
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(name.length() + 3);
+
+        try {
+
+            JsonOutput output = new JsonOutput(stream);
+            output.name(name);
+            output.flush();
+
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        this.bytes = stream.toByteArray();
+    }
+
+    /**
+     * Encodes a field name.
+     *
+     * @param name
+     *            the field name.
+     *
+     * @return the encoded name.
+     */
+    public static JsonName of(String name) {
+
+        return new JsonName(name);
+    }
+
+    /**
+     * Gets an encoded field name from a shared cache, encoding it the first
+     * time. Intended for names that repeat across documents, like Sail group
+     * keys.
+     *
+     * @param name
+     *            the field name.
+     *
+     * @return the encoded name.
+     */
+    public static JsonName cached(String name) {
+
+        JsonName encoded = CACHE.get(name);
+
+        if (encoded == null) {
+
+            encoded = new JsonName(name);
+
+            if (CACHE.size() < CACHE_LIMIT) {
+                CACHE.putIfAbsent(name, encoded);
+            }
+        }
+
+        return encoded;
+    }
+
+    /**
+     * The field name.
+     *
+     * @return the name.
+     */
+    public String getName() {
+
+        return name;
+    }
+
+    byte[] bytes() {
+
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+
+        return this.name;
+    }
+}
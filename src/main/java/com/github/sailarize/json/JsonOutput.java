@@ -0,0 +1,431 @@
+package com.github.sailarize.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * A buffered, forward only JSON output that encodes straight to UTF-8. It does
+ * not build any intermediate tree: every token is written as soon as it is
+ * received and separators are managed internally.
+ *
+ * @author agusmunioz
+ *
+ */
+public class JsonOutput {
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The biggest amount of bytes a single char can be encoded to (an escaped
+     * control character written as a unicode escape).
+     */
+    private static final int MAX_CHAR_BYTES = 6;
+
+    private static final byte[] NULL = "null".getBytes(UTF8);
+
+    private static final byte[] TRUE = "true".getBytes(UTF8);
+
+    private static final byte[] FALSE = "false".getBytes(UTF8);
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(UTF8);
+
+    private OutputStream stream;
+
+    private Writer writer;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position;
+
+    private boolean separate;
+
+    /**
+     * Creates an initialized {@link JsonOutput}.
+     *
+     * @param stream
+     *            the stream where the UTF-8 encoded JSON is written to.
+     */
+    public JsonOutput(OutputStream stream) {
+
+        this.stream = stream;
+    }
+
+    /**
+     * Creates an initialized {@link JsonOutput}.
+     *
+     * @param writer
+     *            the writer where the JSON is written to.
+     */
+    public JsonOutput(Writer writer) {
+
+        this.writer = writer;
+    }
+
+    /**
+     * Starts a JSON object.
+     *
+     * @return the output for further writing.
+     */
+    public JsonOutput beginObject() throws IOException {
+
+        this.separator();
+        this.write('{');
+        this.separate = false;
+        return this;
+    }
+
+    /**
+     * Ends the current JSON object.
+     *
+     * @return the output for further writing.
+     */
+    public JsonOutput endObject() throws IOException {
+
+        this.write('}');
+        this.separate = true;
+        return this;
+    }
+
+    /**
+     * Starts a JSON array.
+     *
+     * @return the output for further writing.
+     */
+    public JsonOutput beginArray() throws IOException {
+
+        this.separator();
+        this.write('[');
+        this.separate = false;
+        return this;
+    }
+
+    /**
+     * Ends the current JSON array.
+     *
+     * @return the output for further writing.
+     */
+    public JsonOutput endArray() throws IOException {
+
+        this.write(']');
+        this.separate = true;
+        return this;
+    }
+
+    /**
+     * Writes a pre-encoded field name (including the colon).
+     *
+     * @param name
+     *            the field name.
+     *
+     * @return the output for writing the field value.
+     */
+    public JsonOutput name(JsonName name) throws IOException {
+
+        this.separator();
+        this.raw(name.bytes());
+        this.separate = false;
+        return this;
+    }
+
+    /**
+     * Writes a field name that is not known in advance.
+     *
+     * @param name
+     *            the field name.
+     *
+     * @return the output for writing the field value.
+     */
+    public JsonOutput name(String name) throws IOException {
+
+        this.separator();
+        this.string(name);
+        this.write(':');
+        this.separate = false;
+        return this;
+    }
+
+    /**
+     * Writes a string value or null.
+     *
+     * @param value
+     *            the value.
+     *
+     * @return the output for further writing.
+     */
+    public JsonOutput value(CharSequence value) throws IOException {
+
+        if (value == null) {
+            return this.nullValue();
+        }
+
+        this.separator();
+        this.string(value);
+        this.separate = true;
+        return this;
+    }
+
+    /**
+     * Writes a number value or null. Not finite numbers are written as null.
+     *
+     * @param value
+     *            the value.
+     *
+     * @return the output for further writing.
+     */
+    public JsonOutput value(Number value) throws IOException {
+
+        if (value == null) {
+            return this.nullValue();
+        }
+
+        if ((value instanceof Double && (((Double) value).isNaN() || ((Double) value).isInfinite()))
+                || (value instanceof Float && (((Float) value).isNaN() || ((Float) value).isInfinite()))) {
+            return this.nullValue();
+        }
+
+        this.separator();
+        this.ascii(value.toString());
+        this.separate = true;
+        return this;
+    }
+
+    /**
+     * Writes a long value.
+     *
+     * @param value
+     *            the value.
+     *
+     * @return the output for further writing.
+     */
+    public JsonOutput value(long value) throws IOException {
+
+        this.separator();
+        this.ascii(Long.toString(value));
+        this.separate = true;
+        return this;
+    }
+
+    /**
+     * Writes a boolean value.
+     *
+     * @param value
+     *            the value.
+     *
+     * @return the output for further writing.
+     */
+    public JsonOutput value(boolean value) throws IOException {
+
+        this.separator();
+        this.raw(value ? TRUE : FALSE);
+        this.separate = true;
+        return this;
+    }
+
+    /**
+     * Writes a null value.
+     *
+     * @return the output for further writing.
+     */
+    public JsonOutput nullValue() throws IOException {
+
+        this.separator();
+        this.raw(NULL);
+        this.separate = true;
+        return this;
+    }
+
+    /**
+     * Writes any buffered content to the underlying stream or writer and
+     * flushes it.
+     */
+    public void flush() throws IOException {
+
+        this.drain();
+
+        if (this.stream != null) {
+            this.stream.flush();
+        } else {
+            this.writer.flush();
+        }
+    }
+
+    /**
+     * Writes a comma if the previous token requires it.
+     */
+    private void separator() throws IOException {
+
+        if (this.separate) {
+            this.write(',');
+        }
+    }
+
+    /**
+     * Writes a quoted and escaped string.
+     *
+     * @param value
+     *            the string.
+     */
+    private void string(CharSequence value) throws IOException {
+
+        this.write('"');
+
+        int length = value.length();
+
+        for (int i = 0; i < length; i++) {
+
+            char c = value.charAt(i);
+
+            this.ensure(MAX_CHAR_BYTES);
+
+            if (c < 0x80) {
+
+                if (c == '"' || c == '\\') {
+                    this.buffer[this.position++] = '\\';
+                    this.buffer[this.position++] = (byte) c;
+                } else if (c < 0x20) {
+                    this.control(c);
+                } else {
+                    this.buffer[this.position++] = (byte) c;
+                }
+
+            } else if (c < 0x800) {
+
+                this.buffer[this.position++] = (byte) (0xC0 | (c >> 6));
+                this.buffer[this.position++] = (byte) (0x80 | (c & 0x3F));
+
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+
+                int code = Character.toCodePoint(c, value.charAt(++i));
+                this.buffer[this.position++] = (byte) (0xF0 | (code >> 18));
+                this.buffer[this.position++] = (byte) (0x80 | ((code >> 12) & 0x3F));
+                this.buffer[this.position++] = (byte) (0x80 | ((code >> 6) & 0x3F));
+                this.buffer[this.position++] = (byte) (0x80 | (code & 0x3F));
+
+            } else if (Character.isSurrogate(c)) {
+
+                this.buffer[this.position++] = '?';
+
+            } else {
+
+                this.buffer[this.position++] = (byte) (0xE0 | (c >> 12));
+                this.buffer[this.position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                this.buffer[this.position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        this.write('"');
+    }
+
+    /**
+     * Writes an escaped control character.
+     *
+     * @param c
+     *            the character.
+     */
+    private void control(char c) {
+
+        this.buffer[this.position++] = '\\';
+
+        switch (c) {
+        case '\n':
+            this.buffer[this.position++] = 'n';
+            break;
+        case '\r':
+            this.buffer[this.position++] = 'r';
+            break;
+        case '\t':
+            this.buffer[this.position++] = 't';
+            break;
+        case '\b':
+            this.buffer[this.position++] = 'b';
+            break;
+        case '\f':
+            this.buffer[this.position++] = 'f';
+            break;
+        default:
+            this.buffer[this.position++] = 'u';
+            this.buffer[this.position++] = '0';
+            this.buffer[this.position++] = '0';
+            this.buffer[this.position++] = HEX[c >> 4];
+            this.buffer[this.position++] = HEX[c & 0xF];
+        }
+    }
+
+    /**
+     * Writes a string known to be ASCII, like a number.
+     *
+     * @param value
+     *            the string.
+     */
+    private void ascii(String value) throws IOException {
+
+        int length = value.length();
+
+        this.ensure(length);
+
+        for (int i = 0; i < length; i++) {
+            this.buffer[this.position++] = (byte) value.charAt(i);
+        }
+    }
+
+    /**
+     * Writes already encoded bytes.
+     *
+     * @param bytes
+     *            UTF-8 bytes holding whole characters.
+     */
+    void raw(byte[] bytes) throws IOException {
+
+        if (bytes.length > this.buffer.length) {
+            this.drain();
+            this.emit(bytes, bytes.length);
+            return;
+        }
+
+        this.ensure(bytes.length);
+        System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+        this.position += bytes.length;
+    }
+
+    private void write(char c) throws IOException {
+
+        this.ensure(1);
+        this.buffer[this.position++] = (byte) c;
+    }
+
+    /**
+     * Makes room in the buffer. As it is only called between characters, the
+     * buffer always holds complete UTF-8 sequences when drained.
+     *
+     * @param length
+     *            the amount of bytes about to be written.
+     */
+    private void ensure(int length) throws IOException {
+
+        if (this.position + length > this.buffer.length) {
+            this.drain();
+        }
+    }
+
+    private void drain() throws IOException {
+
+        if (this.position > 0) {
+            this.emit(this.buffer, this.position);
+            this.position = 0;
+        }
+    }
+
+    private void emit(byte[] bytes, int length) throws IOException {
+
+        if (this.stream != null) {
+            this.stream.write(bytes, 0, length);
+        } else {
+            this.writer.write(new String(bytes, 0, length, UTF8));
+        }
+    }
+}
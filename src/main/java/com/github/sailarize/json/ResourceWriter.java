@@ -0,0 +1,32 @@
+package com.github.sailarize.json;
+
+import java.io.IOException;
+
+import com.github.sailarize.resource.SailResource;
+
+/**
+ * Writes the properties of a specific type of {@link SailResource}. An
+ * implementation is generated at compile time, by
+ * {@link com.github.sailarize.json.processor.SailWriterProcessor}, for each
+ * resource annotated with {@link com.github.sailarize.resource.Path} or
+ * {@link com.github.sailarize.resource.Version}.
+ *
+ * @author agusmunioz
+ *
+ * @param <T>
+ *            the type of resource.
+ */
+public interface ResourceWriter<T extends SailResource> {
+
+    /**
+     * Writes the resource own properties (neither its id nor its hypermedia
+     * controls) as fields of the current JSON object.
+     *
+     * @param resource
+     *            the resource.
+     *
+     * @param writer
+     *            the writer to use.
+     */
+    void properties(T resource, SailWriter writer) throws IOException;
+}
@@ -0,0 +1,106 @@
+package com.github.sailarize.json;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.github.sailarize.resource.SailResource;
+import com.github.sailarize.resource.SailResourceList;
+
+/**
+ * Resolves, once per class, the {@link ResourceWriter} of a resource: the
+ * generated one when present or a reflective one otherwise.
+ *
+ * @author agusmunioz
+ *
+ */
+class ResourceWriters {
+
+    /**
+     * The suffix of the generated writers' class name.
+     */
+    static final String SUFFIX = "_SailWriter";
+
+    private static final ConcurrentMap<Class<?>, ResourceWriter<SailResource>> CACHE = new ConcurrentHashMap<Class<?>, ResourceWriter<SailResource>>();
+
+    /**
+     * Gets the writer for a type of resource.
+     *
+     * @param type
+     *            the resource class.
+     *
+     * @return the writer.
+     */
+    static ResourceWriter<SailResource> of(Class<?> type) {
+
+        ResourceWriter<SailResource> writer = CACHE.get(type);
+
+        if (writer == null) {
+
+            writer = generated(type);
+
+            if (writer == null) {
+                writer = new Reflective(type);
+            }
+
+            CACHE.putIfAbsent(type, writer);
+        }
+
+        return writer;
+    }
+
+    /**
+     * Instantiates the generated writer of a resource class.
+     *
+     * @param type
+     *            the resource class.
+     *
+     * @return the generated writer or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    private static ResourceWriter<SailResource> generated(Class<?> type) {
+
+        try {
+
+            Class<?> writer = Class.forName(type.getName() + SUFFIX, true, type.getClassLoader());
+
+            if (ResourceWriter.class.isAssignableFrom(writer)) {
+                return (ResourceWriter<SailResource>) writer.newInstance();
+            }
+
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (InstantiationException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+
+        return null;
+    }
+
+    /**
+     * Writes a resource properties by reading its fields.
+     */
+    private static class Reflective implements ResourceWriter<SailResource> {
+
+        private Field[] fields;
+
+        public Reflective(Class<?> type) {
+
+            Class<?> stop = SailResourceList.class.isAssignableFrom(type) ? SailResourceList.class
+                    : SailResource.class;
+
+            this.fields = BeanProperties.of(type, stop);
+        }
+
+        @Override
+        public void properties(SailResource resource, SailWriter writer) throws IOException {
+
+            writer.properties(resource, this.fields);
+        }
+    }
+}
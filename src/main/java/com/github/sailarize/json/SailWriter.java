@@ -0,0 +1,632 @@
+package com.github.sailarize.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.github.sailarize.form.CloneSelectInput;
+import com.github.sailarize.form.Form;
+import com.github.sailarize.form.FormInput;
+import com.github.sailarize.form.MultiSelectInput;
+import com.github.sailarize.form.Option;
+import com.github.sailarize.form.SelectBehavioral;
+import com.github.sailarize.form.SelectInput;
+import com.github.sailarize.form.SingleSelectInput;
+import com.github.sailarize.form.ValueInput;
+import com.github.sailarize.http.Header;
+import com.github.sailarize.link.HypermediaLink;
+import com.github.sailarize.media.Image;
+import com.github.sailarize.media.Video;
+import com.github.sailarize.resource.SailResource;
+import com.github.sailarize.resource.SailResourceList;
+import com.github.sailarize.resource.SailTags;
+import com.github.sailarize.utils.ClassMetadata;
+
+/**
+ * Writes {@link SailResource}s, and any hypermedia control they hold, as Sail
+ * JSON. The graph is streamed in one pass straight to the target, without
+ * building an intermediate tree.
+ *
+ * @author agusmunioz
+ *
+ */
+public class SailWriter {
+
+    private static final JsonName ID = JsonName.of("id");
+
+    private static final JsonName ITEMS = JsonName.of("items");
+
+    private static final JsonName HREF = JsonName.of("href");
+
+    private static final JsonName REL = JsonName.of("rel");
+
+    private static final JsonName TITLE = JsonName.of("title");
+
+    private static final JsonName TYPE = JsonName.of("type");
+
+    private static final JsonName FUSION = JsonName.of("fusion");
+
+    private static final JsonName RESIDUE = JsonName.of("residue");
+
+    private static final JsonName HEADERS = JsonName.of("headers");
+
+    private static final JsonName NAME = JsonName.of("name");
+
+    private static final JsonName VALUE = JsonName.of("value");
+
+    private static final JsonName ACTION = JsonName.of("action");
+
+    private static final JsonName METHOD = JsonName.of("method");
+
+    private static final JsonName BODY = JsonName.of("body");
+
+    private static final JsonName INPUTS = JsonName.of("inputs");
+
+    private static final JsonName MASK = JsonName.of("mask");
+
+    private static final JsonName SELECTED = JsonName.of("selected");
+
+    private static final JsonName MIN = JsonName.of("min");
+
+    private static final JsonName MAX = JsonName.of("max");
+
+    private static final JsonName START = JsonName.of("start");
+
+    private static final JsonName META = JsonName.of(SailTags.META);
+
+    /**
+     * Resolves the field holding the options of each type of select.
+     */
+    private static final SelectBehavioral<JsonName> OPTIONS = new SelectBehavioral<JsonName>() {
+
+        private final JsonName single = JsonName.of("select");
+
+        private final JsonName multi = JsonName.of("multiselect");
+
+        private final JsonName clone = JsonName.of("cloneselect");
+
+        @Override
+        public JsonName single(SingleSelectInput select) {
+            return single;
+        }
+
+        @Override
+        public JsonName multiselect(MultiSelectInput select) {
+            return multi;
+        }
+
+        @Override
+        public JsonName cloneselect(CloneSelectInput cloneSelect) {
+            return clone;
+        }
+    };
+
+    private JsonOutput out;
+
+    /**
+     * Creates an initialized {@link SailWriter}.
+     *
+     * @param out
+     *            the output where to write.
+     */
+    public SailWriter(JsonOutput out) {
+
+        this.out = out;
+    }
+
+    /**
+     * Writes an object as Sail JSON encoded in UTF-8.
+     *
+     * @param object
+     *            a {@link SailResource}, a hypermedia control or any bean.
+     *
+     * @param stream
+     *            the target stream. It is flushed but not closed.
+     */
+    public static void write(Object object, OutputStream stream) throws IOException {
+
+        JsonOutput output = new JsonOutput(stream);
+        new SailWriter(output).value(object);
+        output.flush();
+    }
+
+    /**
+     * Writes an object as Sail JSON.
+     *
+     * @param object
+     *            a {@link SailResource}, a hypermedia control or any bean.
+     *
+     * @param writer
+     *            the target writer. It is flushed but not closed.
+     */
+    public static void write(Object object, Writer writer) throws IOException {
+
+        JsonOutput output = new JsonOutput(writer);
+        new SailWriter(output).value(object);
+        output.flush();
+    }
+
+    /**
+     * Writes an object as a Sail JSON string.
+     *
+     * @param object
+     *            a {@link SailResource}, a hypermedia control or any bean.
+     *
+     * @return the JSON.
+     */
+    public static String toJson(Object object) {
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        try {
+
+            write(object, stream);
+
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return new String(stream.toByteArray(), JsonOutput.UTF8);
+    }
+
+    /**
+     * Writes any value, dispatching on its type.
+     *
+     * @param value
+     *            the value, could be null.
+     */
+    public void value(Object value) throws IOException {
+
+        if (value == null) {
+            this.out.nullValue();
+        } else if (value instanceof CharSequence) {
+            this.out.value((CharSequence) value);
+        } else if (value instanceof Number) {
+            this.out.value((Number) value);
+        } else if (value instanceof Boolean) {
+            this.out.value(((Boolean) value).booleanValue());
+        } else if (value instanceof SailResource) {
+            this.resource((SailResource) value);
+        } else if (value instanceof HypermediaLink) {
+            this.link((HypermediaLink) value);
+        } else if (value instanceof Form) {
+            this.form((Form) value);
+        } else if (value instanceof FormInput) {
+            this.input((FormInput) value);
+        } else if (value instanceof Option) {
+            this.option((Option) value);
+        } else if (value instanceof Header) {
+            this.header((Header) value);
+        } else if (value instanceof Image) {
+            this.link(((Image) value).getLink());
+        } else if (value instanceof Video) {
+            this.link(((Video) value).getLink());
+        } else if (value instanceof Map) {
+            this.map((Map<?, ?>) value);
+        } else if (value instanceof Iterable) {
+            this.array((Iterable<?>) value);
+        } else if (value.getClass().isArray()) {
+            this.array(value);
+        } else if (value instanceof Enum) {
+            this.out.value(((Enum<?>) value).name());
+        } else if (value instanceof Character || value instanceof Class) {
+            this.out.value(value instanceof Class ? ((Class<?>) value).getName() : value.toString());
+        } else if (value instanceof Date) {
+            this.out.value(((Date) value).getTime());
+        } else if (value instanceof Calendar) {
+            this.out.value(((Calendar) value).getTimeInMillis());
+        } else if (ClassMetadata.isPlatform(value.getClass())) {
+            this.out.value(value.toString());
+        } else {
+            this.bean(value);
+        }
+    }
+
+    /**
+     * Writes a resource: its id, its own properties and then its hypermedia
+     * controls grouped by Sail keys.
+     *
+     * @param resource
+     *            the resource.
+     */
+    public void resource(SailResource resource) throws IOException {
+
+        this.out.beginObject();
+
+        this.field(ID, resource.getId());
+
+        if (resource instanceof SailResourceList) {
+            this.out.name(ITEMS);
+            this.value(((SailResourceList<?>) resource).getItems());
+        }
+
+        ResourceWriters.of(resource.getClass()).properties(resource, this);
+
+        this.hypermedia(resource);
+
+        this.out.endObject();
+    }
+
+    /**
+     * Writes the Sail sections of a resource (meta, links, forms, images and
+     * videos). It does not start nor end the resource object.
+     *
+     * @param resource
+     *            the resource.
+     */
+    public void hypermedia(SailResource resource) throws IOException {
+
+        if (resource.getMeta() != null) {
+            this.out.name(META);
+            this.map(resource.getMeta());
+        }
+
+        this.groups(resource.getLinks());
+        this.groups(resource.getForms());
+        this.groups(resource.getImages());
+        this.groups(resource.getVideos());
+    }
+
+    /**
+     * Writes a link.
+     *
+     * @param link
+     *            the link.
+     */
+    public void link(HypermediaLink link) throws IOException {
+
+        this.out.beginObject();
+        this.field(HREF, link.getHref());
+        this.field(REL, link.getRel());
+        this.field(TITLE, link.getTitle());
+        this.field(TYPE, link.getType());
+        this.field(FUSION, link.getFusion());
+        this.field(RESIDUE, link.getResidue());
+        this.headers(link.getHeaders());
+        this.data(link.getData());
+        this.out.endObject();
+    }
+
+    /**
+     * Writes a form.
+     *
+     * @param form
+     *            the form.
+     */
+    public void form(Form form) throws IOException {
+
+        this.out.beginObject();
+        this.field(ID, form.getId());
+        this.field(ACTION, form.getAction());
+        this.field(METHOD, form.getMethod());
+        this.field(TITLE, form.getTitle());
+        this.headers(form.getHeaders());
+
+        if (form.getBody() != null) {
+            this.out.name(BODY);
+            this.value(form.getBody());
+        }
+
+        if (form.getInputs() != null) {
+            this.out.name(INPUTS);
+            this.array(form.getInputs());
+        }
+
+        this.data(form.getData());
+        this.out.endObject();
+    }
+
+    /**
+     * Writes a form input.
+     *
+     * @param input
+     *            the input.
+     */
+    public void input(FormInput input) throws IOException {
+
+        this.out.beginObject();
+        this.field(ID, input.getId());
+        this.field(NAME, input.getName());
+        this.field(TITLE, input.getTitle());
+
+        if (input instanceof ValueInput) {
+
+            ValueInput value = (ValueInput) input;
+
+            this.out.name(VALUE);
+            this.value(value.getValue());
+            this.field(MASK, value.getMask());
+            this.properties(input, BeanProperties.of(input.getClass(), ValueInput.class));
+
+        } else if (input instanceof SelectInput) {
+
+            this.select((SelectInput) input);
+
+        } else {
+
+            this.properties(input, BeanProperties.of(input.getClass(), FormInput.class));
+        }
+
+        this.out.endObject();
+    }
+
+    /**
+     * Writes the select specific fields.
+     *
+     * @param select
+     *            the select.
+     */
+    private void select(SelectInput select) throws IOException {
+
+        if (select instanceof CloneSelectInput) {
+
+            CloneSelectInput clone = (CloneSelectInput) select;
+
+            this.field(MIN, clone.getMin());
+            this.field(MAX, clone.getMax());
+            this.field(START, clone.getStart());
+
+            if (clone.getSelected() != null) {
+                this.out.name(SELECTED);
+                this.array(clone.getSelected());
+            }
+        }
+
+        if (select.getOptions() != null) {
+            this.out.name(select.behave(OPTIONS));
+            this.array(select.getOptions());
+        }
+    }
+
+    /**
+     * Writes a select option.
+     *
+     * @param option
+     *            the option.
+     */
+    public void option(Option option) throws IOException {
+
+        this.out.beginObject();
+        this.field(TITLE, option.getTitle());
+
+        if (option.getValue() != null) {
+            this.out.name(VALUE);
+            this.value(option.getValue());
+        }
+
+        if (option.getSelected() != null) {
+            this.out.name(SELECTED).value(option.getSelected().booleanValue());
+        }
+
+        this.data(option.getData());
+        this.out.endObject();
+    }
+
+    /**
+     * Writes a header.
+     *
+     * @param header
+     *            the header.
+     */
+    public void header(Header header) throws IOException {
+
+        this.out.beginObject();
+        this.field(NAME, header.getName());
+        this.field(VALUE, header.getValue());
+        this.out.endObject();
+    }
+
+    /**
+     * Writes each group of a Sail section as an array under its group key.
+     *
+     * @param groups
+     *            the groups or null.
+     */
+    private void groups(Map<String, ? extends Collection<?>> groups) throws IOException {
+
+        if (groups == null) {
+            return;
+        }
+
+        for (Entry<String, ? extends Collection<?>> group : groups.entrySet()) {
+            this.out.name(JsonName.cached(group.getKey()));
+            this.array(group.getValue());
+        }
+    }
+
+    private void headers(Collection<Header> headers) throws IOException {
+
+        if (headers != null) {
+            this.out.name(HEADERS);
+            this.array(headers);
+        }
+    }
+
+    /**
+     * Writes the extra data as fields of the current object.
+     *
+     * @param data
+     *            the data or null.
+     */
+    private void data(Map<String, ?> data) throws IOException {
+
+        if (data == null) {
+            return;
+        }
+
+        for (Entry<String, ?> entry : data.entrySet()) {
+            this.out.name(JsonName.cached(entry.getKey()));
+            this.value(entry.getValue());
+        }
+    }
+
+    /**
+     * Writes a property of the current object if the value is not null.
+     *
+     * @param name
+     *            the property name.
+     *
+     * @param value
+     *            the property value.
+     */
+    public void property(JsonName name, Object value) throws IOException {
+
+        if (value != null) {
+            this.out.name(name);
+            this.value(value);
+        }
+    }
+
+    /**
+     * Writes a string property of the current object if the value is not
+     * null.
+     *
+     * @param name
+     *            the property name.
+     *
+     * @param value
+     *            the property value.
+     */
+    public void property(JsonName name, String value) throws IOException {
+
+        this.field(name, value);
+    }
+
+    /**
+     * Writes an integral property of the current object.
+     *
+     * @param name
+     *            the property name.
+     *
+     * @param value
+     *            the property value.
+     */
+    public void property(JsonName name, long value) throws IOException {
+
+        this.out.name(name).value(value);
+    }
+
+    /**
+     * Writes a boolean property of the current object.
+     *
+     * @param name
+     *            the property name.
+     *
+     * @param value
+     *            the property value.
+     */
+    public void property(JsonName name, boolean value) throws IOException {
+
+        this.out.name(name).value(value);
+    }
+
+    /**
+     * Writes a field if the value is not null.
+     */
+    private void field(JsonName name, String value) throws IOException {
+
+        if (value != null) {
+            this.out.name(name).value(value);
+        }
+    }
+
+    /**
+     * Writes a field if the value is not null.
+     */
+    private void field(JsonName name, Number value) throws IOException {
+
+        if (value != null) {
+            this.out.name(name).value(value);
+        }
+    }
+
+    private void map(Map<?, ?> map) throws IOException {
+
+        this.out.beginObject();
+
+        for (Entry<?, ?> entry : map.entrySet()) {
+            this.out.name(String.valueOf(entry.getKey()));
+            this.value(entry.getValue());
+        }
+
+        this.out.endObject();
+    }
+
+    private void array(Iterable<?> values) throws IOException {
+
+        this.out.beginArray();
+
+        for (Object value : values) {
+            this.value(value);
+        }
+
+        this.out.endArray();
+    }
+
+    private void array(Object array) throws IOException {
+
+        this.out.beginArray();
+
+        int length = Array.getLength(array);
+
+        for (int i = 0; i < length; i++) {
+            this.value(Array.get(array, i));
+        }
+
+        this.out.endArray();
+    }
+
+    /**
+     * Writes a plain application object using its fields as properties.
+     * Platform values (UUID, URI, LocalDate, etc.) are written as strings
+     * instead.
+     *
+     * @param bean
+     *            the object.
+     */
+    private void bean(Object bean) throws IOException {
+
+        this.out.beginObject();
+        this.properties(bean, BeanProperties.of(bean.getClass(), Object.class));
+        this.out.endObject();
+    }
+
+    /**
+     * Writes the not null fields of an object as properties of the current
+     * JSON object.
+     *
+     * @param bean
+     *            the object.
+     *
+     * @param fields
+     *            the fields to write.
+     */
+    void properties(Object bean, Field[] fields) throws IOException {
+
+        for (Field field : fields) {
+
+            Object value;
+
+            try {
+
+                value = field.get(bean);
+
+            } catch (IllegalAccessException e) {
+                value = null;
+            }
+
+            if (value != null) {
+                this.out.name(JsonName.cached(field.getName()));
+                this.value(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.github.sailarize.json.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+import com.github.sailarize.resource.Path;
+import com.github.sailarize.resource.Version;
+
+/**
+ * Generates, at compile time, a reflection free
+ * {@link com.github.sailarize.json.ResourceWriter} for each concrete
+ * {@link com.github.sailarize.resource.SailResource} annotated with
+ * {@link Path} or {@link Version}. The writer is placed in the resource package
+ * and named after it with the _SailWriter suffix.
+ * <p>
+ * Properties are read through their getters (getX or, for booleans, isX), so
+ * a resource is only generated when every property has a public one; otherwise
+ * it keeps being written by reflection.
+ *
+ * @author agusmunioz
+ *
+ */
+public class SailWriterProcessor extends AbstractProcessor {
+
+    private static final String RESOURCE = "com.github.sailarize.resource.SailResource";
+
+    private static final String RESOURCE_LIST = "com.github.sailarize.resource.SailResourceList";
+
+    private static final String SUFFIX = "_SailWriter";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+
+        Set<String> types = new HashSet<String>();
+        types.add(Path.class.getName());
+        types.add(Version.class.getName());
+        return types;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+
+        Set<Element> annotated = new HashSet<Element>();
+
+        for (TypeElement annotation : annotations) {
+            annotated.addAll(round.getElementsAnnotatedWith(annotation));
+        }
+
+        for (Element element : annotated) {
+
+            if (element.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+
+            TypeElement type = (TypeElement) element;
+
+            List<Property> properties = this.properties(type);
+
+            if (properties != null) {
+                this.generate(type, properties);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Resolves the properties of a resource in the same order they are written
+     * by reflection (superclass first, in declaration order).
+     *
+     * @param type
+     *            the resource type.
+     *
+     * @return the properties or null if the type can not have a generated
+     *         writer.
+     */
+    private List<Property> properties(TypeElement type) {
+
+        if (!this.accessible(type) || type.getModifiers().contains(Modifier.ABSTRACT)
+                || !type.getTypeParameters().isEmpty()) {
+            return null;
+        }
+
+        LinkedList<Property> properties = new LinkedList<Property>();
+
+        List<ExecutableElement> methods = ElementFilter
+                .methodsIn(this.processingEnv.getElementUtils().getAllMembers(type));
+
+        TypeElement current = type;
+
+        while (true) {
+
+            String name = current.getQualifiedName().toString();
+
+            if (RESOURCE.equals(name)) {
+                break;
+            }
+
+            if (RESOURCE_LIST.equals(name) || Object.class.getName().equals(name)) {
+                return null;
+            }
+
+            List<VariableElement> fields = ElementFilter.fieldsIn(current.getEnclosedElements());
+
+            for (int i = fields.size() - 1; i >= 0; i--) {
+
+                VariableElement field = fields.get(i);
+
+                Set<Modifier> modifiers = field.getModifiers();
+
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+
+                ExecutableElement getter = this.getter(field, methods);
+
+                if (getter == null) {
+                    return null;
+                }
+
+                properties.addFirst(new Property(field.getSimpleName().toString(),
+                        getter.getSimpleName().toString(), field.asType().getKind()));
+            }
+
+            TypeMirror superclass = current.getSuperclass();
+
+            if (superclass.getKind() != TypeKind.DECLARED) {
+                return null;
+            }
+
+            current = (TypeElement) ((DeclaredType) superclass).asElement();
+        }
+
+        return properties;
+    }
+
+    /**
+     * Finds the public getter of a field.
+     *
+     * @param field
+     *            the field.
+     *
+     * @param methods
+     *            the methods of the resource.
+     *
+     * @return the getter or null if there is none.
+     */
+    private ExecutableElement getter(VariableElement field, List<ExecutableElement> methods) {
+
+        String name = field.getSimpleName().toString();
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+
+        boolean bool = field.asType().getKind() == TypeKind.BOOLEAN;
+
+        for (ExecutableElement method : methods) {
+
+            String methodName = method.getSimpleName().toString();
+
+            if ((methodName.equals("get" + capitalized) || (bool && methodName.equals("is" + capitalized)))
+                    && method.getParameters().isEmpty() && method.getModifiers().contains(Modifier.PUBLIC)
+                    && !method.getModifiers().contains(Modifier.STATIC) && this.processingEnv.getTypeUtils()
+                            .isSameType(method.getReturnType(), field.asType())) {
+                return method;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks a generated class, in the same package, can reach the type.
+     *
+     * @param type
+     *            the resource type.
+     *
+     * @return true if accessible.
+     */
+    private boolean accessible(TypeElement type) {
+
+        Element current = type;
+
+        while (current instanceof TypeElement) {
+
+            TypeElement element = (TypeElement) current;
+
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+
+            if (element.getNestingKind() == NestingKind.MEMBER) {
+
+                if (!element.getModifiers().contains(Modifier.STATIC)) {
+                    return false;
+                }
+
+            } else if (element.getNestingKind() != NestingKind.TOP_LEVEL) {
+                return false;
+            }
+
+            current = element.getEnclosingElement();
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes the source of the writer.
+     *
+     * @param type
+     *            the resource type.
+     *
+     * @param properties
+     *            the properties to write.
+     */
+    private void generate(TypeElement type, List<Property> properties) {
+
+        PackageElement pkg = this.processingEnv.getElementUtils().getPackageOf(type);
+
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+
+        String binaryName = this.processingEnv.getElementUtils().getBinaryName(type).toString();
+
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                + SUFFIX;
+
+        String resource = type.getQualifiedName().toString();
+
+        try {
+
+            JavaFileObject file = this.processingEnv.getFiler()
+                    .createSourceFile(binaryName + SUFFIX, type);
+
+            PrintWriter out = new PrintWriter(file.openWriter());
+
+            try {
+
+                if (!packageName.isEmpty()) {
+                    out.println("package " + packageName + ";");
+                    out.println();
+                }
+
+                out.println("/**");
+                out.println(" * Writes {@link " + resource + "} properties. Generated by "
+                        + SailWriterProcessor.class.getName() + ".");
+                out.println(" */");
+                out.println("public final class " + simpleName + " implements com.github.sailarize.json.ResourceWriter<"
+                        + resource + "> {");
+                out.println();
+
+                int index = 0;
+
+                for (Property property : properties) {
+                    out.println("    private static final com.github.sailarize.json.JsonName P" + index++
+                            + " = com.github.sailarize.json.JsonName.of(\"" + property.name + "\");");
+                    out.println();
+                }
+
+                out.println("    @Override");
+                out.println("    public void properties(" + resource
+                        + " resource, com.github.sailarize.json.SailWriter writer) throws java.io.IOException {");
+
+                index = 0;
+
+                for (Property property : properties) {
+                    out.println("        writer.property(P" + index++ + ", " + property.read("resource") + ");");
+                }
+
+                out.println("    }");
+                out.println("}");
+
+            } finally {
+                out.close();
+            }
+
+        } catch (IOException e) {
+
+            this.processingEnv.getMessager().printMessage(Kind.WARNING,
+                    "Unable to generate the Sail writer: " + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * A resource property.
+     */
+    private static class Property {
+
+        private String name;
+
+        private String getter;
+
+        private TypeKind kind;
+
+        public Property(String name, String getter, TypeKind kind) {
+
+            this.name = name;
+            this.getter = getter;
+            this.kind = kind;
+        }
+
+        /**
+         * The expression reading the property. Chars are written as strings,
+         * like the reflective writer does.
+         *
+         * @param variable
+         *            the variable holding the resource.
+         *
+         * @return the expression.
+         */
+        public String read(String variable) {
+
+            String call = variable + "." + this.getter + "()";
+
+            return this.kind == TypeKind.CHAR ? "String.valueOf(" + call + ")" : call;
+        }
+    }
+}
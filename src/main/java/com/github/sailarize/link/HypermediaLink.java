@@ -1,7 +1,7 @@
 package com.github.sailarize.link;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Map;
 
@@ -230,12 +230,39 @@ public class HypermediaLink {
     public void addData(String name, String value) {
 
         if (this.data == null) {
-            this.data = new HashMap<String, String>();
+            this.data = new LinkedHashMap<String, String>();
         }
 
         this.data.put("data-" + name, value);
     }
 
+    /**
+     * Creates a copy of the link that does not share its headers and data
+     * collections.
+     * 
+     * @return the copy.
+     */
+    HypermediaLink copy() {
+
+        HypermediaLink copy = new HypermediaLink();
+        copy.href = this.href;
+        copy.rel = this.rel;
+        copy.title = this.title;
+        copy.type = this.type;
+        copy.fusion = this.fusion;
+        copy.residue = this.residue;
+
+        if (this.headers != null) {
+            copy.headers = new LinkedList<Header>(this.headers);
+        }
+
+        if (this.data != null) {
+            copy.data = new LinkedHashMap<String, String>(this.data);
+        }
+
+        return copy;
+    }
+
     @Override
     public String toString() {
 
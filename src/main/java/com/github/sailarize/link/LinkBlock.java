@@ -0,0 +1,184 @@
+package com.github.sailarize.link;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.github.sailarize.form.Form;
+import com.github.sailarize.resource.SailResource;
+import com.github.sailarize.resource.SailTags;
+
+/**
+ * The links a {@link LinkBlockBuilder} added to a resource, with their groups,
+ * kept for adding copies of them to other resources. Forms added by the builder
+ * (like the ones of a compact facet) are kept and copied the same way.
+ *
+ * @author agusmunioz
+ *
+ */
+public final class LinkBlock {
+
+    private final HypermediaLink[] links;
+
+    private final String[][] groups;
+
+    private final Form[] forms;
+
+    private final String[][] formGroups;
+
+    private LinkBlock(HypermediaLink[] links, String[][] groups, Form[] forms, String[][] formGroups) {
+
+        this.links = links;
+        this.groups = groups;
+        this.forms = forms;
+        this.formGroups = formGroups;
+    }
+
+    /**
+     * Builds the links of a builder in a resource and captures them.
+     *
+     * @param builder
+     *            the links builder.
+     *
+     * @param resource
+     *            the resource.
+     *
+     * @param values
+     *            any value used to replace in the resource url if a template
+     *            is used.
+     *
+     * @return the block with copies of the added links and forms.
+     */
+    public static LinkBlock capture(LinkBlockBuilder builder, SailResource resource, Object... values) {
+
+        Map<String, Integer> linksBefore = sizes(resource.getLinks());
+
+        Map<String, Integer> formsBefore = sizes(resource.getForms());
+
+        builder.build(resource, values);
+
+        List<HypermediaLink> links = new ArrayList<HypermediaLink>();
+
+        List<String[]> groups = new ArrayList<String[]>();
+
+        for (Entry<String, Iterator<HypermediaLink>> added : added(resource.getLinks(), linksBefore)) {
+
+            String[] names = groups(added.getKey(), SailTags.LINKS);
+
+            while (added.getValue().hasNext()) {
+                links.add(added.getValue().next().copy());
+                groups.add(names);
+            }
+        }
+
+        List<Form> forms = new ArrayList<Form>();
+
+        List<String[]> formGroups = new ArrayList<String[]>();
+
+        for (Entry<String, Iterator<Form>> added : added(resource.getForms(), formsBefore)) {
+
+            String[] names = groups(added.getKey(), SailTags.FORMS);
+
+            while (added.getValue().hasNext()) {
+                forms.add(added.getValue().next().copy());
+                formGroups.add(names);
+            }
+        }
+
+        return new LinkBlock(links.toArray(new HypermediaLink[links.size()]),
+                groups.toArray(new String[groups.size()][]), forms.toArray(new Form[forms.size()]),
+                formGroups.toArray(new String[formGroups.size()][]));
+    }
+
+    /**
+     * Adds copies of the links and forms to a resource, in their groups.
+     *
+     * @param resource
+     *            the resource.
+     */
+    public void splice(SailResource resource) {
+
+        for (int i = 0; i < this.links.length; i++) {
+            resource.add(this.links[i].copy(), this.groups[i]);
+        }
+
+        for (int i = 0; i < this.forms.length; i++) {
+            resource.add(this.forms[i].copy(), this.formGroups[i]);
+        }
+    }
+
+    /**
+     * The amount of links.
+     *
+     * @return the size.
+     */
+    public int size() {
+
+        return this.links.length;
+    }
+
+    /**
+     * Gets the size of every group.
+     */
+    private static <T> Map<String, Integer> sizes(Map<String, Collection<T>> elements) {
+
+        Map<String, Integer> sizes = new HashMap<String, Integer>();
+
+        if (elements != null) {
+            for (Entry<String, Collection<T>> group : elements.entrySet()) {
+                sizes.put(group.getKey(), group.getValue().size());
+            }
+        }
+
+        return sizes;
+    }
+
+    /**
+     * Gets an iterator over the elements added to every group after the given
+     * sizes were taken.
+     */
+    private static <T> List<Entry<String, Iterator<T>>> added(Map<String, Collection<T>> elements,
+            Map<String, Integer> before) {
+
+        List<Entry<String, Iterator<T>>> added = new ArrayList<Entry<String, Iterator<T>>>();
+
+        if (elements == null) {
+            return added;
+        }
+
+        for (Entry<String, Collection<T>> group : elements.entrySet()) {
+
+            Integer skip = before.get(group.getKey());
+
+            Iterator<T> iterator = group.getValue().iterator();
+
+            for (int i = 0; skip != null && i < skip; i++) {
+                iterator.next();
+            }
+
+            added.add(new SimpleImmutableEntry<String, Iterator<T>>(group.getKey(), iterator));
+        }
+
+        return added;
+    }
+
+    /**
+     * Gets the group names out of a group key (see
+     * {@link SailResource#add(HypermediaLink, String...)}).
+     */
+    private static String[] groups(String key, String prefix) {
+
+        String names = key.substring(prefix.length());
+
+        if (names.isEmpty()) {
+            return new String[0];
+        }
+
+        return names.substring(SailTags.KEY.length()).split(SailTags.KEY);
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.sailarize.link;
+
+import com.github.sailarize.resource.SailResource;
+
+/**
+ * A builder of a block of links whose output only depends on its own
+ * configuration and on the request state held by the
+ * {@link com.github.sailarize.context.SailContext}, so it can be cached by a
+ * {@link LinkBlockCache}.
+ *
+ * @author agusmunioz
+ *
+ */
+public interface LinkBlockBuilder {
+
+    /**
+     * Builds the links and adds them to the resource.
+     *
+     * @param resource
+     *            the resource.
+     *
+     * @param values
+     *            any value used to replace in the resource url if a template
+     *            is used.
+     */
+    void build(SailResource resource, Object... values);
+
+    /**
+     * Describes everything in the builder configuration that changes the built
+     * links, filters included.
+     *
+     * @param key
+     *            the key to add the configuration to.
+     */
+    void describe(LinkBlockKey key);
+}
@@ -0,0 +1,155 @@
+package com.github.sailarize.link;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.sailarize.context.SailContext;
+import com.github.sailarize.properties.Titles;
+import com.github.sailarize.resource.SailResource;
+
+/**
+ * A bounded, least recently used cache of link blocks (like the links of a
+ * {@link com.github.sailarize.facet.FacetBuilder} or a
+ * {@link com.github.sailarize.sort.SortBuilder}) shared across requests. A
+ * block is keyed by the builder configuration (filters included), the
+ * resource it is built for, the request state that changes links (API path,
+ * server name, propagated headers and parameters and locale) and the
+ * {@link Titles#generation()}, so reloaded titles are never served from blocks
+ * built with the old ones.
+ * <p>
+ * Meant to be kept in a static field, one per application or per facet family.
+ *
+ * @author agusmunioz
+ *
+ */
+public class LinkBlockCache {
+
+    private final Map<String, LinkBlock> blocks;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates an initialized {@link LinkBlockCache}.
+     *
+     * @param capacity
+     *            the max amount of blocks kept.
+     */
+    public LinkBlockCache(final int capacity) {
+
+        this.blocks = new LinkedHashMap<String, LinkBlock>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LinkBlock> eldest) {
+
+                return this.size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Adds the links of a builder to a resource, building them only if they are
+     * not cached.
+     *
+     * @param builder
+     *            the links builder.
+     *
+     * @param resource
+     *            the resource.
+     *
+     * @param values
+     *            any value used to replace in the resource url if a template
+     *            is used.
+     */
+    public void build(LinkBlockBuilder builder, SailResource resource, Object... values) {
+
+        String key = this.key(builder, resource, values);
+
+        LinkBlock block;
+
+        synchronized (this.blocks) {
+            block = this.blocks.get(key);
+        }
+
+        if (block != null) {
+
+            this.hits.incrementAndGet();
+            block.splice(resource);
+            return;
+        }
+
+        this.misses.incrementAndGet();
+
+        block = LinkBlock.capture(builder, resource, values);
+
+        synchronized (this.blocks) {
+            this.blocks.put(key, block);
+        }
+    }
+
+    /**
+     * Removes all blocks.
+     */
+    public void clear() {
+
+        synchronized (this.blocks) {
+            this.blocks.clear();
+        }
+    }
+
+    /**
+     * The amount of blocks kept.
+     *
+     * @return the size.
+     */
+    public int size() {
+
+        synchronized (this.blocks) {
+            return this.blocks.size();
+        }
+    }
+
+    /**
+     * The amount of builds served from the cache.
+     *
+     * @return the hits.
+     */
+    public long getHits() {
+
+        return this.hits.get();
+    }
+
+    /**
+     * The amount of builds that were not cached.
+     *
+     * @return the misses.
+     */
+    public long getMisses() {
+
+        return this.misses.get();
+    }
+
+    private String key(LinkBlockBuilder builder, SailResource resource, Object[] values) {
+
+        SailContext context = SailContext.current();
+
+        LinkBlockKey key = new LinkBlockKey().add(builder.getClass().getName())
+                .add(resource.getClass().getName())
+                .add(resource.getId())
+                .add(values)
+                .add(context.getPath())
+                .add(context.getServerName())
+                .headers(context.getHeaders())
+                .add(context.getParameters())
+                .add(context.getLocale())
+                .add(Titles.generation());
+
+        builder.describe(key);
+
+        return key.toString();
+    }
+}
@@ -0,0 +1,173 @@
+package com.github.sailarize.link;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.github.sailarize.http.Header;
+import com.github.sailarize.url.Filter;
+
+/**
+ * Builds the key of a block of links in a {@link LinkBlockCache}. Every part is
+ * length prefixed, so different parts never produce the same key, and
+ * unordered parts (filters and data) are sorted, so the same filters in
+ * another order produce the same key.
+ *
+ * @author agusmunioz
+ *
+ */
+public final class LinkBlockKey {
+
+    private final StringBuilder key = new StringBuilder(256);
+
+    /**
+     * Adds a part to the key.
+     *
+     * @param part
+     *            the part, can be null.
+     *
+     * @return the key for further build.
+     */
+    public LinkBlockKey add(Object part) {
+
+        if (part == null) {
+            this.key.append('~');
+            return this;
+        }
+
+        String value = part.toString();
+
+        this.key.append(value.length()).append(':').append(value);
+
+        return this;
+    }
+
+    /**
+     * Adds a number to the key.
+     *
+     * @param part
+     *            the number.
+     *
+     * @return the key for further build.
+     */
+    public LinkBlockKey add(long part) {
+
+        this.key.append(part).append(';');
+        return this;
+    }
+
+    /**
+     * Adds a list of values, keeping their order.
+     *
+     * @param parts
+     *            the values, can be null.
+     *
+     * @return the key for further build.
+     */
+    public LinkBlockKey add(Object[] parts) {
+
+        if (parts == null) {
+            return this.add((Object) null);
+        }
+
+        this.add(parts.length);
+
+        for (Object part : parts) {
+            this.add(part);
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds a set of filters, in name and value order.
+     *
+     * @param filters
+     *            the filters, can be null.
+     *
+     * @return the key for further build.
+     */
+    public LinkBlockKey filters(Collection<Filter> filters) {
+
+        if (filters == null) {
+            return this.add((Object) null);
+        }
+
+        String[] parts = new String[filters.size()];
+
+        int i = 0;
+
+        for (Filter filter : filters) {
+            parts[i++] = part(filter.getName(), filter.getValue());
+        }
+
+        Arrays.sort(parts);
+
+        return this.add(parts);
+    }
+
+    /**
+     * Adds a list of headers, keeping their order.
+     *
+     * @param headers
+     *            the headers, can be null.
+     *
+     * @return the key for further build.
+     */
+    public LinkBlockKey headers(Collection<Header> headers) {
+
+        if (headers == null) {
+            return this.add((Object) null);
+        }
+
+        this.add(headers.size());
+
+        for (Header header : headers) {
+            this.add(header.getName()).add(header.getValue());
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds a map of data, in key order.
+     *
+     * @param data
+     *            the data, can be null.
+     *
+     * @return the key for further build.
+     */
+    public LinkBlockKey data(Map<String, ?> data) {
+
+        if (data == null) {
+            return this.add((Object) null);
+        }
+
+        String[] parts = new String[data.size()];
+
+        int i = 0;
+
+        for (Entry<String, ?> entry : data.entrySet()) {
+
+            Object value = entry.getValue();
+
+            parts[i++] = part(entry.getKey(), value instanceof Object[] ? Arrays.toString((Object[]) value) : value);
+        }
+
+        Arrays.sort(parts);
+
+        return this.add(parts);
+    }
+
+    private static String part(String name, Object value) {
+
+        return new LinkBlockKey().add(name).add(value).toString();
+    }
+
+    @Override
+    public String toString() {
+
+        return this.key.toString();
+    }
+}
@@ -3,10 +3,9 @@ package com.github.sailarize.link;
 import java.util.Collection;
 import java.util.LinkedList;
 
+import com.github.sailarize.context.SailContext;
 import com.github.sailarize.http.Header;
-import com.github.sailarize.http.HeaderHolder;
 import com.github.sailarize.http.Http;
-import com.github.sailarize.http.ParameterHolder;
 import com.github.sailarize.mediatype.MediaTypeBuilder;
 import com.github.sailarize.properties.Hosts;
 import com.github.sailarize.resource.SailResource;
@@ -27,6 +26,14 @@ public class LinkBuilder {
 
     private QueryString query;
 
+    private LinkFamily family;
+
+    /**
+     * Whether the href is still the family's one, so the family completes the
+     * link.
+     */
+    private boolean familyHref;
+
     /**
      * Creates and initializes a {@link LinkBuilder}.
      * 
@@ -42,6 +49,25 @@ public class LinkBuilder {
         this.link.setRel(rel);
     }
 
+    /**
+     * Creates and initializes a {@link LinkBuilder} for building a sibling
+     * link of a {@link LinkFamily}.
+     * 
+     * @param family
+     *            the family.
+     * 
+     * @param rel
+     *            the link's rel field value.
+     */
+    LinkBuilder(LinkFamily family, String rel) {
+
+        this(family.getHref(), rel);
+        this.link.setType(family.getType());
+        this.headers(family.getHeaders());
+        this.family = family;
+        this.familyHref = true;
+    }
+
     /**
      * Creates and initializes a {@link LinkBuilder} for building a link to a
      * list of resources. <br>
@@ -211,6 +237,30 @@ public class LinkBuilder {
         return this;
     }
 
+    /**
+     * Adds already encoded query parameters to the link (e.g. the shared
+     * filters of a {@link LinkFamily}).
+     * 
+     * @param query
+     *            the query, can be null.
+     * 
+     * @return the {@link LinkBuilder} for continuing building.
+     */
+    public LinkBuilder query(QueryString query) {
+
+        if (query == null || query.isEmpty()) {
+            return this;
+        }
+
+        if (this.query == null) {
+            this.query = new QueryString();
+        }
+
+        this.query.append(query);
+
+        return this;
+    }
+
     /**
      * Sets the link type field.
      * 
@@ -238,7 +288,7 @@ public class LinkBuilder {
 
         String property = Hosts.get(host);
 
-        this.link.setHref(UrlBuilder.host(link.getHref(), (property == null ? host : property)));
+        this.href(UrlBuilder.host(link.getHref(), (property == null ? host : property)));
 
         return this;
     }
@@ -264,7 +314,7 @@ public class LinkBuilder {
             }
         }
 
-        this.link.setHref(UrlBuilder.host(link.getHref(), host));
+        this.href(UrlBuilder.host(link.getHref(), host));
 
         return this;
     }
@@ -277,7 +327,7 @@ public class LinkBuilder {
      */
     public LinkBuilder https() {
 
-        this.link.setHref(UrlBuilder.protocol(link.getHref(), Http.HTTPS));
+        this.href(UrlBuilder.protocol(link.getHref(), Http.HTTPS));
 
         return this;
     }
@@ -347,7 +397,7 @@ public class LinkBuilder {
      */
     public LinkBuilder http() {
 
-        this.link.setHref(UrlBuilder.protocol(link.getHref(), Http.HTTP));
+        this.href(UrlBuilder.protocol(link.getHref(), Http.HTTP));
         return this;
     }
 
@@ -394,6 +444,15 @@ public class LinkBuilder {
         return this;
     }
 
+    /**
+     * Changes the link href, that is no longer the family's one if any.
+     */
+    private void href(String href) {
+
+        this.link.setHref(href);
+        this.familyHref = false;
+    }
+
     /**
      * Builds the configured link.
      * 
@@ -401,23 +460,34 @@ public class LinkBuilder {
      */
     public HypermediaLink build() {
 
-        if (!Domain.cross(link.getHref())) {
+        if (this.familyHref) {
+
+            this.family.complete(this.link, this.query);
+            return this.link;
+        }
+
+        SailContext context = SailContext.current();
+
+        QueryString query = this.query;
+
+        if (!Domain.cross(link.getHref(), context)) {
 
-            Collection<Header> headers = HeaderHolder.get();
+            if (context.getHeaders() != null) {
 
-            for (Header header : headers) {
-                link.add(header);
+                for (Header header : context.getHeaders()) {
+                    link.add(header);
+                }
             }
 
-            if (this.query == null) {
-                this.query = ParameterHolder.get();
-            } else {
-                this.query.append(ParameterHolder.get());
+            if (query == null) {
+                query = context.getParameters();
+            } else if (context.getParameters() != null) {
+                query.append(context.getParameters());
             }
         }
 
-        if (this.query != null) {
-            this.link.setHref(this.link.getHref() + this.query);
+        if (query != null) {
+            this.link.setHref(this.link.getHref() + query);
         }
 
         return this.link;
@@ -0,0 +1,232 @@
+package com.github.sailarize.link;
+
+import java.util.Collection;
+import java.util.LinkedList;
+
+import com.github.sailarize.context.SailContext;
+import com.github.sailarize.http.Header;
+import com.github.sailarize.mediatype.MediaTypeBuilder;
+import com.github.sailarize.resource.SailResource;
+import com.github.sailarize.url.Domain;
+import com.github.sailarize.url.Filter;
+import com.github.sailarize.url.QueryString;
+import com.github.sailarize.url.UrlBuilder;
+
+/**
+ * A family of sibling links to the same resource (like the page, sort or facet
+ * links of a list) that share the URL, the type, the headers and usually most
+ * filters. What is shared is built once, including the request state of the
+ * {@link SailContext}, and each sibling only adds what differs.
+ * <p>
+ * E.g:<br>
+ * LinkFamily family = LinkFamily.of(list).headers(headers).filters(filters);
+ * <br>
+ * family.link("next").filter("page", "2").query(family.getFilters()).build();
+ *
+ * @author agusmunioz
+ *
+ */
+public final class LinkFamily {
+
+    private final String href;
+
+    private final String type;
+
+    private final Collection<Header> contextHeaders;
+
+    private final String contextParameters;
+
+    private Collection<Header> headers;
+
+    private QueryString filters;
+
+    private LinkFamily(String href, String type) {
+
+        this.href = href;
+        this.type = type;
+
+        SailContext context = SailContext.current();
+
+        if (Domain.cross(href, context)) {
+
+            this.contextHeaders = null;
+            this.contextParameters = null;
+
+        } else {
+
+            this.contextHeaders = context.getHeaders();
+
+            QueryString parameters = context.getParameters();
+
+            this.contextParameters = parameters == null || parameters.isEmpty() ? null : parameters.toString();
+        }
+    }
+
+    /**
+     * Creates a family of links to a specific resource, or to a list of
+     * resources if the resource is a list.
+     *
+     * @param resource
+     *            the resource to link to.
+     *
+     * @param values
+     *            any Path value to replace if the resource's Path is a
+     *            template.
+     *
+     * @return the family.
+     */
+    public static LinkFamily of(SailResource resource, Object... values) {
+
+        return new LinkFamily(UrlBuilder.url(resource, values), MediaTypeBuilder.build(resource));
+    }
+
+    /**
+     * Configures headers shared by all the siblings.
+     *
+     * @param headers
+     *            the headers, can be null.
+     *
+     * @return the family for further build.
+     */
+    public LinkFamily headers(Collection<Header> headers) {
+
+        if (headers == null || headers.isEmpty()) {
+            return this;
+        }
+
+        if (this.headers == null) {
+            this.headers = new LinkedList<Header>();
+        }
+
+        this.headers.addAll(headers);
+
+        return this;
+    }
+
+    /**
+     * Configures the filters most siblings share, encoding them once. Siblings
+     * add them with {@link LinkBuilder#query(QueryString)} and
+     * {@link #getFilters()}, wherever the filters go in their query.
+     *
+     * @param filters
+     *            the filters, can be null.
+     *
+     * @return the family for further build.
+     */
+    public LinkFamily filters(Collection<Filter> filters) {
+
+        if (filters == null) {
+            return this;
+        }
+
+        if (this.filters == null) {
+            this.filters = new QueryString();
+        }
+
+        for (Filter filter : filters) {
+
+            if (filter.getName() != null && filter.getValue() != null) {
+                this.filters.add(filter.getName(), filter.getValue());
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * The encoded shared filters.
+     *
+     * @return the filters or null if no filter was configured.
+     */
+    public QueryString getFilters() {
+
+        return this.filters;
+    }
+
+    /**
+     * Creates a builder for a sibling link, with the shared URL, type and
+     * headers.
+     *
+     * @param rel
+     *            the link's rel field value.
+     *
+     * @return the sibling builder.
+     */
+    public LinkBuilder link(String rel) {
+
+        return new LinkBuilder(this, rel);
+    }
+
+    /**
+     * The shared URL.
+     *
+     * @return the URL.
+     */
+    String getHref() {
+
+        return this.href;
+    }
+
+    /**
+     * The shared type.
+     *
+     * @return the type.
+     */
+    String getType() {
+
+        return this.type;
+    }
+
+    /**
+     * The shared headers.
+     *
+     * @return the headers or null.
+     */
+    Collection<Header> getHeaders() {
+
+        return this.headers;
+    }
+
+    /**
+     * Completes a sibling link with the request state, as
+     * {@link LinkBuilder#build()} does.
+     *
+     * @param link
+     *            the sibling link, with the shared URL.
+     *
+     * @param query
+     *            the sibling own query, can be null.
+     */
+    void complete(HypermediaLink link, QueryString query) {
+
+        if (this.contextHeaders != null) {
+
+            for (Header header : this.contextHeaders) {
+                link.add(header);
+            }
+        }
+
+        boolean own = query != null && !query.isEmpty();
+
+        if (!own && this.contextParameters == null) {
+            return;
+        }
+
+        String ownQuery = own ? query.toString() : "";
+
+        StringBuilder href = new StringBuilder(this.href.length() + ownQuery.length()
+                + (this.contextParameters == null ? 0 : this.contextParameters.length())).append(this.href)
+                        .append(ownQuery);
+
+        if (this.contextParameters != null) {
+
+            if (own) {
+                href.append('&').append(this.contextParameters, 1, this.contextParameters.length());
+            } else {
+                href.append(this.contextParameters);
+            }
+        }
+
+        link.setHref(href.toString());
+    }
+}
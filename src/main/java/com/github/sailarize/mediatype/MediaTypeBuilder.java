@@ -2,8 +2,7 @@ package com.github.sailarize.mediatype;
 
 import com.github.sailarize.resource.SailResource;
 import com.github.sailarize.resource.SailResourceList;
-import com.github.sailarize.resource.Version;
-import com.github.sailarize.utils.Annotations;
+import com.github.sailarize.utils.ClassMetadata;
 
 /**
  * Helps to create a resource media type.
@@ -33,7 +32,7 @@ public class MediaTypeBuilder {
             SailResourceList<?> list = (SailResourceList<?>) resource;
 
             if (list.version() != null) {
-                return mediaType(list.version());
+                return build(list.version());
             }
 
             type = list.resourceType();
@@ -52,16 +51,18 @@ public class MediaTypeBuilder {
      */
     public static String build(Class<? extends SailResource> resourceType) {
 
-        Version annotation = Annotations.search(resourceType, Version.class);
-
-        if (annotation != null) {
-            return mediaType(annotation.value());
-        }
-
-        return SAIL_MEDIA;
+        return ClassMetadata.of(resourceType).getMediaType();
     }
 
-    private static String mediaType(String version) {
+    /**
+     * Builds the media type of a specific version.
+     * 
+     * @param version
+     *            the version or null for the unversioned media type.
+     * 
+     * @return the media type.
+     */
+    public static String build(String version) {
 
         StringBuilder builder = new StringBuilder(SAIL_MEDIA);
 
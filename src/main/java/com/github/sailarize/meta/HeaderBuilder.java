@@ -1,6 +1,6 @@
 package com.github.sailarize.meta;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -43,7 +43,7 @@ public class HeaderBuilder {
     public HeaderBuilder add(String name, Object value) {
 
         if (this.headers == null) {
-            this.headers = new HashMap<String, String>();
+            this.headers = new LinkedHashMap<String, String>();
         }
 
         this.headers.put(name, value.toString());
@@ -0,0 +1,72 @@
+package com.github.sailarize.page;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Encodes the opaque cursors of the {@link PageBuilder} cursor mode into a
+ * compact URL-safe value (base64url without padding) and decodes them back.
+ *
+ * @author agusmunioz
+ *
+ */
+public final class Cursor {
+
+    private Cursor() {
+
+    }
+
+    /**
+     * Encodes a cursor.
+     *
+     * @param cursor
+     *            the cursor, as the application models it.
+     *
+     * @return the URL-safe cursor.
+     */
+    public static String encode(String cursor) {
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor.
+     *
+     * @param encoded
+     *            the URL-safe cursor.
+     *
+     * @return the cursor, as the application modeled it.
+     *
+     * @throws IllegalArgumentException
+     *             if the value is not a valid encoded cursor.
+     */
+    public static String decode(String encoded) {
+
+        return new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the cursor of the requested page.
+     *
+     * @param request
+     *            the request, as navigated from a page link.
+     *
+     * @return the cursor or null if the request has no cursor (first page).
+     *
+     * @throws IllegalArgumentException
+     *             if the request cursor is not valid (e.g. it was changed by
+     *             the client).
+     */
+    public static String of(HttpServletRequest request) {
+
+        String encoded = request.getParameter(PageConstants.CURSOR_PARAM);
+
+        if (encoded == null || encoded.isEmpty()) {
+            return null;
+        }
+
+        return decode(encoded);
+    }
+}
@@ -5,17 +5,21 @@ import java.math.RoundingMode;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.Locale;
-import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import javax.servlet.http.HttpServletRequest;
 
+import com.github.sailarize.context.SailContexts;
 import com.github.sailarize.http.Header;
-import com.github.sailarize.http.ParameterHolder;
+import com.github.sailarize.link.HypermediaLink;
 import com.github.sailarize.link.LinkBuilder;
+import com.github.sailarize.link.LinkFamily;
 import com.github.sailarize.properties.Titles;
 import com.github.sailarize.resource.SailResource;
 import com.github.sailarize.servlet.RequestHolder;
 import com.github.sailarize.url.Filter;
+import com.github.sailarize.url.RequestFilters;
 
 /**
  * Builds a list of pagination links for a list of resources.
@@ -31,6 +35,10 @@ public class PageBuilder {
 
     private Integer total;
 
+    private CompletableFuture<Integer> pendingTotal;
+
+    private Boolean hasNext;
+
     private String next;
 
     private String previous;
@@ -47,6 +55,12 @@ public class PageBuilder {
 
     private Collection<Header> headers;
 
+    private boolean cursors = false;
+
+    private String nextCursor;
+
+    private String previousCursor;
+
     private PageBuilder(Integer page) {
 
         this.page = page;
@@ -75,6 +89,32 @@ public class PageBuilder {
         return new PageBuilder(page);
     }
 
+    /**
+     * Creates a {@link PageBuilder} in cursor mode: next and previous links
+     * carry an opaque cursor (e.g. the last sort key of the page) instead of a
+     * page number, so no total is needed and deep pages cost the same as the
+     * first one. Cursors are URL-safe encoded in the links and can be read
+     * back with {@link Cursor#of(HttpServletRequest)}.
+     * 
+     * @param next
+     *            the cursor of the next page or null if there is no next page.
+     * 
+     * @param previous
+     *            the cursor of the previous page or null if there is no
+     *            previous page.
+     * 
+     * @return the builder.
+     */
+    public static PageBuilder cursor(String next, String previous) {
+
+        PageBuilder builder = new PageBuilder(null);
+        builder.cursors = true;
+        builder.nextCursor = next;
+        builder.previousCursor = previous;
+
+        return builder;
+    }
+
     /**
      * Configures the size of each page.
      * 
@@ -104,6 +144,41 @@ public class PageBuilder {
         return this;
     }
 
+    /**
+     * Configures the total amount of existent resources while it is still
+     * being counted, so the count runs in parallel with the page fetch. Use
+     * {@link #buildAsync(SailResource, Object...)} for building the links
+     * that depend on the total when it is known;
+     * {@link #build(SailResource, Object...)} waits for it.
+     * 
+     * @param total
+     *            the future total amount of resources.
+     * 
+     * @return the builder for further build.
+     */
+    public PageBuilder total(CompletableFuture<Integer> total) {
+
+        this.pendingTotal = total;
+        return this;
+    }
+
+    /**
+     * Configures the lookahead mode: whether a next page exists is known
+     * without a total (e.g. by fetching one resource more than the page size),
+     * so no total is needed. Links to the last page and shortcuts are not
+     * built in this mode.
+     * 
+     * @param hasNext
+     *            true if there is a next page.
+     * 
+     * @return the builder for further build.
+     */
+    public PageBuilder hasNext(boolean hasNext) {
+
+        this.hasNext = hasNext;
+        return this;
+    }
+
     /**
      * Configures the title for the next page link.
      * 
@@ -189,7 +264,8 @@ public class PageBuilder {
      */
     public PageBuilder filter(String name, Object value) {
 
-        if (!PageConstants.PAGE_PARAM.equals(name) && !PageConstants.SIZE_PARAM.equals(name)) {
+        if (!PageConstants.PAGE_PARAM.equals(name) && !PageConstants.SIZE_PARAM.equals(name)
+                && !PageConstants.CURSOR_PARAM.equals(name)) {
             this.filters.add(new Filter(name, value.toString()));
         }
 
@@ -225,16 +301,9 @@ public class PageBuilder {
      */
     public PageBuilder filter(HttpServletRequest request) {
 
-        for (Entry<String, String[]> filter : request.getParameterMap().entrySet()) {
-
-            for (String value : filter.getValue()) {
-
-                if (!ParameterHolder.get().contains(filter.getKey())) {
-                    this.filter(filter.getKey(), value);
-                }
-            }
-
-        }
+        this.filters.addAll(RequestFilters.of(request)
+                .without(PageConstants.PAGE_PARAM, PageConstants.SIZE_PARAM, PageConstants.CURSOR_PARAM)
+                .withoutOffsets().filters());
 
         return this;
     }
@@ -291,64 +360,240 @@ public class PageBuilder {
 
         list.emptyLinks(PageConstants.GROUP);
 
-        if (this.page > 1) {
+        LinkFamily family = LinkFamily.of(list, values).headers(this.headers).filters(this.filters);
 
-            LinkBuilder builder = new LinkBuilder(list, PageConstants.PREVIOUS_REL, values).title(this.getPrevious())
-                    .filter(PageConstants.PAGE_PARAM, Integer.toString(this.page - 1))
-                    .filter(PageConstants.SIZE_PARAM, this.size.toString())
-                    .filters(this.filters)
-                    .headers(this.headers);
+        if (this.cursors) {
+            this.cursors(list, family);
+            return;
+        }
 
-            list.add(builder.build(), PageConstants.GROUP);
+        boolean lookahead = this.hasNext != null;
+
+        if (!lookahead && this.total == null && this.pendingTotal != null) {
+            this.total = this.pendingTotal.join();
         }
 
-        Integer lastPage = new BigDecimal(this.total).divide(new BigDecimal(this.size), RoundingMode.UP).intValue();
+        Integer lastPage = lookahead ? null : this.lastPage(this.total);
 
-        if (this.page.compareTo(lastPage) < 0) {
+        list.add(this.previous(family), PageConstants.GROUP);
+        list.add(this.next(family, lastPage), PageConstants.GROUP);
+        this.shortcuts(list, family);
+        list.add(this.first(family), PageConstants.GROUP);
+        list.add(this.last(family, lastPage), PageConstants.GROUP);
+    }
 
-            LinkBuilder builder = new LinkBuilder(list, PageConstants.NEXT_REL, values).title(this.getNext())
-                    .filter(PageConstants.PAGE_PARAM, Integer.toString(this.page + 1))
-                    .filter(PageConstants.SIZE_PARAM, this.size.toString())
-                    .filters(this.filters)
-                    .headers(this.headers);
+    /**
+     * Builds the pagination links when the total configured with
+     * {@link #total(CompletableFuture)} is still being counted. The links
+     * that do not depend on the total (previous, shortcuts and first) are
+     * added in the resource list right away. The ones that do (next and last)
+     * are built once the total is known, under the
+     * {@link com.github.sailarize.context.SailContext} of the calling thread,
+     * and they are not added in the list: the caller adds them, in its own
+     * thread, with {@link #add(SailResource, Collection)} (a resource is not
+     * thread safe).
+     * 
+     * @param list
+     *            the resource where to add all the links.
+     * 
+     * @param values
+     *            any value used to replace in the list url if a template is
+     *            used.
+     * 
+     * @return a future completed with the links that depend on the total,
+     *         already completed if no total is pending.
+     */
+    public CompletableFuture<Collection<HypermediaLink>> buildAsync(SailResource list, Object... values) {
 
-            list.add(builder.build(), PageConstants.GROUP);
+        if (this.cursors || this.pendingTotal == null || this.hasNext != null || this.total != null) {
+
+            this.build(list, values);
+            return CompletableFuture.completedFuture((Collection<HypermediaLink>) new LinkedList<HypermediaLink>());
         }
 
-        if (this.shortcuts != null) {
+        list.emptyLinks(PageConstants.GROUP);
+
+        final LinkFamily family = LinkFamily.of(list, values).headers(this.headers).filters(this.filters);
+
+        list.add(this.previous(family), PageConstants.GROUP);
+        this.shortcuts(list, family);
+        list.add(this.first(family), PageConstants.GROUP);
 
-            for (Integer page : this.shortcuts) {
+        return this.pendingTotal.thenApply(SailContexts.function(new Function<Integer, Collection<HypermediaLink>>() {
 
-                LinkBuilder builder = new LinkBuilder(list, this.shortcutRel(page), values)
-                        .title(this.shortcutTitle(page))
-                        .filter(PageConstants.PAGE_PARAM, page.toString())
-                        .filter(PageConstants.SIZE_PARAM, this.size.toString())
-                        .filters(this.filters)
-                        .headers(this.headers)
-                        .data("current", Boolean.toString(page.equals(this.page)));
+            @Override
+            public Collection<HypermediaLink> apply(Integer total) {
+
+                Integer lastPage = PageBuilder.this.lastPage(total);
+
+                Collection<HypermediaLink> links = new LinkedList<HypermediaLink>();
+
+                HypermediaLink next = PageBuilder.this.next(family, lastPage);
+
+                if (next != null) {
+                    links.add(next);
+                }
+
+                HypermediaLink last = PageBuilder.this.last(family, lastPage);
+
+                if (last != null) {
+                    links.add(last);
+                }
 
-                list.add(builder.build(), PageConstants.GROUP);
+                return links;
             }
+        }));
+    }
+
+    /**
+     * Adds the pagination links built by
+     * {@link #buildAsync(SailResource, Object...)} in the resource list.
+     * 
+     * @param list
+     *            the resource where to add the links.
+     * 
+     * @param links
+     *            the links.
+     */
+    public static void add(SailResource list, Collection<HypermediaLink> links) {
+
+        for (HypermediaLink link : links) {
+            list.add(link, PageConstants.GROUP);
+        }
+    }
+
+    /**
+     * Calculates the last page number.
+     * 
+     * @param total
+     *            the total amount of resources.
+     * 
+     * @return the last page number.
+     */
+    private Integer lastPage(Integer total) {
+
+        return new BigDecimal(total).divide(new BigDecimal(this.size), RoundingMode.UP).intValue();
+    }
+
+    /**
+     * Builds the previous page link.
+     * 
+     * @return the link or null if the page is the first one.
+     */
+    private HypermediaLink previous(LinkFamily family) {
+
+        if (this.page <= 1) {
+            return null;
+        }
+
+        return family.link(PageConstants.PREVIOUS_REL).title(this.getPrevious())
+                .filter(PageConstants.PAGE_PARAM, Integer.toString(this.page - 1))
+                .filter(PageConstants.SIZE_PARAM, this.size.toString())
+                .query(family.getFilters()).build();
+    }
+
+    /**
+     * Builds the next page link.
+     * 
+     * @param lastPage
+     *            the last page number, null in lookahead mode.
+     * 
+     * @return the link or null if there is no next page.
+     */
+    private HypermediaLink next(LinkFamily family, Integer lastPage) {
+
+        if (lastPage == null ? !this.hasNext : this.page.compareTo(lastPage) >= 0) {
+            return null;
+        }
+
+        return family.link(PageConstants.NEXT_REL).title(this.getNext())
+                .filter(PageConstants.PAGE_PARAM, Integer.toString(this.page + 1))
+                .filter(PageConstants.SIZE_PARAM, this.size.toString())
+                .query(family.getFilters()).build();
+    }
+
+    /**
+     * Builds and adds the page shortcuts links, not built in lookahead mode.
+     */
+    private void shortcuts(SailResource list, LinkFamily family) {
+
+        if (this.shortcuts == null || this.hasNext != null) {
+            return;
         }
 
-        if (this.first != null && this.first.compareTo(this.page) < 0) {
+        for (Integer page : this.shortcuts) {
 
-            LinkBuilder builder = new LinkBuilder(list, PageConstants.FIRST_REL, values).title("")
-                    .filter(PageConstants.PAGE_PARAM, Integer.toString(1))
+            LinkBuilder builder = family.link(this.shortcutRel(page))
+                    .title(this.shortcutTitle(page))
+                    .filter(PageConstants.PAGE_PARAM, page.toString())
                     .filter(PageConstants.SIZE_PARAM, this.size.toString())
-                    .filters(this.filters)
-                    .headers(this.headers);
+                    .query(family.getFilters())
+                    .data("current", Boolean.toString(page.equals(this.page)));
 
             list.add(builder.build(), PageConstants.GROUP);
         }
+    }
 
-        if (this.last != null && this.last.compareTo(this.page) > 0) {
+    /**
+     * Builds the first page link.
+     * 
+     * @return the link or null if it must not be included.
+     */
+    private HypermediaLink first(LinkFamily family) {
 
-            LinkBuilder builder = new LinkBuilder(list, PageConstants.LAST_REL, values).title("")
-                    .filter(PageConstants.PAGE_PARAM, Integer.toString(lastPage))
-                    .filter(PageConstants.SIZE_PARAM, this.size.toString())
-                    .filters(this.filters)
-                    .headers(this.headers);
+        if (this.first == null || this.first.compareTo(this.page) >= 0) {
+            return null;
+        }
+
+        return family.link(PageConstants.FIRST_REL).title("")
+                .filter(PageConstants.PAGE_PARAM, Integer.toString(1))
+                .filter(PageConstants.SIZE_PARAM, this.size.toString())
+                .query(family.getFilters()).build();
+    }
+
+    /**
+     * Builds the last page link.
+     * 
+     * @param lastPage
+     *            the last page number, null in lookahead mode.
+     * 
+     * @return the link or null if it must not be included.
+     */
+    private HypermediaLink last(LinkFamily family, Integer lastPage) {
+
+        if (this.last == null || lastPage == null || this.last.compareTo(this.page) <= 0) {
+            return null;
+        }
+
+        return family.link(PageConstants.LAST_REL).title("")
+                .filter(PageConstants.PAGE_PARAM, Integer.toString(lastPage))
+                .filter(PageConstants.SIZE_PARAM, this.size.toString())
+                .query(family.getFilters()).build();
+    }
+
+    /**
+     * Builds the next and previous links of the cursor mode.
+     */
+    private void cursors(SailResource list, LinkFamily family) {
+
+        String size = this.size == null ? null : this.size.toString();
+
+        if (this.previousCursor != null) {
+
+            LinkBuilder builder = family.link(PageConstants.PREVIOUS_REL).title(this.getPrevious())
+                    .filter(PageConstants.CURSOR_PARAM, Cursor.encode(this.previousCursor))
+                    .filter(PageConstants.SIZE_PARAM, size)
+                    .query(family.getFilters());
+
+            list.add(builder.build(), PageConstants.GROUP);
+        }
+
+        if (this.nextCursor != null) {
+
+            LinkBuilder builder = family.link(PageConstants.NEXT_REL).title(this.getNext())
+                    .filter(PageConstants.CURSOR_PARAM, Cursor.encode(this.nextCursor))
+                    .filter(PageConstants.SIZE_PARAM, size)
+                    .query(family.getFilters());
 
             list.add(builder.build(), PageConstants.GROUP);
         }
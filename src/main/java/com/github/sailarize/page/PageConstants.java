@@ -23,6 +23,12 @@ public interface PageConstants {
      */
     String SIZE_PARAM = "pageSize";
 
+    /**
+     * The page cursor parameter, used instead of the page number in cursor
+     * mode.
+     */
+    String CURSOR_PARAM = "cursor";
+
     /**
      * rel value for next page link.
      */
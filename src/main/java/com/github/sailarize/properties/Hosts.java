@@ -1,11 +1,8 @@
 package com.github.sailarize.properties;
 
-import java.text.MessageFormat;
-import java.util.MissingResourceException;
-import java.util.ResourceBundle;
-
 /**
- * Obtains hosts from sail/hosts.properties file.
+ * Obtains hosts from sail/hosts.properties file. The file is loaded once into
+ * an immutable snapshot that can be reloaded with {@link #reload()}.
  * 
  * @author agusmunioz
  *
@@ -14,6 +11,8 @@ public class Hosts {
 
     private static final String BASE_NAME = "sail/hosts";
 
+    private static volatile PropertyTable HOSTS = PropertyTable.load(BASE_NAME);
+
     /**
      * Gets a host name.
      * 
@@ -27,18 +26,27 @@ public class Hosts {
      */
     public static String get(String key, String... args) {
 
-        try {
+        return HOSTS.get(key, (Object[]) args);
+    }
 
-            String value = ResourceBundle.getBundle(BASE_NAME).getString(key);
+    /**
+     * Gets a host value as it is in the properties file.
+     * 
+     * @param key
+     *            the host key in the properties file.
+     * 
+     * @return the host or null if the key or the properties file is not found.
+     */
+    public static String resolve(String key) {
 
-            if (args == null || args.length == 0) {
-                return value;
-            }
+        return HOSTS.get(key);
+    }
 
-            return MessageFormat.format(value, (Object[]) args);
+    /**
+     * Reads the properties file again and replaces all hosts at once.
+     */
+    public static void reload() {
 
-        } catch (MissingResourceException e) {
-            return null;
-        }
+        HOSTS = PropertyTable.load(BASE_NAME);
     }
 }
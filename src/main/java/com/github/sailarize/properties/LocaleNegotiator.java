@@ -0,0 +1,161 @@
+package com.github.sailarize.properties;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Negotiates the locale of a request out of its Accept-Language header,
+ * against the locales that have a titles properties file (see {@link Titles}).
+ * Header values are resolved once and kept in a bounded, least recently used
+ * cache, since clients send a handful of distinct values.
+ * 
+ * @author agusmunioz
+ *
+ */
+public final class LocaleNegotiator {
+
+    /**
+     * Max amount of header values kept.
+     */
+    private static final int CACHE_LIMIT = 256;
+
+    /**
+     * Marks a header value no titles file matches.
+     */
+    private static final Locale NONE = new Locale("");
+
+    private static final Map<String, Locale> RESOLVED = new LinkedHashMap<String, Locale>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Locale> eldest) {
+
+            return this.size() > CACHE_LIMIT;
+        }
+    };
+
+    private static final Map<Locale, Boolean> AVAILABLE = new LinkedHashMap<Locale, Boolean>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Locale, Boolean> eldest) {
+
+            return this.size() > CACHE_LIMIT;
+        }
+    };
+
+    private LocaleNegotiator() {
+
+    }
+
+    /**
+     * Negotiates a locale. Language ranges are tried by their quality and
+     * each one from its most specific form (e.g. fr-CA, then fr).
+     * 
+     * @param acceptLanguage
+     *            the Accept-Language header value, can be null.
+     * 
+     * @return the locale of the best titles file, or null if the header is
+     *         missing, not valid or no titles file (but the default one)
+     *         matches it.
+     */
+    public static Locale negotiate(String acceptLanguage) {
+
+        if (acceptLanguage == null || acceptLanguage.isEmpty()) {
+            return null;
+        }
+
+        Locale locale;
+
+        synchronized (RESOLVED) {
+            locale = RESOLVED.get(acceptLanguage);
+        }
+
+        if (locale == null) {
+
+            locale = resolve(acceptLanguage);
+
+            synchronized (RESOLVED) {
+                RESOLVED.put(acceptLanguage, locale);
+            }
+        }
+
+        return locale == NONE ? null : locale;
+    }
+
+    /**
+     * Forgets every negotiated locale, for titles files added or removed at
+     * runtime.
+     */
+    public static void clear() {
+
+        synchronized (RESOLVED) {
+            RESOLVED.clear();
+        }
+
+        synchronized (AVAILABLE) {
+            AVAILABLE.clear();
+        }
+    }
+
+    private static Locale resolve(String acceptLanguage) {
+
+        List<Locale.LanguageRange> ranges;
+
+        try {
+            ranges = Locale.LanguageRange.parse(acceptLanguage);
+        } catch (IllegalArgumentException e) {
+            return NONE;
+        }
+
+        for (Locale.LanguageRange range : ranges) {
+
+            if (range.getWeight() == 0 || range.getRange().startsWith("*")) {
+                continue;
+            }
+
+            Locale requested = Locale.forLanguageTag(range.getRange());
+
+            if (!requested.getCountry().isEmpty()) {
+
+                Locale country = new Locale(requested.getLanguage(), requested.getCountry());
+
+                if (available(country)) {
+                    return country;
+                }
+            }
+
+            Locale language = new Locale(requested.getLanguage());
+
+            if (!requested.getLanguage().isEmpty() && available(language)) {
+                return language;
+            }
+        }
+
+        return NONE;
+    }
+
+    private static boolean available(Locale locale) {
+
+        Boolean available;
+
+        synchronized (AVAILABLE) {
+            available = AVAILABLE.get(locale);
+        }
+
+        if (available == null) {
+
+            available = Titles.exists(locale);
+
+            synchronized (AVAILABLE) {
+                AVAILABLE.put(locale, available);
+            }
+        }
+
+        return available;
+    }
+}
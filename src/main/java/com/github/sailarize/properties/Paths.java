@@ -1,11 +1,8 @@
 package com.github.sailarize.properties;
 
-import java.text.MessageFormat;
-import java.util.MissingResourceException;
-import java.util.ResourceBundle;
-
 /**
- * Obtains paths from sail/paths.properties file.
+ * Obtains paths from sail/paths.properties file. The file is loaded once into
+ * an immutable snapshot that can be reloaded with {@link #reload()}.
  * 
  * @author gonzalogtesta
  *
@@ -14,6 +11,8 @@ public class Paths {
 
     private static final String BASE_NAME = "sail/paths";
 
+    private static volatile PropertyTable PATHS = PropertyTable.load(BASE_NAME);
+
     /**
      * Gets a path.
      * 
@@ -27,18 +26,14 @@ public class Paths {
      */
     public static String get(String key, String... args) {
 
-        try {
-
-            String value = ResourceBundle.getBundle(BASE_NAME).getString(key);
-
-            if (args == null || args.length == 0) {
-                return value;
-            }
+        return PATHS.get(key, (Object[]) args);
+    }
 
-            return MessageFormat.format(value, (Object[]) args);
+    /**
+     * Reads the properties file again and replaces all paths at once.
+     */
+    public static void reload() {
 
-        } catch (MissingResourceException e) {
-            return null;
-        }
+        PATHS = PropertyTable.load(BASE_NAME);
     }
 }
@@ -0,0 +1,79 @@
+package com.github.sailarize.properties;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+
+/**
+ * An immutable snapshot of a properties file, with its values already
+ * compiled.
+ * 
+ * @author agusmunioz
+ *
+ */
+final class PropertyTable {
+
+    private final Map<String, PropertyTemplate> values;
+
+    private PropertyTable(Map<String, PropertyTemplate> values) {
+
+        this.values = values;
+    }
+
+    /**
+     * Loads a properties file, reading it again if it was read before.
+     * 
+     * @param baseName
+     *            the properties file base name (e.g. sail/hosts).
+     * 
+     * @return the snapshot, empty if the file is not found.
+     */
+    static PropertyTable load(String baseName) {
+
+        ResourceBundle.clearCache(PropertyTable.class.getClassLoader());
+
+        Map<String, PropertyTemplate> values = new HashMap<String, PropertyTemplate>();
+
+        try {
+
+            ResourceBundle bundle = ResourceBundle.getBundle(baseName);
+
+            for (String key : bundle.keySet()) {
+                values.put(key, PropertyTemplate.compile(bundle.getString(key)));
+            }
+
+        } catch (MissingResourceException e) {
+            return new PropertyTable(Collections.<String, PropertyTemplate> emptyMap());
+        }
+
+        return new PropertyTable(values);
+    }
+
+    /**
+     * Gets a value.
+     * 
+     * @param key
+     *            the key in the properties file.
+     * 
+     * @param args
+     *            for variable values in the value, can be null.
+     * 
+     * @return the value or null if the key is not found.
+     */
+    String get(String key, Object... args) {
+
+        PropertyTemplate template = this.values.get(key);
+
+        if (template == null) {
+            return null;
+        }
+
+        if (args == null || args.length == 0) {
+            return template.getValue();
+        }
+
+        return template.format(args);
+    }
+}
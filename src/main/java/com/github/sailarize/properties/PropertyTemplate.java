@@ -0,0 +1,166 @@
+package com.github.sailarize.properties;
+
+import java.text.MessageFormat;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A properties file value compiled once into literal segments and argument
+ * slots, so it is expanded like {@link MessageFormat#format(String, Object...)}
+ * without parsing it again. Values using format types or styles (e.g.
+ * {0,number}) are still formatted with {@link MessageFormat}.
+ * 
+ * @author agusmunioz
+ *
+ */
+final class PropertyTemplate {
+
+    private final String value;
+
+    private final String[] literals;
+
+    private final int[] arguments;
+
+    private PropertyTemplate(String value, String[] literals, int[] arguments) {
+
+        this.value = value;
+        this.literals = literals;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Compiles a value.
+     * 
+     * @param value
+     *            the value, as in the properties file.
+     * 
+     * @return the compiled value.
+     */
+    static PropertyTemplate compile(String value) {
+
+        List<String> literals = new LinkedList<String>();
+        List<Integer> arguments = new LinkedList<Integer>();
+
+        StringBuilder literal = new StringBuilder();
+
+        boolean quoted = false;
+
+        for (int i = 0; i < value.length(); i++) {
+
+            char c = value.charAt(i);
+
+            if (c == '\'') {
+
+                if (i + 1 < value.length() && value.charAt(i + 1) == '\'') {
+                    literal.append(c);
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+
+            } else if (quoted || c != '{') {
+
+                literal.append(c);
+
+            } else {
+
+                int close = value.indexOf('}', i);
+
+                int argument = close < 0 ? -1 : argument(value, i + 1, close);
+
+                if (argument < 0) {
+                    return new PropertyTemplate(value, null, null);
+                }
+
+                literals.add(literal.toString());
+                arguments.add(argument);
+
+                literal.setLength(0);
+                i = close;
+            }
+        }
+
+        literals.add(literal.toString());
+
+        int[] slots = new int[arguments.size()];
+
+        int index = 0;
+
+        for (Integer argument : arguments) {
+            slots[index++] = argument;
+        }
+
+        return new PropertyTemplate(value, literals.toArray(new String[literals.size()]), slots);
+    }
+
+    /**
+     * The value as it is in the properties file.
+     * 
+     * @return the value.
+     */
+    String getValue() {
+
+        return this.value;
+    }
+
+    /**
+     * Expands the value with arguments.
+     * 
+     * @param args
+     *            the arguments.
+     * 
+     * @return the expanded value.
+     */
+    String format(Object... args) {
+
+        if (this.literals == null) {
+            return MessageFormat.format(this.value, args);
+        }
+
+        if (this.arguments.length == 0) {
+            return this.literals[0];
+        }
+
+        StringBuilder builder = new StringBuilder(this.value.length() + 16 * this.arguments.length);
+
+        for (int i = 0; i < this.arguments.length; i++) {
+
+            builder.append(this.literals[i]);
+
+            int argument = this.arguments[i];
+
+            if (argument < args.length) {
+                builder.append(args[argument]);
+            } else {
+                builder.append('{').append(argument).append('}');
+            }
+        }
+
+        return builder.append(this.literals[this.arguments.length]).toString();
+    }
+
+    /**
+     * Parses a plain argument number, or -1 if it is not one.
+     */
+    private static int argument(String value, int from, int to) {
+
+        if (from == to || to - from > 9) {
+            return -1;
+        }
+
+        int argument = 0;
+
+        for (int i = from; i < to; i++) {
+
+            char c = value.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            argument = argument * 10 + (c - '0');
+        }
+
+        return argument;
+    }
+}
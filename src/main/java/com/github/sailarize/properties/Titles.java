@@ -1,21 +1,39 @@
 package com.github.sailarize.properties;
 
+import java.io.File;
 import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.sailarize.context.SailContext;
 
 /**
  * Obtains links and form titles from localized properties files. The properties
  * files must be named <b>titles{_language_COUNTRY}.properties</b> an be located
  * under the folder <b>classpath:sail/</b>
- * 
+ *
  * <ul>
  * <li>titles.properties (default for any language and country)</li>
  * <li>titles_en.properties (default for English language)</li>
  * <li>titles_en_US.properties (titles for US English)</li>
  * </ul>
- * 
+ *
+ * The titles of a locale are loaded once into an immutable table, with the
+ * fallback to less specific files already resolved and the encoding already
+ * applied. If an interval is configured, files are checked for changes at
+ * most once per interval and all tables are reloaded and swapped at once when
+ * any file changed.
+ *
  * @author agusmunioz
  *
  */
@@ -23,72 +41,340 @@ public class Titles {
 
     private static final String BASE_NAME = "sail/titles";
 
-    private static String ENCODING;
+    private static final String EXTENSION = "properties";
+
+    /**
+     * Falls back to the default file instead of the default locale ones.
+     */
+    private static final ResourceBundle.Control CONTROL = new ResourceBundle.Control() {
+        @Override
+        public Locale getFallbackLocale(String baseName, Locale locale) {
+            return Locale.ROOT;
+        }
+    };
+
+    private static volatile String ENCODING;
+
+    private static volatile ConcurrentMap<Locale, Table> TABLES = new ConcurrentHashMap<Locale, Table>();
+
+    private static volatile long INTERVAL = 0;
+
+    private static final AtomicLong NEXT_CHECK = new AtomicLong();
+
+    /**
+     * Changes every time the tables are dropped or reloaded.
+     */
+    private static final AtomicLong GENERATION = new AtomicLong();
 
     /**
      * Configures the expected encoding for titles.
-     * 
+     *
      * @param encoding
      */
     public static void encoding(String encoding) {
         ENCODING = encoding;
+        TABLES = new ConcurrentHashMap<Locale, Table>();
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Configures how often the properties files are checked for changes, for
+     * updating titles without a restart. Only files in a folder (not in a jar)
+     * are checked.
+     *
+     * @param millis
+     *            the interval in milliseconds, 0 (the default) for never.
+     */
+    public static void interval(long millis) {
+        INTERVAL = millis;
+        NEXT_CHECK.set(System.currentTimeMillis() + millis);
+    }
+
+    /**
+     * Reloads the titles of all the locales used so far and swaps them at
+     * once.
+     */
+    public static void reload() {
+
+        ResourceBundle.clearCache(Titles.class.getClassLoader());
+
+        ConcurrentMap<Locale, Table> tables = new ConcurrentHashMap<Locale, Table>();
+
+        for (Locale locale : TABLES.keySet()) {
+            tables.put(locale, load(locale));
+        }
+
+        TABLES = tables;
+
+        GENERATION.incrementAndGet();
+
+        LocaleNegotiator.clear();
+    }
+
+    /**
+     * Gets the generation of the titles, that changes every time they are
+     * reloaded (checking the files first if the interval elapsed), for
+     * keying anything built with them.
+     *
+     * @return the generation.
+     */
+    public static long generation() {
+
+        if (INTERVAL > 0) {
+            check();
+        }
+
+        return GENERATION.get();
     }
 
     /**
      * Gets an I18N title.
-     * 
+     *
      * @param key
      *            the title key in the properties file.
-     * 
+     *
      * @param locale
      *            for localization.
-     * 
+     *
      * @return the title or null if the key or the properties file is not found.
      */
     public static String get(String key, Locale locale) {
 
-        try {
+        return table(locale).titles.get(key);
+    }
 
-            ResourceBundle bundle = ResourceBundle.getBundle(BASE_NAME, locale, new ResourceBundle.Control() {
-                @Override
-                public Locale getFallbackLocale(String baseName, Locale locale) {
-                    return Locale.ROOT;
-                }
-            });
+    /**
+     * Gets the I18N title for the locale of the current request (see
+     * {@link LocaleNegotiator}), or from the default properties file
+     * (classpath:/sail/titles.properties) if the request has no locale.
+     *
+     * @param key
+     *            the title key in the properties file.
+     *
+     * @return the title or null if the key or the properties file is not found.
+     */
+    public static String get(String key) {
+
+        return get(key, SailContext.current().getLocale());
+    }
+
+    /**
+     * Gets a batch of I18N titles at once.
+     *
+     * @param locale
+     *            for localization, null for the locale of the current request.
+     *
+     * @param keys
+     *            the titles keys in the properties file.
+     *
+     * @return the titles in the keys order, null for the ones not found.
+     */
+    public static String[] get(Locale locale, String... keys) {
+
+        Map<String, String> titles = table(locale).titles;
+
+        String[] values = new String[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = titles.get(keys[i]);
+        }
+
+        return values;
+    }
 
-            String title = bundle.getString(key);
+    /**
+     * Gets the titles table of a locale, loading it the first time.
+     */
+    private static Table table(Locale locale) {
+
+        if (locale == null) {
+            locale = SailContext.current().getLocale();
+        }
+
+        if (locale == null) {
+            locale = Locale.ROOT;
+        }
+
+        if (INTERVAL > 0) {
+            check();
+        }
+
+        ConcurrentMap<Locale, Table> tables = TABLES;
+
+        Table table = tables.get(locale);
 
-            if (ENCODING == null || ENCODING.isEmpty()) {
+        if (table == null) {
 
-                return title;
+            table = load(locale);
+
+            Table loaded = tables.putIfAbsent(locale, table);
+
+            if (loaded != null) {
+                table = loaded;
             }
+        }
 
-            return new String(title.getBytes(), ENCODING);
+        return table;
+    }
 
-        } catch (MissingResourceException e) {
-            return null;
-        } catch (UnsupportedEncodingException e) {
-            return null;
+    /**
+     * Reloads all tables if the interval elapsed and any file changed. Only one
+     * thread checks per interval.
+     */
+    private static void check() {
+
+        long now = System.currentTimeMillis();
+
+        long next = NEXT_CHECK.get();
+
+        if (now < next || !NEXT_CHECK.compareAndSet(next, now + INTERVAL)) {
+            return;
+        }
+
+        for (Table table : TABLES.values()) {
+
+            if (table.stamp != stamp(table.locale)) {
+                reload();
+                return;
+            }
         }
     }
 
     /**
-     * Gets the I18N title from the default properties file
-     * (classpath:/sail/titles.properties).
-     * 
-     * @param key
-     *            the title key in the properties file.
-     * 
-     * @return the title or null if the key or the properties file is not found.
+     * Determines if there is any localized properties file (besides the
+     * default one), among the locales the platform knows.
+     *
+     * @return true if titles vary by locale.
      */
-    public static String get(String key) {
+    public static boolean isLocalized() {
+
+        for (Locale locale : Locale.getAvailableLocales()) {
+
+            if (!Locale.ROOT.equals(locale) && exists(locale)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines if there is a properties file for exactly a locale.
+     *
+     * @param locale
+     *            the locale.
+     *
+     * @return true if the file exists.
+     */
+    static boolean exists(Locale locale) {
+
+        String name = CONTROL.toResourceName(CONTROL.toBundleName(BASE_NAME, locale), EXTENSION);
+
+        return Titles.class.getClassLoader().getResource(name) != null;
+    }
+
+    /**
+     * Loads the titles of a locale.
+     */
+    private static Table load(Locale locale) {
+
+        Map<String, String> titles = new HashMap<String, String>();
+
+        String encoding = ENCODING;
+
+        long stamp = stamp(locale);
 
         try {
 
-            return ResourceBundle.getBundle(BASE_NAME, Locale.ROOT).getString(key);
+            ResourceBundle bundle = ResourceBundle.getBundle(BASE_NAME, locale, CONTROL);
+
+            for (String key : bundle.keySet()) {
+
+                String title = decode(bundle.getString(key), encoding);
+
+                if (title != null) {
+                    titles.put(key, title);
+                }
+            }
 
         } catch (MissingResourceException e) {
+            // No properties file, no titles.
+        }
+
+        return new Table(locale, titles, stamp);
+    }
+
+    private static String decode(String title, String encoding) {
+
+        if (encoding == null || encoding.isEmpty()) {
+            return title;
+        }
+
+        try {
+            return new String(title.getBytes(), encoding);
+        } catch (UnsupportedEncodingException e) {
             return null;
         }
     }
+
+    /**
+     * Combines the last modification of the files a locale table is loaded
+     * from.
+     */
+    private static long stamp(Locale locale) {
+
+        ClassLoader loader = Titles.class.getClassLoader();
+
+        List<Locale> candidates = new ArrayList<Locale>(CONTROL.getCandidateLocales(BASE_NAME, locale));
+
+        if (!candidates.contains(Locale.ROOT)) {
+            candidates.add(Locale.ROOT);
+        }
+
+        long stamp = 17;
+
+        for (Locale candidate : candidates) {
+
+            String name = CONTROL.toResourceName(CONTROL.toBundleName(BASE_NAME, candidate), EXTENSION);
+
+            URL url = loader.getResource(name);
+
+            long modified = 0;
+
+            if (url != null && "file".equals(url.getProtocol())) {
+
+                try {
+                    modified = new File(url.toURI()).lastModified();
+                } catch (URISyntaxException e) {
+                    modified = -1;
+                }
+
+            } else if (url != null) {
+                modified = -1;
+            }
+
+            stamp = 31 * stamp + modified;
+        }
+
+        return stamp;
+    }
+
+    /**
+     * The titles of a locale.
+     */
+    private static final class Table {
+
+        private final Locale locale;
+
+        private final Map<String, String> titles;
+
+        private final long stamp;
+
+        private Table(Locale locale, Map<String, String> titles, long stamp) {
+
+            this.locale = locale;
+            this.titles = titles;
+            this.stamp = stamp;
+        }
+    }
 }
@@ -2,15 +2,14 @@ package com.github.sailarize.resource;
 
 import java.util.Collection;
 import java.util.LinkedList;
-import java.util.Map.Entry;
 
 import javax.servlet.http.HttpServletRequest;
 
-import com.github.sailarize.http.ParameterHolder;
 import com.github.sailarize.link.HypermediaLink;
 import com.github.sailarize.link.LinkBuilder;
 import com.github.sailarize.mediatype.MediaTypeBuilder;
 import com.github.sailarize.servlet.RequestHolder;
+import com.github.sailarize.url.RequestFilters;
 
 /**
  * Models a list of {@link SailResource}s.
@@ -51,15 +50,7 @@ public class SailResourceList<T extends SailResource> extends SailResource {
         LinkBuilder builder = new LinkBuilder(this, "self", values);
 
         if (request != null) {
-
-            for (Entry<String, String[]> parameter : request.getParameterMap().entrySet()) {
-                for (String value : parameter.getValue()) {
-                    if (!ParameterHolder.get().contains(parameter.getKey())) {
-                        builder.filter(parameter.getKey(), value);
-                    }
-                }
-            }
-
+            builder.filters(RequestFilters.of(request).filters());
         }
 
         this.add(builder.build());
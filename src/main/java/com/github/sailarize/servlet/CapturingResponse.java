@@ -0,0 +1,403 @@
+package com.github.sailarize.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Writes the response as usual and keeps a copy of the body and of the
+ * headers set by the application, for caching them if the response turns out
+ * to be cacheable: a 200 without cookies, content encoding or a
+ * no-store/private cache control.
+ * 
+ * @author agusmunioz
+ *
+ */
+class CapturingResponse extends HttpServletResponseWrapper {
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    private static final String CACHE_CONTROL = "Cache-Control";
+
+    private static final String SET_COOKIE = "Set-Cookie";
+
+    private static final String CONTENT_TYPE = "Content-Type";
+
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private static final String HTTP_DATE = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * The headers set by the application, as name and value pairs.
+     */
+    private final List<String> headers = new ArrayList<String>();
+
+    private boolean cacheable = true;
+
+    private ServletOutputStream stream;
+
+    private PrintWriter writer;
+
+    public CapturingResponse(HttpServletResponse response) {
+
+        super(response);
+    }
+
+    /**
+     * Determines if the response can be cached.
+     * 
+     * @return true if cacheable.
+     */
+    public boolean isCacheable() {
+
+        return this.cacheable;
+    }
+
+    /**
+     * Stops keeping a copy of the body (e.g. for async responses, that are
+     * written after the filter ends).
+     */
+    public void abandon() {
+
+        this.cacheable = false;
+        this.clear();
+    }
+
+    /**
+     * Gets the copy of the body, with any written character encoded with the
+     * response character encoding.
+     * 
+     * @return the body.
+     * 
+     * @throws IOException
+     *             if the encoding is not supported.
+     */
+    public byte[] getBody() throws IOException {
+
+        if (this.writer != null) {
+            return this.text.toString().getBytes(this.getCharacterEncoding());
+        }
+
+        return this.body.toByteArray();
+    }
+
+    /**
+     * Gets the headers set by the application, except the ones the body
+     * determines (content type and length).
+     * 
+     * @return the headers, as name and value pairs.
+     */
+    public String[] getCapturedHeaders() {
+
+        return this.headers.toArray(new String[this.headers.size()]);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+
+        if (this.writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+
+        if (this.stream == null) {
+            this.stream = new CapturingStream(super.getOutputStream());
+        }
+
+        return this.stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+
+        if (this.writer == null) {
+
+            if (this.stream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+
+            this.writer = new PrintWriter(new CapturingWriter(super.getWriter()));
+        }
+
+        return this.writer;
+    }
+
+    @Override
+    public void reset() {
+
+        super.reset();
+        this.clear();
+        this.headers.clear();
+    }
+
+    @Override
+    public void resetBuffer() {
+
+        super.resetBuffer();
+        this.clear();
+    }
+
+    @Override
+    public void setStatus(int status) {
+
+        super.setStatus(status);
+        this.status(status);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int status, String message) {
+
+        super.setStatus(status, message);
+        this.status(status);
+    }
+
+    @Override
+    public void sendError(int status) throws IOException {
+
+        this.cacheable = false;
+        super.sendError(status);
+    }
+
+    @Override
+    public void sendError(int status, String message) throws IOException {
+
+        this.cacheable = false;
+        super.sendError(status, message);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+
+        this.cacheable = false;
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+
+        this.cacheable = false;
+        super.addCookie(cookie);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+
+        this.header(name, value);
+        this.capture(name, value, true);
+        super.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+
+        this.header(name, value);
+        this.capture(name, value, false);
+        super.addHeader(name, value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+
+        this.capture(name, Integer.toString(value), true);
+        super.setIntHeader(name, value);
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+
+        this.capture(name, Integer.toString(value), false);
+        super.addIntHeader(name, value);
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+
+        this.capture(name, date(date), true);
+        super.setDateHeader(name, date);
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+
+        this.capture(name, date(date), false);
+        super.addDateHeader(name, date);
+    }
+
+    /**
+     * Keeps a header, replacing the previous values if it is set.
+     */
+    private void capture(String name, String value, boolean replace) {
+
+        if (CONTENT_TYPE.equalsIgnoreCase(name) || CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            return;
+        }
+
+        if (replace) {
+
+            for (int i = this.headers.size() - 2; i >= 0; i -= 2) {
+
+                if (this.headers.get(i).equalsIgnoreCase(name)) {
+                    this.headers.remove(i + 1);
+                    this.headers.remove(i);
+                }
+            }
+        }
+
+        if (value != null) {
+            this.headers.add(name);
+            this.headers.add(value);
+        }
+    }
+
+    private static String date(long date) {
+
+        SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+
+        return format.format(new Date(date));
+    }
+
+    private void clear() {
+
+        this.body.reset();
+        this.text.setLength(0);
+    }
+
+    private void status(int status) {
+
+        if (status != SC_OK) {
+            this.cacheable = false;
+        }
+    }
+
+    private void header(String name, String value) {
+
+        if (CONTENT_ENCODING.equalsIgnoreCase(name) || SET_COOKIE.equalsIgnoreCase(name)) {
+            this.cacheable = false;
+        }
+
+        if (CACHE_CONTROL.equalsIgnoreCase(name) && value != null
+                && (value.contains("no-store") || value.contains("private"))) {
+            this.cacheable = false;
+        }
+    }
+
+    /**
+     * Writes to the response stream and to the body copy.
+     */
+    private class CapturingStream extends ServletOutputStream {
+
+        private final ServletOutputStream out;
+
+        public CapturingStream(ServletOutputStream out) {
+
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+
+            this.out.write(b);
+
+            if (cacheable) {
+                body.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+
+            this.out.write(b, off, len);
+
+            if (cacheable) {
+                body.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+
+            this.out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            this.out.close();
+        }
+
+        @Override
+        public boolean isReady() {
+
+            return this.out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+
+            this.out.setWriteListener(listener);
+        }
+    }
+
+    /**
+     * Writes to the response writer and to the body copy.
+     */
+    private class CapturingWriter extends Writer {
+
+        private final Writer out;
+
+        public CapturingWriter(Writer out) {
+
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+
+            this.out.write(chars, off, len);
+
+            if (cacheable) {
+                text.append(chars, off, len);
+            }
+        }
+
+        @Override
+        public void write(String string, int off, int len) throws IOException {
+
+            this.out.write(string, off, len);
+
+            if (cacheable) {
+                text.append(string, off, off + len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+
+            this.out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            this.out.close();
+        }
+    }
+}
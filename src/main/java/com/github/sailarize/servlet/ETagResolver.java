@@ -0,0 +1,31 @@
+package com.github.sailarize.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Resolves the ETag of a requested representation without building it, for
+ * resources that know their version (e.g. a version column or a last update
+ * timestamp). If the client already has the representation, the
+ * {@link SailarizeFilter} answers 304 Not Modified without building or
+ * serializing it.
+ * <p>
+ * The ETag must change with anything that changes the representation, like
+ * the request locale (see {@link com.github.sailarize.context.SailContext}),
+ * which is already attached when the resolver is called.
+ *
+ * @author agusmunioz
+ *
+ */
+public interface ETagResolver {
+
+    /**
+     * Resolves the ETag of the requested representation.
+     *
+     * @param request
+     *            the current http request.
+     *
+     * @return the ETag (quoted or not) or null if the version is not known and
+     *         the ETag must be computed from the body.
+     */
+    String resolve(HttpServletRequest request);
+}
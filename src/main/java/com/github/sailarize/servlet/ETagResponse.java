@@ -0,0 +1,452 @@
+package com.github.sailarize.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Holds the response body while it is written and hashes it on the fly, for
+ * sending a strong ETag with it or answering 304 Not Modified instead if the
+ * client already has it (If-None-Match). An ETag set by the application is
+ * used as is.
+ * <p>
+ * Only 200 responses get an ETag. Async responses, that are written after the
+ * filter ends, are passed through as they are.
+ *
+ * @author agusmunioz
+ *
+ */
+class ETagResponse extends HttpServletResponseWrapper {
+
+    static final String ETAG = "ETag";
+
+    static final String IF_NONE_MATCH = "If-None-Match";
+
+    private static final String ALGORITHM = "SHA-256";
+
+    private static final String WEAK = "W/";
+
+    private static final String QUOTE = "\"";
+
+    private final MessageDigest digest;
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+
+    private final StringBuilder text = new StringBuilder();
+
+    private boolean buffering = true;
+
+    private int status = SC_OK;
+
+    private long length = -1;
+
+    private String etag;
+
+    private String encoding;
+
+    private ServletOutputStream stream;
+
+    private PrintWriter writer;
+
+    public ETagResponse(HttpServletResponse response) {
+
+        super(response);
+
+        try {
+            this.digest = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Quotes an ETag, unless it is already quoted.
+     *
+     * @param etag
+     *            the ETag.
+     *
+     * @return the quoted ETag.
+     */
+    static String quote(String etag) {
+
+        if (etag.startsWith(QUOTE) || etag.startsWith(WEAK)) {
+            return etag;
+        }
+
+        return QUOTE + etag + QUOTE;
+    }
+
+    /**
+     * Determines if an ETag is in an If-None-Match header (weak comparison).
+     *
+     * @param header
+     *            the If-None-Match header value, can be null.
+     *
+     * @param etag
+     *            the quoted ETag.
+     *
+     * @return true if the client already has the representation.
+     */
+    static boolean matches(String header, String etag) {
+
+        if (header == null) {
+            return false;
+        }
+
+        String opaque = opaque(etag);
+
+        for (String candidate : header.split(",")) {
+
+            candidate = candidate.trim();
+
+            if ("*".equals(candidate) || opaque(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String opaque(String etag) {
+
+        return etag.startsWith(WEAK) ? etag.substring(WEAK.length()) : etag;
+    }
+
+    /**
+     * Ends the response: sends the ETag and the body or a 304 Not Modified.
+     *
+     * @param request
+     *            the current http request, for the If-None-Match header.
+     *
+     * @throws IOException
+     *             if the body could not be written.
+     */
+    public void finish(HttpServletRequest request) throws IOException {
+
+        if (!this.buffering) {
+            return;
+        }
+
+        this.buffering = false;
+
+        byte[] body = this.writer == null ? this.body.toByteArray() : this.text.toString().getBytes(this.encoding);
+
+        if (this.status == SC_OK) {
+
+            String etag = this.etag;
+
+            if (etag == null) {
+
+                if (this.writer != null) {
+                    this.digest.update(body);
+                }
+
+                etag = QUOTE + Base64.getUrlEncoder().withoutPadding().encodeToString(this.digest.digest()) + QUOTE;
+
+                super.setHeader(ETAG, etag);
+            }
+
+            if (matches(request.getHeader(IF_NONE_MATCH), etag)) {
+                super.setStatus(SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        super.setContentLength(body.length);
+        super.getOutputStream().write(body);
+    }
+
+    /**
+     * Stops holding the body and writes what was held so far, without an ETag
+     * (e.g. for async responses).
+     *
+     * @throws IOException
+     *             if the body could not be written.
+     */
+    public void passThrough() throws IOException {
+
+        if (!this.buffering) {
+            return;
+        }
+
+        this.buffering = false;
+
+        if (this.length >= 0) {
+            super.setContentLengthLong(this.length);
+        }
+
+        if (this.writer != null) {
+            super.getWriter().append(this.text);
+        } else if (this.body.size() > 0) {
+            this.body.writeTo(super.getOutputStream());
+        }
+
+        this.clear();
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+
+        if (this.writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+
+        if (this.stream == null) {
+            this.stream = new ETagStream();
+        }
+
+        return this.stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+
+        if (this.writer == null) {
+
+            if (this.stream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+
+            this.encoding = this.getCharacterEncoding();
+            this.writer = new PrintWriter(new ETagWriter());
+        }
+
+        return this.writer;
+    }
+
+    @Override
+    public void setContentLength(int length) {
+
+        this.setContentLengthLong(length);
+    }
+
+    @Override
+    public void setContentLengthLong(long length) {
+
+        if (this.buffering) {
+            this.length = length;
+        } else {
+            super.setContentLengthLong(length);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+
+        if (!this.buffering) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void reset() {
+
+        super.reset();
+        this.status = SC_OK;
+        this.etag = null;
+        this.clear();
+    }
+
+    @Override
+    public void resetBuffer() {
+
+        super.resetBuffer();
+        this.clear();
+    }
+
+    @Override
+    public void setStatus(int status) {
+
+        super.setStatus(status);
+        this.status = status;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int status, String message) {
+
+        super.setStatus(status, message);
+        this.status = status;
+    }
+
+    @Override
+    public void sendError(int status) throws IOException {
+
+        this.discard();
+        super.sendError(status);
+    }
+
+    @Override
+    public void sendError(int status, String message) throws IOException {
+
+        this.discard();
+        super.sendError(status, message);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+
+        this.discard();
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+
+        this.header(name, value);
+        super.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+
+        this.header(name, value);
+        super.addHeader(name, value);
+    }
+
+    private void header(String name, String value) {
+
+        if (ETAG.equalsIgnoreCase(name)) {
+            this.etag = value;
+        }
+    }
+
+    /**
+     * Drops the held body, the response is committed with another content.
+     */
+    private void discard() {
+
+        this.buffering = false;
+        this.clear();
+    }
+
+    private void clear() {
+
+        this.body.reset();
+        this.text.setLength(0);
+        this.digest.reset();
+    }
+
+    /**
+     * Holds and hashes the written bytes, or writes them to the response
+     * stream once the body is no longer held.
+     */
+    private class ETagStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+
+            if (buffering) {
+                body.write(b);
+                digest.update((byte) b);
+            } else {
+                ETagResponse.super.getOutputStream().write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+
+            if (buffering) {
+                body.write(b, off, len);
+                digest.update(b, off, len);
+            } else {
+                ETagResponse.super.getOutputStream().write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+
+            if (!buffering) {
+                ETagResponse.super.getOutputStream().flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            if (!buffering) {
+                ETagResponse.super.getOutputStream().close();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+
+            if (buffering) {
+                return true;
+            }
+
+            try {
+                return ETagResponse.super.getOutputStream().isReady();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+
+            try {
+                ETagResponse.super.getOutputStream().setWriteListener(listener);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Holds the written characters, hashed once encoded when the response
+     * ends, or writes them to the response writer once the body is no longer
+     * held.
+     */
+    private class ETagWriter extends Writer {
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+
+            if (buffering) {
+                text.append(chars, off, len);
+            } else {
+                ETagResponse.super.getWriter().write(chars, off, len);
+            }
+        }
+
+        @Override
+        public void write(String string, int off, int len) throws IOException {
+
+            if (buffering) {
+                text.append(string, off, off + len);
+            } else {
+                ETagResponse.super.getWriter().write(string, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+
+            if (!buffering) {
+                ETagResponse.super.getWriter().flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            if (!buffering) {
+                ETagResponse.super.getWriter().close();
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.sailarize.servlet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used, in memory {@link RepresentationStore}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class MemoryRepresentationStore implements RepresentationStore {
+
+    /**
+     * The default max amount of representations.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final Map<String, Representation> representations;
+
+    /**
+     * Creates a store with the default capacity.
+     */
+    public MemoryRepresentationStore() {
+
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an initialized {@link MemoryRepresentationStore}.
+     * 
+     * @param capacity
+     *            the max amount of representations kept.
+     */
+    public MemoryRepresentationStore(final int capacity) {
+
+        this.representations = new LinkedHashMap<String, Representation>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Representation> eldest) {
+
+                return this.size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public Representation get(String key) {
+
+        synchronized (this.representations) {
+            return this.representations.get(key);
+        }
+    }
+
+    @Override
+    public void put(String key, Representation representation) {
+
+        synchronized (this.representations) {
+            this.representations.put(key, representation);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+
+        synchronized (this.representations) {
+            this.representations.remove(key);
+        }
+    }
+
+    /**
+     * The amount of representations kept.
+     * 
+     * @return the size.
+     */
+    public int size() {
+
+        synchronized (this.representations) {
+            return this.representations.size();
+        }
+    }
+}
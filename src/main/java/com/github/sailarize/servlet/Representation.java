@@ -0,0 +1,172 @@
+package com.github.sailarize.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A serialized response body cached by {@link SailarizeFilter}, with its
+ * content type and headers and optionally pre-compressed. A representation never changes.
+ * 
+ * @author agusmunioz
+ *
+ */
+public final class Representation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] body;
+
+    private final byte[] gzip;
+
+    private final String contentType;
+
+    private final String[] headers;
+
+    private final long created;
+
+    private final long fresh;
+
+    private final long stale;
+
+    /**
+     * Creates an initialized {@link Representation}.
+     * 
+     * @param body
+     *            the response body.
+     * 
+     * @param gzip
+     *            the gzip compressed body or null if it is not compressed.
+     * 
+     * @param contentType
+     *            the response content type.
+     * 
+     * @param headers
+     *            the other response headers, as name and value pairs.
+     * 
+     * @param created
+     *            when it was created, in milliseconds.
+     * 
+     * @param fresh
+     *            until when it can be served without refreshing it, in
+     *            milliseconds.
+     * 
+     * @param stale
+     *            until when it can be served while it is being refreshed, in
+     *            milliseconds.
+     */
+    public Representation(byte[] body, byte[] gzip, String contentType, String[] headers, long created, long fresh,
+            long stale) {
+
+        this.body = body;
+        this.gzip = gzip;
+        this.contentType = contentType;
+        this.headers = headers;
+        this.created = created;
+        this.fresh = fresh;
+        this.stale = stale;
+    }
+
+    /**
+     * Compresses a body with gzip.
+     * 
+     * @param body
+     *            the body.
+     * 
+     * @return the compressed body.
+     */
+    public static byte[] gzip(byte[] body) {
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 32);
+
+        try {
+
+            GZIPOutputStream out = new GZIPOutputStream(compressed);
+            out.write(body);
+            out.close();
+
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Determines if it can be served without refreshing it.
+     * 
+     * @param now
+     *            the current time in milliseconds.
+     * 
+     * @return true if fresh.
+     */
+    public boolean isFresh(long now) {
+
+        return now < this.fresh;
+    }
+
+    /**
+     * Determines if it can be served while it is being refreshed.
+     * 
+     * @param now
+     *            the current time in milliseconds.
+     * 
+     * @return true if fresh or stale but still usable.
+     */
+    public boolean isUsable(long now) {
+
+        return now < this.stale;
+    }
+
+    /**
+     * The response body. The array must not be changed.
+     * 
+     * @return the body.
+     */
+    public byte[] getBody() {
+
+        return this.body;
+    }
+
+    /**
+     * The gzip compressed response body. The array must not be changed.
+     * 
+     * @return the compressed body or null if it is not compressed.
+     */
+    public byte[] getGzip() {
+
+        return this.gzip;
+    }
+
+    /**
+     * The response content type.
+     * 
+     * @return the content type, can be null.
+     */
+    public String getContentType() {
+
+        return this.contentType;
+    }
+
+    /**
+     * The other response headers, like Link or Cache-Control. The array must
+     * not be changed.
+     * 
+     * @return the headers, as name and value pairs.
+     */
+    public String[] getHeaders() {
+
+        return this.headers;
+    }
+
+    /**
+     * When it was created.
+     * 
+     * @return the time in milliseconds.
+     */
+    public long getCreated() {
+
+        return this.created;
+    }
+}
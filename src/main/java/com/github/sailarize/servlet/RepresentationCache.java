@@ -0,0 +1,478 @@
+package com.github.sailarize.servlet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.github.sailarize.context.SailContext;
+import com.github.sailarize.http.Header;
+
+/**
+ * Caches the serialized representations of GET requests under some paths.
+ * Representations are keyed by the request URL (with its parameters sorted),
+ * the API path, the propagated headers, the locale, the Accept header and the
+ * configured key headers. Requests with credentials (Authorization or Cookie
+ * headers) are not cached, unless those headers are key headers.
+ * <p>
+ * A representation is fresh for a time to live and can then be served stale
+ * for another while: the first request that finds it stale refreshes it and
+ * the concurrent ones get the stale copy. Requests that find no representation
+ * wait for the one being built by a concurrent request for the same key
+ * (single flight), so a popular key is built once.
+ * 
+ * @author agusmunioz
+ *
+ */
+class RepresentationCache {
+
+    private static final String GET = "GET";
+
+    private static final String GZIP = "gzip";
+
+    private static final String X_GZIP = "x-gzip";
+
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final String VARY = "Vary";
+
+    /**
+     * Headers that make a representation particular to a user.
+     */
+    private static final String[] CREDENTIALS = { "Authorization", "Cookie" };
+
+    /**
+     * Max time to wait for a representation being built by another request.
+     */
+    private static final long WAIT = 5000;
+
+    private final String[] paths;
+
+    private final String[] keyHeaders;
+
+    private final long ttl;
+
+    private final long stale;
+
+    private final boolean gzip;
+
+    private final RepresentationStore store;
+
+    private final ConcurrentMap<String, CountDownLatch> building = new ConcurrentHashMap<String, CountDownLatch>();
+
+    /**
+     * Creates an initialized {@link RepresentationCache}.
+     * 
+     * @param paths
+     *            the path prefixes (after the context path) to cache.
+     * 
+     * @param ttl
+     *            how long a representation is fresh, in milliseconds.
+     * 
+     * @param stale
+     *            how long a representation can be served stale while it is
+     *            refreshed, in milliseconds.
+     * 
+     * @param gzip
+     *            if representations are stored compressed too.
+     * 
+     * @param store
+     *            where representations are stored.
+     */
+    RepresentationCache(Collection<String> paths, long ttl, long stale, boolean gzip, RepresentationStore store) {
+
+        this(paths, Collections.<String> emptyList(), ttl, stale, gzip, store);
+    }
+
+    /**
+     * Creates an initialized {@link RepresentationCache}.
+     * 
+     * @param paths
+     *            the path prefixes (after the context path) to cache.
+     * 
+     * @param keyHeaders
+     *            the request headers representations vary by, besides the
+     *            propagated ones.
+     * 
+     * @param ttl
+     *            how long a representation is fresh, in milliseconds.
+     * 
+     * @param stale
+     *            how long a representation can be served stale while it is
+     *            refreshed, in milliseconds.
+     * 
+     * @param gzip
+     *            if representations are stored compressed too.
+     * 
+     * @param store
+     *            where representations are stored.
+     */
+    RepresentationCache(Collection<String> paths, Collection<String> keyHeaders, long ttl, long stale, boolean gzip,
+            RepresentationStore store) {
+
+        this.paths = trim(paths);
+        this.keyHeaders = trim(keyHeaders);
+        this.ttl = ttl;
+        this.stale = stale;
+        this.gzip = gzip;
+        this.store = store;
+    }
+
+    /**
+     * Determines if a request is cached.
+     * 
+     * @param request
+     *            the request.
+     * 
+     * @return true if it is a GET under one of the cached paths, without
+     *         credentials.
+     */
+    boolean accepts(HttpServletRequest request) {
+
+        if (!GET.equals(request.getMethod())) {
+            return false;
+        }
+
+        for (String credential : CREDENTIALS) {
+
+            if (request.getHeader(credential) != null && !this.isKeyHeader(credential)) {
+                return false;
+            }
+        }
+
+        String path = this.path(request);
+
+        for (String prefix : this.paths) {
+
+            if (under(path, prefix)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines if a path is a prefix or under it, matching whole segments
+     * (/cars matches /cars and /cars/1 but not /carsAdmin).
+     */
+    private static boolean under(String path, String prefix) {
+
+        if (!path.startsWith(prefix)) {
+            return false;
+        }
+
+        return path.length() == prefix.length() || prefix.endsWith("/") || path.charAt(prefix.length()) == '/';
+    }
+
+    private boolean isKeyHeader(String name) {
+
+        for (String header : this.keyHeaders) {
+
+            if (header.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Trims the configured values, dropping the empty ones.
+     */
+    private static String[] trim(Collection<String> values) {
+
+        List<String> trimmed = new ArrayList<String>(values.size());
+
+        for (String value : values) {
+
+            if (!value.trim().isEmpty()) {
+                trimmed.add(value.trim());
+            }
+        }
+
+        return trimmed.toArray(new String[trimmed.size()]);
+    }
+
+    /**
+     * Serves a request from the cache, processing it (and caching the
+     * response) only if needed.
+     * 
+     * @param request
+     *            the request.
+     * 
+     * @param response
+     *            the response.
+     * 
+     * @param chain
+     *            the chain that processes the request.
+     * 
+     * @param context
+     *            the request context.
+     * 
+     * @throws IOException
+     *             if processing or writing fails.
+     * 
+     * @throws ServletException
+     *             if processing fails.
+     */
+    void filter(HttpServletRequest request, HttpServletResponse response, FilterChain chain, SailContext context)
+            throws IOException, ServletException {
+
+        if (this.gzip) {
+            response.addHeader(VARY, ACCEPT_ENCODING);
+        }
+
+        String key = this.key(request, context);
+
+        Representation representation = this.store.get(key);
+
+        long now = System.currentTimeMillis();
+
+        if (representation != null && representation.isFresh(now)) {
+            this.write(representation, request, response, now);
+            return;
+        }
+
+        CountDownLatch latch = new CountDownLatch(1);
+
+        CountDownLatch current = this.building.putIfAbsent(key, latch);
+
+        if (current != null) {
+
+            if (representation != null && representation.isUsable(now)) {
+                this.write(representation, request, response, now);
+                return;
+            }
+
+            try {
+                current.await(WAIT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            representation = this.store.get(key);
+
+            now = System.currentTimeMillis();
+
+            if (representation != null && representation.isUsable(now)) {
+                this.write(representation, request, response, now);
+                return;
+            }
+
+            chain.doFilter(request, response);
+            return;
+        }
+
+        try {
+
+            this.build(key, request, response, chain);
+
+        } finally {
+
+            this.building.remove(key, latch);
+            latch.countDown();
+        }
+    }
+
+    /**
+     * Processes the request and stores the response if it is cacheable.
+     */
+    private void build(String key, HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        CapturingResponse capturing = new CapturingResponse(response);
+
+        chain.doFilter(request, capturing);
+
+        if (request.isAsyncStarted()) {
+            capturing.abandon();
+            return;
+        }
+
+        if (!capturing.isCacheable()) {
+            return;
+        }
+
+        byte[] body = capturing.getBody();
+
+        long now = System.currentTimeMillis();
+
+        this.store.put(key, new Representation(body, this.gzip ? Representation.gzip(body) : null,
+                capturing.getContentType(), capturing.getCapturedHeaders(), now, now + this.ttl,
+                now + this.ttl + this.stale));
+    }
+
+    /**
+     * Writes a cached representation as the response.
+     */
+    private void write(Representation representation, HttpServletRequest request, HttpServletResponse response,
+            long now) throws IOException {
+
+        byte[] body = representation.getBody();
+
+        String[] headers = representation.getHeaders();
+
+        for (int i = 0; headers != null && i < headers.length; i += 2) {
+
+            // Vary is added to, for keeping the one already sent.
+            if (first(headers, i) && !VARY.equalsIgnoreCase(headers[i])) {
+                response.setHeader(headers[i], headers[i + 1]);
+            } else {
+                response.addHeader(headers[i], headers[i + 1]);
+            }
+        }
+
+        if (representation.getGzip() != null && acceptsGzip(request.getHeader(ACCEPT_ENCODING))) {
+            response.setHeader("Content-Encoding", GZIP);
+            body = representation.getGzip();
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+
+        if (representation.getContentType() != null) {
+            response.setContentType(representation.getContentType());
+        }
+
+        response.setHeader("Age", Long.toString(Math.max(0, (now - representation.getCreated()) / 1000)));
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Determines if an Accept-Encoding header accepts gzip: it has gzip (or
+     * x-gzip), or a wildcard if gzip is not listed, with a quality above 0.
+     * 
+     * @param header
+     *            the Accept-Encoding header value, can be null.
+     * 
+     * @return true if gzip is accepted.
+     */
+    static boolean acceptsGzip(String header) {
+
+        if (header == null) {
+            return false;
+        }
+
+        Boolean wildcard = null;
+
+        for (String coding : header.split(",")) {
+
+            String[] parts = coding.split(";");
+
+            String name = parts[0].trim();
+
+            boolean accepted = quality(parts) > 0;
+
+            if (GZIP.equalsIgnoreCase(name) || X_GZIP.equalsIgnoreCase(name)) {
+                return accepted;
+            }
+
+            if ("*".equals(name)) {
+                wildcard = accepted;
+            }
+        }
+
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    /**
+     * Gets the quality of an Accept-Encoding coding, 1 if it has none or an
+     * invalid one.
+     */
+    private static double quality(String[] parts) {
+
+        for (int i = 1; i < parts.length; i++) {
+
+            String parameter = parts[i].trim();
+
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 1;
+                }
+            }
+        }
+
+        return 1;
+    }
+
+    /**
+     * Determines if a header is the first one with its name, for replacing
+     * instead of adding to the values the response already has.
+     */
+    private static boolean first(String[] headers, int index) {
+
+        for (int i = 0; i < index; i += 2) {
+
+            if (headers[i].equalsIgnoreCase(headers[index])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The request path after the context path.
+     */
+    private String path(HttpServletRequest request) {
+
+        String uri = request.getRequestURI();
+
+        String contextPath = request.getContextPath();
+
+        if (contextPath != null && uri.startsWith(contextPath)) {
+            return uri.substring(contextPath.length());
+        }
+
+        return uri;
+    }
+
+    /**
+     * Builds the key of a request representation.
+     */
+    private String key(HttpServletRequest request, SailContext context) {
+
+        RepresentationKey key = new RepresentationKey().add(context.getPath())
+                .add(request.getRequestURI())
+                .add(request.getHeader("Accept"))
+                .add(context.getLocale());
+
+        Collection<Header> headers = context.getHeaders();
+
+        key.headers(headers);
+
+        for (String header : this.keyHeaders) {
+            key.add(request.getHeader(header));
+        }
+
+        Map<String, String[]> parameters = request.getParameterMap();
+
+        String[] names = parameters.keySet().toArray(new String[parameters.size()]);
+
+        Arrays.sort(names);
+
+        key.add(names.length);
+
+        for (String name : names) {
+            key.add(name).add(parameters.get(name));
+        }
+
+        return key.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.sailarize.servlet;
+
+import java.util.Collection;
+
+import com.github.sailarize.http.Header;
+
+/**
+ * Builds the key of a representation in a {@link RepresentationCache}. Every
+ * part is length prefixed, so different parts never produce the same key.
+ *
+ * @author agusmunioz
+ *
+ */
+final class RepresentationKey {
+
+    private final StringBuilder key = new StringBuilder(256);
+
+    /**
+     * Adds a part to the key.
+     *
+     * @param part
+     *            the part, can be null.
+     *
+     * @return the key for further build.
+     */
+    RepresentationKey add(Object part) {
+
+        if (part == null) {
+            this.key.append('~');
+            return this;
+        }
+
+        String value = part.toString();
+
+        this.key.append(value.length()).append(':').append(value);
+
+        return this;
+    }
+
+    /**
+     * Adds a number to the key.
+     *
+     * @param part
+     *            the number.
+     *
+     * @return the key for further build.
+     */
+    RepresentationKey add(long part) {
+
+        this.key.append(part).append(';');
+        return this;
+    }
+
+    /**
+     * Adds a list of values, keeping their order.
+     *
+     * @param parts
+     *            the values, can be null.
+     *
+     * @return the key for further build.
+     */
+    RepresentationKey add(Object[] parts) {
+
+        if (parts == null) {
+            return this.add((Object) null);
+        }
+
+        this.add(parts.length);
+
+        for (Object part : parts) {
+            this.add(part);
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds a list of headers, keeping their order.
+     *
+     * @param headers
+     *            the headers, can be null.
+     *
+     * @return the key for further build.
+     */
+    RepresentationKey headers(Collection<Header> headers) {
+
+        if (headers == null) {
+            return this.add((Object) null);
+        }
+
+        this.add(headers.size());
+
+        for (Header header : headers) {
+            this.add(header.getName()).add(header.getValue());
+        }
+
+        return this;
+    }
+
+    @Override
+    public String toString() {
+
+        return this.key.toString();
+    }
+}
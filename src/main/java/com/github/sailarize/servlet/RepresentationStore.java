@@ -0,0 +1,43 @@
+package com.github.sailarize.servlet;
+
+/**
+ * Stores the representations cached by {@link SailarizeFilter}. The default
+ * store keeps them in memory ({@link MemoryRepresentationStore}); other stores
+ * can share them between nodes. Implementations must be thread safe and have a
+ * public no arguments constructor for being set with the cacheStore filter
+ * init parameter.
+ * 
+ * @author agusmunioz
+ *
+ */
+public interface RepresentationStore {
+
+    /**
+     * Gets a representation.
+     * 
+     * @param key
+     *            the representation key.
+     * 
+     * @return the representation or null if it is not stored.
+     */
+    Representation get(String key);
+
+    /**
+     * Stores a representation, replacing any previous one with the same key.
+     * 
+     * @param key
+     *            the representation key.
+     * 
+     * @param representation
+     *            the representation.
+     */
+    void put(String key, Representation representation);
+
+    /**
+     * Removes a representation.
+     * 
+     * @param key
+     *            the representation key.
+     */
+    void remove(String key);
+}
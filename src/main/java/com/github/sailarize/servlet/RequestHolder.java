@@ -2,16 +2,17 @@ package com.github.sailarize.servlet;
 
 import javax.servlet.http.HttpServletRequest;
 
+import com.github.sailarize.context.SailContext;
+
 /**
- * Holds the current {@link HttpServletRequest} in a {@link ThreadLocal}.
+ * Holds the current {@link HttpServletRequest}. It is a view over the current
+ * {@link SailContext}.
  * 
  * @author agusmunioz
  * 
  */
 public class RequestHolder {
 
-    private static ThreadLocal<HttpServletRequest> REQUEST = new ThreadLocal<HttpServletRequest>();
-
     /**
      * Gets the current {@link HttpServletRequest}.
      * 
@@ -19,7 +20,7 @@ public class RequestHolder {
      */
     public static HttpServletRequest get() {
 
-        return REQUEST.get();
+        return SailContext.current().getRequest();
     }
 
     /**
@@ -29,14 +30,14 @@ public class RequestHolder {
      *            the current request.
      */
     public static void set(HttpServletRequest request) {
-        REQUEST.set(request);
+        SailContext.set(SailContext.current().withRequest(request));
     }
 
     /**
-     * Cleans the {@link ThreadLocal}.
+     * Cleans the request.
      */
     public static void clean() {
-        REQUEST.remove();
+        set(null);
     }
 
 }
@@ -0,0 +1,237 @@
+package com.github.sailarize.servlet;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+import com.github.sailarize.context.SailContext;
+import com.github.sailarize.context.SailContexts;
+
+/**
+ * Wraps a request that supports async processing so the {@link SailContext}
+ * follows it: tasks started with {@link AsyncContext#start(Runnable)} run
+ * under the request context and the context is released when the async
+ * processing completes, fails or times out. A single listener releases it,
+ * whatever the async cycles of the request.
+ * 
+ * @author agusmunioz
+ *
+ */
+class SailAsyncRequest extends HttpServletRequestWrapper {
+
+    /**
+     * The request attribute holding the request context.
+     */
+    static final String CONTEXT = SailContext.class.getName();
+
+    /**
+     * The request attribute that marks the context release is listened to,
+     * for registering a single listener per request.
+     */
+    static final String RELEASE = CONTEXT + ".release";
+
+    /**
+     * The wrapper of the current async context.
+     */
+    private ContextAsync async;
+
+    public SailAsyncRequest(HttpServletRequest request) {
+
+        super(request);
+    }
+
+    @Override
+    public AsyncContext startAsync() throws IllegalStateException {
+
+        return this.wrap(super.startAsync());
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest request, ServletResponse response) throws IllegalStateException {
+
+        return this.wrap(super.startAsync(request, response));
+    }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+
+        return this.wrap(super.getAsyncContext());
+    }
+
+    private AsyncContext wrap(AsyncContext async) {
+
+        if (this.async != null && this.async.async == async) {
+            return this.async;
+        }
+
+        SailContext context = (SailContext) this.getAttribute(CONTEXT);
+
+        if (async == null || context == null) {
+            return async;
+        }
+
+        if (this.getAttribute(RELEASE) == null) {
+            async.addListener(new Release(context));
+            this.setAttribute(RELEASE, Boolean.TRUE);
+        }
+
+        this.async = new ContextAsync(async, context);
+
+        return this.async;
+    }
+
+    /**
+     * Starts tasks under the request context.
+     */
+    private static class ContextAsync implements AsyncContext {
+
+        private AsyncContext async;
+
+        private SailContext context;
+
+        public ContextAsync(AsyncContext async, SailContext context) {
+
+            this.async = async;
+            this.context = context;
+        }
+
+        @Override
+        public void start(Runnable task) {
+
+            this.async.start(SailContexts.wrap(this.context, task));
+        }
+
+        @Override
+        public ServletRequest getRequest() {
+
+            return this.async.getRequest();
+        }
+
+        @Override
+        public ServletResponse getResponse() {
+
+            return this.async.getResponse();
+        }
+
+        @Override
+        public boolean hasOriginalRequestAndResponse() {
+
+            return this.async.hasOriginalRequestAndResponse();
+        }
+
+        @Override
+        public void dispatch() {
+
+            this.async.dispatch();
+        }
+
+        @Override
+        public void dispatch(String path) {
+
+            this.async.dispatch(path);
+        }
+
+        @Override
+        public void dispatch(ServletContext context, String path) {
+
+            this.async.dispatch(context, path);
+        }
+
+        @Override
+        public void complete() {
+
+            this.async.complete();
+        }
+
+        @Override
+        public void addListener(AsyncListener listener) {
+
+            this.async.addListener(listener);
+        }
+
+        @Override
+        public void addListener(AsyncListener listener, ServletRequest request, ServletResponse response) {
+
+            this.async.addListener(listener, request, response);
+        }
+
+        @Override
+        public <T extends AsyncListener> T createListener(Class<T> type) throws ServletException {
+
+            return this.async.createListener(type);
+        }
+
+        @Override
+        public void setTimeout(long timeout) {
+
+            this.async.setTimeout(timeout);
+        }
+
+        @Override
+        public long getTimeout() {
+
+            return this.async.getTimeout();
+        }
+    }
+
+    /**
+     * Releases the request context when the async processing ends.
+     */
+    private static class Release implements AsyncListener {
+
+        private SailContext context;
+
+        public Release(SailContext context) {
+
+            this.context = context;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+
+            this.release(event);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+
+            this.release(event);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) throws IOException {
+
+            this.release(event);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) throws IOException {
+
+            // A new async cycle drops the listeners: keep listening to it.
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release(AsyncEvent event) {
+
+            if (SailContext.current() == this.context) {
+                SailContext.clean();
+            }
+
+            ServletRequest request = event.getSuppliedRequest() != null ? event.getSuppliedRequest()
+                    : event.getAsyncContext().getRequest();
+
+            if (request != null) {
+                request.removeAttribute(CONTEXT);
+                request.removeAttribute(RELEASE);
+            }
+        }
+    }
+}
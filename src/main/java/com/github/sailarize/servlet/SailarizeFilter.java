@@ -3,8 +3,10 @@ package com.github.sailarize.servlet;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
@@ -12,10 +14,11 @@ import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import com.github.sailarize.context.SailContext;
 import com.github.sailarize.http.Header;
-import com.github.sailarize.http.HeaderHolder;
-import com.github.sailarize.http.ParameterHolder;
+import com.github.sailarize.properties.LocaleNegotiator;
 import com.github.sailarize.properties.Titles;
 import com.github.sailarize.url.HostHeaderResolver;
 import com.github.sailarize.url.HostResolver;
@@ -23,9 +26,32 @@ import com.github.sailarize.url.PathHolder;
 import com.github.sailarize.url.QueryString;
 
 /**
- * A {@link Filter} that initializes sailarize components. It sets the current
- * {@link HttpServletRequest} in {@link RequestHolder} and sets the API path
- * (protocol, domain and application path) in {@link PathHolder}.
+ * A {@link Filter} that initializes sailarize components. It creates the
+ * request {@link SailContext}, so the current {@link HttpServletRequest} is
+ * available in {@link RequestHolder} and the API path (protocol, domain and
+ * application path) in {@link PathHolder}. The request locale is negotiated
+ * once from the Accept-Language header (see {@link LocaleNegotiator}) and used
+ * by default for titles. The context is cleaned when the request ends, even if
+ * it fails.
+ * <p>
+ * GET requests under the paths of the cache init parameter are served from a
+ * cache of serialized representations (see {@link RepresentationStore}).
+ * <p>
+ * If the etag init parameter is true, GET responses get a strong ETag hashed
+ * from the serialized body and requests whose If-None-Match header has it are
+ * answered with 304 Not Modified. An {@link ETagResolver} (etagResolver init
+ * parameter) supplies the ETag of resources that know their version, so a 304
+ * is answered without building the representation at all.
+ * <p>
+ * If ETags are sent or representations are cached, responses have a Vary
+ * header with the request headers representations vary by (Accept if the cache
+ * keys on it, Accept-Language if titles are localized, the propagated headers
+ * and the cache key ones), so shared caches do not serve a representation to a
+ * request it was not built for.
+ * <p>
+ * For requests that support async processing, the context also follows the
+ * tasks started through the request {@link javax.servlet.AsyncContext} and it
+ * is released when the async processing completes, fails or times out.
  * 
  * @author agusmunioz
  * 
@@ -36,10 +62,22 @@ public class SailarizeFilter implements Filter {
 
     private static final String SLASH = "/";
 
+    private static final String ACCEPT_LANGUAGE = "Accept-Language";
+
+    private static final String GET = "GET";
+
+    private static final String VARY = "Vary";
+
     private String path;
 
     private Boolean holdRequest = Boolean.TRUE;
 
+    /**
+     * Whether the request locale is negotiated from the Accept-Language
+     * header.
+     */
+    private boolean negotiateLocale = true;
+
     private HostResolver hostResolver;
 
     /**
@@ -56,6 +94,27 @@ public class SailarizeFilter implements Filter {
      */
     private Collection<String> parameters;
 
+    /**
+     * The cache of representations, null if no path is cached.
+     */
+    private RepresentationCache cache;
+
+    /**
+     * Whether ETags are hashed from the serialized body.
+     */
+    private boolean etag;
+
+    /**
+     * The resolver of precomputed ETags, null if there is none.
+     */
+    private ETagResolver etagResolver;
+
+    /**
+     * The request headers representations vary by, null if no Vary header is
+     * sent.
+     */
+    private String vary;
+
     @Override
     public void init(FilterConfig config) throws ServletException {
 
@@ -85,12 +144,33 @@ public class SailarizeFilter implements Filter {
             Titles.encoding(config.getInitParameter("encoding"));
         }
 
+        if (config.getInitParameter("negotiateLocale") != null) {
+            this.negotiateLocale = Boolean.parseBoolean(config.getInitParameter("negotiateLocale"));
+        }
+
+        if (config.getInitParameter("titlesInterval") != null) {
+            Titles.interval(Long.parseLong(config.getInitParameter("titlesInterval")));
+        }
+
         if (config.getInitParameter("parameters") != null) {
             this.parameters = Arrays.asList(config.getInitParameter("parameters").split(","));
         }
 
         this.hostResolver = this.getHostResolver(config.getInitParameter("hostResolver"));
 
+        if (config.getInitParameter("cache") != null) {
+            this.cache = this.getCache(config);
+        }
+
+        this.etag = Boolean.parseBoolean(config.getInitParameter("etag"));
+
+        if (config.getInitParameter("etagResolver") != null) {
+            this.etagResolver = this.getETagResolver(config.getInitParameter("etagResolver"));
+        }
+
+        if (this.etag || this.etagResolver != null || this.cache != null) {
+            this.vary = this.vary(config);
+        }
     }
 
     @Override
@@ -99,38 +179,223 @@ public class SailarizeFilter implements Filter {
 
         HttpServletRequest httpRequest = (HttpServletRequest) request;
 
-        if (this.holdRequest) {
-            RequestHolder.set(httpRequest);
+        SailContext context = context(request);
+
+        if (context == null) {
+
+            if (httpRequest.isAsyncSupported()) {
+                httpRequest = new SailAsyncRequest(httpRequest);
+            }
+
+            context = this.create(httpRequest);
+
+            if (httpRequest instanceof SailAsyncRequest) {
+                request.setAttribute(SailAsyncRequest.CONTEXT, context);
+            }
         }
 
-        PathHolder.set(this.getPath(httpRequest));
+        SailContext previous = context.attach();
+
+        try {
+
+            if (this.vary != null && initial(request)) {
+                ((HttpServletResponse) response).addHeader(VARY, this.vary);
+            }
+
+            if ((this.etag || this.etagResolver != null) && initial(request) && GET.equals(httpRequest.getMethod())) {
+                this.conditional(httpRequest, (HttpServletResponse) response, chain, context);
+            } else {
+                this.dispatch(httpRequest, (HttpServletResponse) response, chain, context);
+            }
 
-        if (headers != null) {
-            HeaderHolder.set(this.headers(httpRequest));
+        } finally {
+
+            if (initial(request)) {
+                this.clean();
+            } else {
+                SailContext.set(previous);
+            }
         }
+    }
 
-        if (this.parameters != null) {
+    /**
+     * Builds the Vary header value: the Accept header if the representation
+     * cache keys on it, the Accept-Language one if the locale is negotiated
+     * and there are localized titles, the propagated headers and the cache key
+     * ones.
+     * 
+     * @return the value or null if representations vary by no header.
+     */
+    private String vary(FilterConfig config) {
+
+        Collection<String> names = new LinkedHashSet<String>();
 
-            // TODO:refactor.
+        if (this.cache != null) {
+            names.add("Accept");
+        }
+
+        if (this.negotiateLocale && Titles.isLocalized()) {
+            names.add(ACCEPT_LANGUAGE);
+        }
 
-            QueryString query = new QueryString();
+        if (this.headers != null) {
+            names.addAll(this.headers);
+        }
 
-            for (String parameter : this.parameters) {
+        if (this.cache != null) {
+            names.addAll(Arrays.asList(parameter(config, "cacheKeyHeaders", "").split(",")));
+        }
 
-                String value = httpRequest.getParameter(parameter);
+        StringBuilder vary = new StringBuilder();
 
-                if (value != null) {
-                    query.add(parameter, value);
-                }
+        for (String name : names) {
 
+            if (!name.trim().isEmpty()) {
+                vary.append(vary.length() == 0 ? "" : ", ").append(name.trim());
             }
+        }
 
-            ParameterHolder.set(query);
+        return vary.length() == 0 ? null : vary.toString();
+    }
+
+    /**
+     * Processes the request, through the representation cache if the request
+     * is cached.
+     */
+    private void dispatch(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+            SailContext context) throws IOException, ServletException {
+
+        if (this.cache != null && initial(request) && this.cache.accepts(request)) {
+            this.cache.filter(request, response, chain, context);
+        } else {
+            chain.doFilter(request, response);
         }
+    }
 
-        chain.doFilter(request, response);
+    /**
+     * Processes a GET request with ETags, answering 304 Not Modified if the
+     * client already has the representation. A precomputed ETag skips the
+     * build, otherwise the body is held and hashed while it is serialized.
+     */
+    private void conditional(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+            SailContext context) throws IOException, ServletException {
 
-        this.clean();
+        String etag = this.etagResolver == null ? null : this.etagResolver.resolve(request);
+
+        if (etag != null) {
+
+            etag = ETagResponse.quote(etag);
+
+            response.setHeader(ETagResponse.ETAG, etag);
+
+            if (ETagResponse.matches(request.getHeader(ETagResponse.IF_NONE_MATCH), etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            } else {
+                this.dispatch(request, response, chain, context);
+            }
+
+            return;
+        }
+
+        if (!this.etag) {
+            this.dispatch(request, response, chain, context);
+            return;
+        }
+
+        ETagResponse hashing = new ETagResponse(response);
+
+        this.dispatch(request, hashing, chain, context);
+
+        if (request.isAsyncStarted()) {
+            hashing.passThrough();
+        } else {
+            hashing.finish(request);
+        }
+    }
+
+    /**
+     * Determines if the request is being dispatched for the first time (not
+     * forwarded, included or dispatched again after async processing).
+     */
+    private static boolean initial(ServletRequest request) {
+
+        return request.getDispatcherType() == null || request.getDispatcherType() == DispatcherType.REQUEST;
+    }
+
+    /**
+     * Gets the context of a request that supports async processing, for
+     * attaching it in threads the request is processed in.
+     * 
+     * @param request
+     *            the request.
+     * 
+     * @return the context or null if the request is not sailarized or does
+     *         not support async processing.
+     */
+    public static SailContext context(ServletRequest request) {
+
+        return (SailContext) request.getAttribute(SailAsyncRequest.CONTEXT);
+    }
+
+    /**
+     * Creates the context of a request.
+     * 
+     * @param request
+     *            the current http request.
+     * 
+     * @return the context.
+     */
+    private SailContext create(HttpServletRequest request) {
+
+        SailContext.Builder context = SailContext.builder().path(this.getPath(request))
+                .serverName(request.getServerName());
+
+        if (this.holdRequest) {
+            context.request(request);
+        }
+
+        if (this.headers != null) {
+            context.headers(this.headers(request));
+        }
+
+        if (this.parameters != null) {
+            context.parameters(this.parameters(request));
+        }
+
+        if (this.negotiateLocale) {
+            context.locale(LocaleNegotiator.negotiate(request.getHeader(ACCEPT_LANGUAGE)));
+        }
+
+        return context.build();
+    }
+
+    /**
+     * Extracts the parameters that must be added in all links and forms.
+     * 
+     * @param request
+     *            the current http request.
+     * 
+     * @return the parameters or null if the request has none of them.
+     */
+    private QueryString parameters(HttpServletRequest request) {
+
+        QueryString query = null;
+
+        for (String parameter : this.parameters) {
+
+            String value = request.getParameter(parameter);
+
+            if (value != null) {
+
+                if (query == null) {
+                    query = new QueryString();
+                }
+
+                query.add(parameter, value);
+            }
+        }
+
+        return query;
     }
 
     /**
@@ -159,17 +424,22 @@ public class SailarizeFilter implements Filter {
      * @param request
      *            the current http request.
      * 
-     * @return the list of headers.
+     * @return the list of headers or null if the request has none of them.
      */
     private Collection<Header> headers(HttpServletRequest request) {
 
-        Collection<Header> retain = new LinkedList<Header>();
+        Collection<Header> retain = null;
 
         for (String header : this.headers) {
 
             String value = request.getHeader(header);
 
             if (value != null) {
+
+                if (retain == null) {
+                    retain = new LinkedList<Header>();
+                }
+
                 retain.add(new Header(header, value));
             }
         }
@@ -207,23 +477,91 @@ public class SailarizeFilter implements Filter {
     }
 
     /**
-     * Cleans all ThreadLocals
+     * Builds the ETag resolver.
+     * 
+     * @param type
+     *            a fully qualified class name that implements
+     *            {@link ETagResolver}.
+     * 
+     * @return the ETag resolver.
+     * 
+     * @throws ServletException
+     *             if there was an error when instantiating the ETag resolver.
      */
-    private void clean() {
+    private ETagResolver getETagResolver(String type) throws ServletException {
 
-        PathHolder.clean();
+        try {
 
-        if (this.headers != null) {
-            HeaderHolder.clean();
-        }
+            return (ETagResolver) Class.forName(type).newInstance();
 
-        if (this.holdRequest) {
-            RequestHolder.clean();
+        } catch (Exception e) {
+            throw new ServletException(e);
         }
+    }
 
-        if (this.parameters != null) {
-            ParameterHolder.clean();
+    /**
+     * Builds the representation cache out of the cache init parameters: cache
+     * (the path prefixes to cache, comma separated), cacheKeyHeaders (the
+     * request headers representations vary by, comma separated, e.g.
+     * Authorization for caching per user), cacheTtl and cacheStale (in
+     * seconds), cacheGzip, cacheSize (for the in memory store) and cacheStore
+     * (a fully qualified class name that implements
+     * {@link RepresentationStore}).
+     * 
+     * @param config
+     *            the filter configuration.
+     * 
+     * @return the cache.
+     * 
+     * @throws ServletException
+     *             if there was an error when instantiating the store.
+     */
+    private RepresentationCache getCache(FilterConfig config) throws ServletException {
+
+        long ttl = Long.parseLong(parameter(config, "cacheTtl", "60")) * 1000;
+
+        long stale = Long.parseLong(parameter(config, "cacheStale", "0")) * 1000;
+
+        boolean gzip = Boolean.parseBoolean(parameter(config, "cacheGzip", "true"));
+
+        RepresentationStore store;
+
+        String type = config.getInitParameter("cacheStore");
+
+        if (type != null) {
+
+            try {
+
+                store = (RepresentationStore) Class.forName(type).newInstance();
+
+            } catch (Exception e) {
+                throw new ServletException(e);
+            }
+
+        } else {
+            store = new MemoryRepresentationStore(Integer.parseInt(
+                    parameter(config, "cacheSize", Integer.toString(MemoryRepresentationStore.DEFAULT_CAPACITY))));
         }
+
+        String keyHeaders = parameter(config, "cacheKeyHeaders", "");
+
+        return new RepresentationCache(Arrays.asList(config.getInitParameter("cache").split(",")),
+                Arrays.asList(keyHeaders.split(",")), ttl, stale, gzip, store);
+    }
+
+    private static String parameter(FilterConfig config, String name, String defaults) {
+
+        String value = config.getInitParameter(name);
+
+        return value == null ? defaults : value;
+    }
+
+    /**
+     * Cleans the request context.
+     */
+    private void clean() {
+
+        SailContext.clean();
     }
 
     @Override
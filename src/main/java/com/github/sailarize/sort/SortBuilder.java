@@ -1,24 +1,27 @@
 package com.github.sailarize.sort;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import javax.servlet.http.HttpServletRequest;
 
 import com.github.sailarize.http.Header;
-import com.github.sailarize.http.ParameterHolder;
+import com.github.sailarize.link.LinkBlockBuilder;
+import com.github.sailarize.link.LinkBlockKey;
 import com.github.sailarize.link.LinkBuilder;
+import com.github.sailarize.link.LinkFamily;
 import com.github.sailarize.link.RelBuilder;
 import com.github.sailarize.page.PageConstants;
 import com.github.sailarize.properties.Titles;
 import com.github.sailarize.resource.SailResource;
 import com.github.sailarize.servlet.RequestHolder;
 import com.github.sailarize.url.Filter;
+import com.github.sailarize.url.RequestFilters;
 import com.github.sailarize.utils.ToStringBuilder;
 
 /**
@@ -27,7 +30,7 @@ import com.github.sailarize.utils.ToStringBuilder;
  * @author agusmunioz
  * 
  */
-public class SortBuilder {
+public class SortBuilder implements LinkBlockBuilder {
 
     private final static Collection<String> filterBlacklist = Arrays.asList(SortConstants.SORT_BY,
             SortConstants.SORT_DIRECTION, PageConstants.PAGE_PARAM, PageConstants.SIZE_PARAM);
@@ -250,15 +253,8 @@ public class SortBuilder {
      */
     public SortBuilder filter(HttpServletRequest request) {
 
-        for (Entry<String, String[]> filter : request.getParameterMap().entrySet()) {
-
-            for (String value : filter.getValue()) {
-
-                if (!ParameterHolder.get().contains(filter.getKey())) {
-                    this.filter(filter.getKey(), value);
-                }
-            }
-
+        for (Filter filter : RequestFilters.of(request).without(filterBlacklist).withoutOffsets().filters()) {
+            this.filters.put(filter.getName(), filter);
         }
 
         return this;
@@ -357,22 +353,25 @@ public class SortBuilder {
      *            any value used to replace in the list url if a template is
      *            used.
      */
+    @Override
     public void build(SailResource list, Object... values) {
 
         for (String excludedFilterName : this.excludedFilters) {
             this.filters.remove(excludedFilterName);
         }
 
+        LinkFamily family = LinkFamily.of(list, values).headers(this.headers).filters(this.filters.values());
+
         int index = 0;
 
         for (SortOption option : this.options) {
 
-            LinkBuilder builder = new LinkBuilder(list,
-                    RelBuilder.rel(SortConstants.REL, option.getValue(), option.getDirection()), values)
-                            .filters(this.filters.values())
-                            .filter(SortConstants.SORT_BY, option.getValue())
-                            .title(this.getTitle(option, index))
-                            .headers(this.headers);
+            String rel = RelBuilder.rel(SortConstants.REL, option.getValue(), option.getDirection());
+
+            LinkBuilder builder = family.link(rel)
+                    .query(family.getFilters())
+                    .filter(SortConstants.SORT_BY, option.getValue())
+                    .title(this.getTitle(option, index));
 
             boolean current = option.getValue().equals(this.currentBy);
 
@@ -390,6 +389,31 @@ public class SortBuilder {
 
     }
 
+    @Override
+    public void describe(LinkBlockKey key) {
+
+        key.add(this.options.size());
+
+        for (SortOption option : this.options) {
+            key.add(option.getValue()).add(option.getDirection()).add(option.getTitle());
+        }
+
+        Collection<Filter> filters = new ArrayList<Filter>();
+
+        for (Filter filter : this.filters.values()) {
+            if (!this.excludedFilters.contains(filter.getName())) {
+                filters.add(filter);
+            }
+        }
+
+        key.filters(filters)
+                .add(this.titles)
+                .add(this.locale)
+                .add(this.currentBy)
+                .add(this.currentDirection)
+                .headers(this.headers);
+    }
+
     /**
      * Gets the sort link title. It tries to get it from the option, the
      * properties file or the list of {@link SortBuilder#titles(String...)}.
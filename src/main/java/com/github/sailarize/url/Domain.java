@@ -1,6 +1,6 @@
 package com.github.sailarize.url;
 
-import com.github.sailarize.servlet.RequestHolder;
+import com.github.sailarize.context.SailContext;
 
 /**
  * 
@@ -24,14 +24,33 @@ public class Domain {
      */
     public static boolean cross(String url) {
 
+        return cross(url, SailContext.current());
+    }
+
+    /**
+     * Determines if the URL is cross-domain for a specific request context.
+     * 
+     * @param url
+     *            the url.
+     * 
+     * @param context
+     *            the request context.
+     * 
+     * @return true if it is cross-domain, false otherwise.
+     */
+    public static boolean cross(String url, SailContext context) {
+
         String target = url;
 
         if (url.startsWith(PROTOCOL_RELATIVE)) {
-            target = url.replaceFirst(PROTOCOL_RELATIVE, "");
-
+            target = url.substring(PROTOCOL_RELATIVE.length());
         }
 
-        String domain = (RequestHolder.get() != null) ? RequestHolder.get().getServerName() : "";
+        String domain = context.getServerName();
+
+        if (domain == null) {
+            domain = "";
+        }
 
         return !target.contains(domain) && !target.startsWith("/");
     }
@@ -1,18 +1,18 @@
 package com.github.sailarize.url;
 
+import com.github.sailarize.context.SailContext;
+
 /**
  * 
- * Holder for the Web Application path used in API links. It uses
- * {@link ThreadLocal} so {@link PathHolder#clean()} must be used in order to
- * properly clean the TreadLocal.
+ * Holder for the Web Application path used in API links. It is a view over the
+ * current {@link SailContext} so {@link PathHolder#clean()} must be used in
+ * order to properly clean the TreadLocal.
  * 
  * @author agusmunioz
  * 
  */
 public class PathHolder {
 
-    private static ThreadLocal<String> PATH = new ThreadLocal<String>();
-
     /**
      * Sets the current API Path.
      * 
@@ -21,7 +21,7 @@ public class PathHolder {
      */
     public static void set(String path) {
 
-        PATH.set(path);
+        SailContext.set(SailContext.current().withPath(path));
     }
 
     /**
@@ -31,17 +31,15 @@ public class PathHolder {
      */
     public static String get() {
 
-        if (PATH.get() == null) {
-            return "";
-        }
+        String path = SailContext.current().getPath();
 
-        return PATH.get();
+        return path == null ? "" : path;
     }
 
     /**
-     * Cleans the {@link ThreadLocal}.
+     * Cleans the path.
      */
     public static void clean() {
-        PATH.remove();
+        set(null);
     }
 }
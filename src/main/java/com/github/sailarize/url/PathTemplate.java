@@ -0,0 +1,220 @@
+package com.github.sailarize.url;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A path compiled into literal segments and variable slots (e.g.
+ * /users/{id}/phones), so it can be expanded without matching it again.
+ * <p>
+ * Values are positional: the n-th variable takes the n-th value. A variable
+ * that repeats takes the value of its first occurrence and a variable without
+ * value is kept as is.
+ * 
+ * @author agusmunioz
+ *
+ */
+public final class PathTemplate {
+
+    /**
+     * Max amount of compiled paths kept for paths that are not resources' ones.
+     */
+    private static final int CACHE_LIMIT = 512;
+
+    /**
+     * An estimation of a variable value length for pre-sizing buffers.
+     */
+    private static final int VALUE_LENGTH = 8;
+
+    private static final ConcurrentMap<String, PathTemplate> CACHE = new ConcurrentHashMap<String, PathTemplate>();
+
+    private final String path;
+
+    private final String[] literals;
+
+    private final String[] variables;
+
+    private final int[] slots;
+
+    private final int length;
+
+    private PathTemplate(String path, String[] literals, String[] variables, int[] slots) {
+
+        this.path = path;
+        this.literals = literals;
+        this.variables = variables;
+        this.slots = slots;
+
+        int literalsLength = 0;
+
+        for (String literal : literals) {
+            literalsLength += literal.length();
+        }
+
+        this.length = literalsLength + variables.length * VALUE_LENGTH;
+    }
+
+    /**
+     * Compiles a path.
+     * 
+     * @param path
+     *            the path, that could have variables like {name}.
+     * 
+     * @return the compiled path.
+     */
+    public static PathTemplate compile(String path) {
+
+        List<String> literals = new LinkedList<String>();
+        List<String> variables = new LinkedList<String>();
+        List<Integer> slots = new LinkedList<Integer>();
+
+        Map<String, Integer> firsts = new HashMap<String, Integer>();
+
+        int start = 0;
+        int from = 0;
+
+        while (true) {
+
+            int open = path.indexOf('{', from);
+
+            if (open < 0) {
+                break;
+            }
+
+            int close = open + 1;
+
+            while (close < path.length() && isWord(path.charAt(close))) {
+                close++;
+            }
+
+            if (close == open + 1 || close == path.length() || path.charAt(close) != '}') {
+                from = open + 1;
+                continue;
+            }
+
+            String variable = path.substring(open, close + 1);
+
+            Integer first = firsts.get(variable);
+
+            if (first == null) {
+                first = variables.size();
+                firsts.put(variable, first);
+            }
+
+            literals.add(path.substring(start, open));
+            variables.add(variable);
+            slots.add(first);
+
+            start = close + 1;
+            from = start;
+        }
+
+        literals.add(path.substring(start));
+
+        int[] slotArray = new int[slots.size()];
+
+        int index = 0;
+
+        for (Integer slot : slots) {
+            slotArray[index++] = slot;
+        }
+
+        return new PathTemplate(path, literals.toArray(new String[literals.size()]),
+                variables.toArray(new String[variables.size()]), slotArray);
+    }
+
+    /**
+     * Gets a compiled path from a shared cache, compiling it the first time.
+     * 
+     * @param path
+     *            the path.
+     * 
+     * @return the compiled path.
+     */
+    public static PathTemplate cached(String path) {
+
+        PathTemplate template = CACHE.get(path);
+
+        if (template == null) {
+
+            template = compile(path);
+
+            if (CACHE.size() < CACHE_LIMIT) {
+                CACHE.putIfAbsent(path, template);
+            }
+        }
+
+        return template;
+    }
+
+    /**
+     * Expands the path into a buffer.
+     * 
+     * @param builder
+     *            the buffer where the path is appended.
+     * 
+     * @param values
+     *            the variables values.
+     * 
+     * @return the buffer.
+     */
+    public StringBuilder expand(StringBuilder builder, Object... values) {
+
+        if (this.slots.length == 0 || values.length == 0) {
+            return builder.append(this.path);
+        }
+
+        for (int i = 0; i < this.slots.length; i++) {
+
+            builder.append(this.literals[i]);
+
+            int slot = this.slots[i];
+
+            if (slot < values.length) {
+                builder.append(values[slot].toString());
+            } else {
+                builder.append(this.variables[i]);
+            }
+        }
+
+        return builder.append(this.literals[this.slots.length]);
+    }
+
+    /**
+     * An estimation of the expanded path length.
+     * 
+     * @return the length.
+     */
+    public int length() {
+
+        return this.length;
+    }
+
+    /**
+     * The path as it was compiled.
+     * 
+     * @return the path.
+     */
+    public String getPath() {
+
+        return this.path;
+    }
+
+    @Override
+    public String toString() {
+
+        return this.path;
+    }
+
+    /**
+     * Checks a character can be part of a variable name (a regex \w).
+     */
+    private static boolean isWord(char c) {
+
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
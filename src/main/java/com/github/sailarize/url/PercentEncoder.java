@@ -0,0 +1,143 @@
+package com.github.sailarize.url;
+
+/**
+ * A table driven encoder of query parameter values into the
+ * application/x-www-form-urlencoded format, using UTF-8. It produces the same
+ * output as {@link java.net.URLEncoder} with UTF-8 without looking up a
+ * charset per value.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class PercentEncoder {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * The ASCII characters that are not encoded.
+     */
+    private static final boolean[] SAFE = new boolean[128];
+
+    static {
+
+        for (char c = 'a'; c <= 'z'; c++) {
+            SAFE[c] = true;
+        }
+
+        for (char c = 'A'; c <= 'Z'; c++) {
+            SAFE[c] = true;
+        }
+
+        for (char c = '0'; c <= '9'; c++) {
+            SAFE[c] = true;
+        }
+
+        SAFE['.'] = true;
+        SAFE['-'] = true;
+        SAFE['*'] = true;
+        SAFE['_'] = true;
+    }
+
+    /**
+     * Encodes a value.
+     * 
+     * @param value
+     *            the value.
+     * 
+     * @return the encoded value (the same instance if nothing needed encoding).
+     */
+    public static String encode(String value) {
+
+        int length = value.length();
+
+        int i = 0;
+
+        while (i < length) {
+
+            char c = value.charAt(i);
+
+            if (c >= 128 || !SAFE[c]) {
+                break;
+            }
+
+            i++;
+        }
+
+        if (i == length) {
+            return value;
+        }
+
+        StringBuilder builder = new StringBuilder(length + 16).append(value, 0, i);
+
+        return encode(value, i, builder).toString();
+    }
+
+    /**
+     * Encodes a value into a buffer.
+     * 
+     * @param value
+     *            the value.
+     * 
+     * @param builder
+     *            the buffer where the encoded value is appended.
+     * 
+     * @return the buffer.
+     */
+    public static StringBuilder encode(CharSequence value, StringBuilder builder) {
+
+        return encode(value, 0, builder);
+    }
+
+    private static StringBuilder encode(CharSequence value, int from, StringBuilder builder) {
+
+        int length = value.length();
+
+        for (int i = from; i < length; i++) {
+
+            char c = value.charAt(i);
+
+            if (c < 128) {
+
+                if (SAFE[c]) {
+                    builder.append(c);
+                } else if (c == ' ') {
+                    builder.append('+');
+                } else {
+                    escape(builder, c);
+                }
+
+            } else if (c < 0x800) {
+
+                escape(builder, 0xC0 | (c >> 6));
+                escape(builder, 0x80 | (c & 0x3F));
+
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+
+                int code = Character.toCodePoint(c, value.charAt(++i));
+                escape(builder, 0xF0 | (code >> 18));
+                escape(builder, 0x80 | ((code >> 12) & 0x3F));
+                escape(builder, 0x80 | ((code >> 6) & 0x3F));
+                escape(builder, 0x80 | (code & 0x3F));
+
+            } else if (Character.isSurrogate(c)) {
+
+                // Malformed input is replaced, as the UTF-8 encoder does.
+                escape(builder, '?');
+
+            } else {
+
+                escape(builder, 0xE0 | (c >> 12));
+                escape(builder, 0x80 | ((c >> 6) & 0x3F));
+                escape(builder, 0x80 | (c & 0x3F));
+            }
+        }
+
+        return builder;
+    }
+
+    private static void escape(StringBuilder builder, int b) {
+
+        builder.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+    }
+}
@@ -1,10 +1,12 @@
 package com.github.sailarize.url;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * Models a URL query string.
+ * Models a URL query string as parallel arrays of parameter names and encoded
+ * values. A name can appear several times (multi-valued parameters).
  * 
  * @author agusmunioz
  * 
@@ -13,11 +15,29 @@ public class QueryString {
 
     protected static final String QUERY = "?";
 
-    private static final String AND = "&";
+    private static final char AND = '&';
 
-    private static final String EQUALS = "=";
+    private static final char EQUALS = '=';
 
-    private StringBuilder query;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private String[] names;
+
+    private String[] values;
+
+    private int size;
+
+    /**
+     * The position of the first occurrence of each name, built on the first
+     * lookup. A published index is never changed but replaced, so a query
+     * string held by a SailContext can be read from several threads.
+     */
+    private volatile Map<String, Integer> index;
+
+    /**
+     * The rendered query, kept until the query changes.
+     */
+    private String rendered;
 
     /**
      * Adds a parameter to the query string.
@@ -30,73 +50,166 @@ public class QueryString {
      */
     public void add(String name, String value) {
 
-        if (this.query == null) {
-
-            this.query = new StringBuilder(QUERY);
-
-        } else {
+        this.put(name, PercentEncoder.encode(value));
+    }
 
-            this.query.append(AND);
+    /**
+     * Appends a query string to this query. That means, it incorporates all the
+     * parameters.
+     * 
+     * @param query
+     *            the query to append.
+     */
+    public void append(QueryString query) {
 
+        if (query == this) {
+            query = query.copy();
         }
 
-        this.query.append(name).append(EQUALS).append(this.encode(value));
+        this.ensure(this.size + query.size);
 
+        for (int i = 0; i < query.size; i++) {
+            this.put(query.names[i], query.values[i]);
+        }
     }
 
     /**
-     * URL encodes a parameter value.
+     * Determines if the specified parameter is included in this query string.
      * 
-     * @param value
-     *            the value to be encoded.
+     * @param name
+     *            the parameter name.
      * 
-     * @return the encoded value or the same value if the character encoding.
+     * @return true if it is included, false otherwise.
      */
-    private String encode(String value) {
+    public boolean contains(String name) {
+
+        if (this.size == 0) {
+            return false;
+        }
+
+        Map<String, Integer> index = this.index;
 
-        try {
+        if (index == null) {
 
-            return URLEncoder.encode(value, "UTF-8");
+            index = new HashMap<String, Integer>();
 
-        } catch (UnsupportedEncodingException e) {
-            return value;
+            for (int i = this.size - 1; i >= 0; i--) {
+                index.put(this.names[i], i);
+            }
+
+            this.index = index;
         }
 
+        return index.containsKey(name);
     }
 
     /**
-     * Appends a query string to this query. That means, it incorporates all the
-     * parameters.
+     * Determines if the query string has no parameters.
      * 
-     * @param query
-     *            the query to append.
+     * @return true if empty.
      */
-    public void append(QueryString query) {
+    public boolean isEmpty() {
+
+        return this.size == 0;
+    }
+
+    /**
+     * The amount of parameters, counting each value of a multi-valued one.
+     * 
+     * @return the amount of parameters.
+     */
+    public int size() {
+
+        return this.size;
+    }
+
+    /**
+     * Creates an independent copy of this query string.
+     * 
+     * @return the copy.
+     */
+    public QueryString copy() {
 
-        if (this.query == null) {
-            this.query = new StringBuilder(query.toString());
-        } else {
-            this.query.append(query.toString().replaceFirst("\\" + QUERY, AND));
+        QueryString copy = new QueryString();
+
+        if (this.size > 0) {
+            copy.names = Arrays.copyOf(this.names, this.size);
+            copy.values = Arrays.copyOf(this.values, this.size);
+            copy.size = this.size;
+            copy.rendered = this.rendered;
         }
+
+        return copy;
     }
 
     @Override
     public String toString() {
 
-        return (this.query != null) ? query.toString() : "";
+        if (this.size == 0) {
+            return "";
+        }
+
+        if (this.rendered == null) {
+
+            int length = this.size;
+
+            for (int i = 0; i < this.size; i++) {
+                length += this.names[i].length() + this.values[i].length() + 1;
+            }
+
+            StringBuilder builder = new StringBuilder(length).append(QUERY);
+
+            for (int i = 0; i < this.size; i++) {
+
+                if (i > 0) {
+                    builder.append(AND);
+                }
+
+                builder.append(this.names[i]).append(EQUALS).append(this.values[i]);
+            }
+
+            this.rendered = builder.toString();
+        }
+
+        return this.rendered;
     }
 
     /**
-     * Determines if the specified parameter is included in this query string.
-     * 
-     * @param name
-     *            the parameter name.
-     * 
-     * @return true if it is included, false otherwise.
+     * Adds a parameter whose value is already encoded.
      */
-    public boolean contains(String name) {
+    private void put(String name, String encoded) {
+
+        this.ensure(this.size + 1);
+
+        Map<String, Integer> index = this.index;
 
-        return this.query != null && this.query.indexOf(name) > 0;
+        if (index != null && !index.containsKey(name)) {
+
+            index = new HashMap<String, Integer>(index);
+            index.put(name, this.size);
+
+            this.index = index;
+        }
+
+        this.names[this.size] = name;
+        this.values[this.size] = encoded;
+        this.size++;
+        this.rendered = null;
     }
 
+    private void ensure(int capacity) {
+
+        if (this.names == null) {
+
+            int initial = Math.max(capacity, INITIAL_CAPACITY);
+            this.names = new String[initial];
+            this.values = new String[initial];
+
+        } else if (capacity > this.names.length) {
+
+            int grown = Math.max(capacity, this.names.length * 2);
+            this.names = Arrays.copyOf(this.names, grown);
+            this.values = Arrays.copyOf(this.values, grown);
+        }
+    }
 }
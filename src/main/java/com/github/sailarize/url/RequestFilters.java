@@ -0,0 +1,340 @@
+package com.github.sailarize.url;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.github.sailarize.context.SailContext;
+
+/**
+ * An immutable snapshot of the query parameters of a request as filters,
+ * indexed by name. Propagated parameters (see
+ * {@link com.github.sailarize.http.ParameterHolder}) are not part of it, since
+ * links and forms already get them.
+ * <p>
+ * The request parameters are parsed once per request and the snapshot is
+ * shared by all builders. Blacklists and exclusions are applied with
+ * {@link #without(String...)}, which creates a view over the same snapshot.
+ *
+ * @author agusmunioz
+ *
+ */
+public final class RequestFilters {
+
+    /**
+     * The request attribute where the snapshot is kept.
+     */
+    static final String ATTRIBUTE = RequestFilters.class.getName();
+
+    /**
+     * Postfix of the facet name for the parameter with the offset of the first
+     * facet option to build.
+     */
+    public static final String OFFSET = "Offset";
+
+    private static final Filter[][] NO_FILTERS = new Filter[0][];
+
+    /**
+     * A snapshot without filters.
+     */
+    public static final RequestFilters EMPTY = new RequestFilters(NO_FILTERS, new HashMap<String, Integer>(), null,
+            null);
+
+    /**
+     * The filters of each parameter, in request order. All filters of a row
+     * share the name.
+     */
+    private final Filter[][] filters;
+
+    private final Map<String, Integer> index;
+
+    /**
+     * The rows hidden by this view, null if none is.
+     */
+    private final boolean[] excluded;
+
+    /**
+     * The propagated parameters the snapshot was parsed against.
+     */
+    private final QueryString propagated;
+
+    private List<Filter> all;
+
+    private RequestFilters(Filter[][] filters, Map<String, Integer> index, boolean[] excluded,
+            QueryString propagated) {
+
+        this.filters = filters;
+        this.index = index;
+        this.excluded = excluded;
+        this.propagated = propagated;
+    }
+
+    /**
+     * Gets the filters snapshot of a request, parsing it the first time.
+     *
+     * @param request
+     *            the HTTP request.
+     *
+     * @return the snapshot.
+     */
+    public static RequestFilters of(HttpServletRequest request) {
+
+        if (request == null) {
+            return EMPTY;
+        }
+
+        QueryString propagated = SailContext.current().getParameters();
+
+        Object attribute = request.getAttribute(ATTRIBUTE);
+
+        if (attribute instanceof RequestFilters && ((RequestFilters) attribute).propagated == propagated) {
+            return (RequestFilters) attribute;
+        }
+
+        RequestFilters snapshot = parse(request.getParameterMap(), propagated);
+
+        request.setAttribute(ATTRIBUTE, snapshot);
+
+        return snapshot;
+    }
+
+    /**
+     * Creates a snapshot out of a parameters map.
+     *
+     * @param parameters
+     *            the parameters, as returned by
+     *            {@link HttpServletRequest#getParameterMap()}.
+     *
+     * @param propagated
+     *            the propagated parameters, that are left out. Can be null.
+     *
+     * @return the snapshot.
+     */
+    public static RequestFilters parse(Map<String, String[]> parameters, QueryString propagated) {
+
+        if (parameters == null || parameters.isEmpty()) {
+            return new RequestFilters(NO_FILTERS, EMPTY.index, null, propagated);
+        }
+
+        Filter[][] filters = new Filter[parameters.size()][];
+
+        Map<String, Integer> index = new HashMap<String, Integer>(parameters.size() * 2);
+
+        int rows = 0;
+
+        for (Entry<String, String[]> parameter : parameters.entrySet()) {
+
+            String name = parameter.getKey();
+            String[] values = parameter.getValue();
+
+            if (name == null || values == null || values.length == 0
+                    || (propagated != null && propagated.contains(name))) {
+                continue;
+            }
+
+            Filter[] row = new Filter[values.length];
+
+            for (int i = 0; i < values.length; i++) {
+                row[i] = new Filter(name, values[i]);
+            }
+
+            index.put(name, rows);
+            filters[rows++] = row;
+        }
+
+        return new RequestFilters(Arrays.copyOf(filters, rows), index, null, propagated);
+    }
+
+    /**
+     * Creates a view of the snapshot that hides some filters.
+     *
+     * @param names
+     *            the names of the filters to hide.
+     *
+     * @return the view.
+     */
+    public RequestFilters without(String... names) {
+
+        return this.without(Arrays.asList(names));
+    }
+
+    /**
+     * Creates a view of the snapshot that hides some filters.
+     *
+     * @param names
+     *            the names of the filters to hide.
+     *
+     * @return the view, or this snapshot if none of the names is in it.
+     */
+    public RequestFilters without(Collection<String> names) {
+
+        boolean[] excluded = null;
+
+        for (String name : names) {
+
+            Integer row = this.index.get(name);
+
+            if (row != null && !this.isExcluded(row)) {
+
+                if (excluded == null) {
+                    excluded = this.excluded == null ? new boolean[this.filters.length] : this.excluded.clone();
+                }
+
+                excluded[row] = true;
+            }
+        }
+
+        return excluded == null ? this : new RequestFilters(this.filters, this.index, excluded, this.propagated);
+    }
+
+    /**
+     * Creates a view of the snapshot that hides the facet offsets: the filters
+     * named after a facet plus {@link #OFFSET} whose values are numbers. An
+     * offset pages the options of a single facet, so it is not kept in links
+     * to other results.
+     *
+     * @return the view, or this snapshot if it has no offsets.
+     */
+    public RequestFilters withoutOffsets() {
+
+        Collection<String> offsets = null;
+
+        for (Entry<String, Integer> entry : this.index.entrySet()) {
+
+            String name = entry.getKey();
+
+            if (name.length() > OFFSET.length() && name.endsWith(OFFSET) && !this.isExcluded(entry.getValue())
+                    && numbers(this.filters[entry.getValue()])) {
+
+                if (offsets == null) {
+                    offsets = new ArrayList<String>();
+                }
+
+                offsets.add(name);
+            }
+        }
+
+        return offsets == null ? this : this.without(offsets);
+    }
+
+    private static boolean numbers(Filter[] filters) {
+
+        for (Filter filter : filters) {
+
+            String value = filter.getValue();
+
+            if (value == null || value.isEmpty()) {
+                return false;
+            }
+
+            for (int i = 0; i < value.length(); i++) {
+
+                if (!Character.isDigit(value.charAt(i))) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Determines if there are filters with a specific name.
+     *
+     * @param name
+     *            the filter name.
+     *
+     * @return true if there is at least one.
+     */
+    public boolean contains(String name) {
+
+        Integer row = this.index.get(name);
+
+        return row != null && !this.isExcluded(row);
+    }
+
+    /**
+     * Gets the filters with a specific name.
+     *
+     * @param name
+     *            the filter name.
+     *
+     * @return the filters in request order, an empty list if there are none.
+     */
+    public List<Filter> get(String name) {
+
+        Integer row = this.index.get(name);
+
+        if (row == null || this.isExcluded(row)) {
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(this.filters[row]));
+    }
+
+    /**
+     * Gets all the filters.
+     *
+     * @return the filters in request order.
+     */
+    public List<Filter> filters() {
+
+        List<Filter> all = this.all;
+
+        if (all == null) {
+
+            int size = 0;
+
+            for (int row = 0; row < this.filters.length; row++) {
+                if (!this.isExcluded(row)) {
+                    size += this.filters[row].length;
+                }
+            }
+
+            Filter[] flat = new Filter[size];
+
+            int position = 0;
+
+            for (int row = 0; row < this.filters.length; row++) {
+                if (!this.isExcluded(row)) {
+                    System.arraycopy(this.filters[row], 0, flat, position, this.filters[row].length);
+                    position += this.filters[row].length;
+                }
+            }
+
+            all = Collections.unmodifiableList(Arrays.asList(flat));
+
+            this.all = all;
+        }
+
+        return all;
+    }
+
+    /**
+     * Determines if there are no filters.
+     *
+     * @return true if empty.
+     */
+    public boolean isEmpty() {
+
+        return this.filters().isEmpty();
+    }
+
+    private boolean isExcluded(int row) {
+
+        return this.excluded != null && this.excluded[row];
+    }
+
+    @Override
+    public String toString() {
+
+        return this.filters().toString();
+    }
+}
@@ -1,14 +1,9 @@
 package com.github.sailarize.url;
 
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import com.github.sailarize.resource.Path;
 import com.github.sailarize.resource.SailResource;
 import com.github.sailarize.resource.SailResourceList;
-import com.github.sailarize.utils.Annotations;
+import com.github.sailarize.utils.ClassMetadata;
 
 /**
  * Builder for resources URL.
@@ -18,15 +13,8 @@ import com.github.sailarize.utils.Annotations;
  */
 public class UrlBuilder {
 
-    private static final String PROTOCOL_LIMIT = "://";
-
     private static final String SLASH = "/";
 
-    /**
-     * Pattern for matching variables in the template.
-     */
-    private static Pattern PATH_VARIABLE_PATTERN = Pattern.compile("\\{\\w+\\}");
-
     /**
      * Builds a URL by appending the host and replacing any variable in the
      * path.
@@ -41,22 +29,17 @@ public class UrlBuilder {
      */
     public static String url(String path, Object... values) {
 
-        if (values.length > 0) {
-
-            Matcher matcher = PATH_VARIABLE_PATTERN.matcher(path);
+        String prefix = PathHolder.get();
 
-            int index = 0;
-
-            while (matcher.find() && index < values.length) {
-
-                String variable = matcher.group();
+        if (values.length == 0) {
+            return prefix + path;
+        }
 
-                path = path.replace(variable, values[index++].toString());
+        PathTemplate template = PathTemplate.cached(path);
 
-            }
-        }
+        StringBuilder builder = new StringBuilder(prefix.length() + template.length()).append(prefix);
 
-        return PathHolder.get() + path;
+        return template.expand(builder, values).toString();
     }
 
     /**
@@ -72,18 +55,7 @@ public class UrlBuilder {
      */
     public static String url(Class<? extends SailResource> resourceClass, Object... values) {
 
-        Path path = Annotations.search(resourceClass, Path.class);
-
-        if (path == null || path.value().isEmpty()) {
-
-            StringBuilder builder = new StringBuilder("The resource class ").append(resourceClass.getName())
-                    .append(" is not annotated with @").append(Path.class.getName())
-                    .append(" or the Path value is empty");
-
-            throw new UrlBuildException(builder.toString());
-        }
-
-        return url(path.value(), values);
+        return path(prefixed(template(resourceClass).length()), resourceClass, values).toString();
 
     }
 
@@ -100,19 +72,7 @@ public class UrlBuilder {
      */
     public static String url(SailResource resource, Object... values) {
 
-        Class<? extends SailResource> type = resource.getClass();
-
-        if (SailResourceList.class.isAssignableFrom(type)) {
-            type = ((SailResourceList<?>) resource).resourceType();
-        }
-
-        StringBuilder builder = new StringBuilder(url(type, values));
-
-        if (resource.getId() != null) {
-            builder.append(SLASH).append(resource.getId());
-        }
-
-        return builder.toString();
+        return path(prefixed(length(resource)), resource, values).toString();
 
     }
 
@@ -131,11 +91,11 @@ public class UrlBuilder {
      */
     public static String url(SailResource resource, Class<? extends SailResource> targetResource) {
 
-        StringBuilder builder = new StringBuilder(url(resource));
+        StringBuilder builder = prefixed(length(resource) + template(targetResource).length());
 
-        builder.append(url(targetResource).replace(PathHolder.get(), ""));
+        path(builder, resource);
 
-        return builder.toString();
+        return path(builder, targetResource).toString();
 
     }
 
@@ -153,43 +113,121 @@ public class UrlBuilder {
      */
     public static String url(SailResource resource, SailResource targetResource) {
 
-        StringBuilder builder = new StringBuilder(url(resource));
+        StringBuilder builder = prefixed(length(resource) + length(targetResource));
 
-        builder.append(url(targetResource).replace(PathHolder.get(), ""));
+        path(builder, resource);
 
-        return builder.toString();
+        return path(builder, targetResource).toString();
 
     }
 
     /**
-     * Sets the host to the URL. In case the URL already has a host, it changes.
+     * Gets the compiled path of a resource class.
      * 
-     * @param url
-     *            a URL or path as string.
+     * @param resourceClass
+     *            the resources class.
      * 
-     * @param host
-     *            the new host.
+     * @return the compiled path.
      * 
-     * @return an URL with the new host.
+     * @throws UrlBuildException
+     *             if the class has no path.
      */
-    public static String host(String url, String host) {
+    private static PathTemplate template(Class<? extends SailResource> resourceClass) {
+
+        PathTemplate template = ClassMetadata.of(resourceClass).getPathTemplate();
 
-        try {
+        if (template == null) {
 
-            URL wrapper = new URL(url);
+            StringBuilder builder = new StringBuilder("The resource class ").append(resourceClass.getName())
+                    .append(" is not annotated with @").append(Path.class.getName())
+                    .append(" or the Path value is empty");
+
+            throw new UrlBuildException(builder.toString());
+        }
 
-            String replace = wrapper.getHost();
+        return template;
+    }
 
-            if (wrapper.getPort() != -1) {
-                replace += ":" + wrapper.getPort();
-            }
+    /**
+     * Creates a buffer holding the path set for the current request.
+     * 
+     * @param length
+     *            the expected length of what follows the path.
+     * 
+     * @return the buffer.
+     */
+    private static StringBuilder prefixed(int length) {
 
-            return url.replaceFirst(replace, host);
+        String prefix = PathHolder.get();
 
-        } catch (MalformedURLException e) {
+        return new StringBuilder(prefix.length() + length).append(prefix);
+    }
 
-            return host + url;
+    /**
+     * Appends a resource class path.
+     */
+    private static StringBuilder path(StringBuilder builder, Class<? extends SailResource> resourceClass,
+            Object... values) {
+
+        return template(resourceClass).expand(builder, values);
+    }
+
+    /**
+     * Appends a specific resource path.
+     */
+    private static StringBuilder path(StringBuilder builder, SailResource resource, Object... values) {
+
+        path(builder, type(resource), values);
+
+        if (resource.getId() != null) {
+            builder.append(SLASH).append(resource.getId());
+        }
+
+        return builder;
+    }
+
+    /**
+     * An estimation of a specific resource path length.
+     */
+    private static int length(SailResource resource) {
+
+        int length = template(type(resource)).length();
+
+        if (resource.getId() != null) {
+            length += resource.getId().length() + 1;
         }
+
+        return length;
+    }
+
+    /**
+     * The class whose path identifies a resource. For lists is the type of
+     * resources in it.
+     */
+    private static Class<? extends SailResource> type(SailResource resource) {
+
+        if (resource instanceof SailResourceList) {
+            return ((SailResourceList<?>) resource).resourceType();
+        }
+
+        return resource.getClass();
+    }
+
+    /**
+     * Sets the host to the URL. In case the URL already has a host, it changes
+     * (the port is removed).
+     * 
+     * @param url
+     *            a URL or path as string.
+     * 
+     * @param host
+     *            the new host.
+     * 
+     * @return an URL with the new host.
+     */
+    public static String host(String url, String host) {
+
+        return UrlParts.parse(url).withHost(host);
     }
 
     /**
@@ -202,23 +240,11 @@ public class UrlBuilder {
      * @param protocol
      *            the new host.
      * 
-     * @return an URL with the new protocol or an empty string if the url is not
-     *         valid.
+     * @return an URL with the new protocol.
      */
     public static String protocol(String url, String protocol) {
 
-        try {
-
-            if (url.contains(PROTOCOL_LIMIT)) {
-                return url.replaceFirst(new URL(url).getProtocol(), protocol);
-            }
-
-            return new StringBuilder(protocol).append(PROTOCOL_LIMIT).append(url).toString();
-
-        } catch (MalformedURLException e) {
-
-            return "";
-        }
+        return UrlParts.parse(url).withScheme(protocol);
     }
 
 }
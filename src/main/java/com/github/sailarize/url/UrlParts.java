@@ -0,0 +1,262 @@
+package com.github.sailarize.url;
+
+/**
+ * The boundaries of the parts of a URL (scheme, authority, host, path and
+ * query), found in a single pass without copying it, so parts can be
+ * replaced by splicing.
+ * <p>
+ * Supports absolute URLs (http://host:port/path?query), protocol relative
+ * ones (//host/path) and paths (/path or host/path, which have no authority).
+ * 
+ * @author agusmunioz
+ *
+ */
+public final class UrlParts {
+
+    private static final String AUTHORITY = "//";
+
+    private final String url;
+
+    private final int schemeEnd;
+
+    private final int hostStart;
+
+    private final int hostEnd;
+
+    private final int authorityEnd;
+
+    private final int queryStart;
+
+    private UrlParts(String url, int schemeEnd, int hostStart, int hostEnd, int authorityEnd, int queryStart) {
+
+        this.url = url;
+        this.schemeEnd = schemeEnd;
+        this.hostStart = hostStart;
+        this.hostEnd = hostEnd;
+        this.authorityEnd = authorityEnd;
+        this.queryStart = queryStart;
+    }
+
+    /**
+     * Splits a URL.
+     * 
+     * @param url
+     *            the URL.
+     * 
+     * @return the URL parts.
+     */
+    public static UrlParts parse(String url) {
+
+        int length = url.length();
+
+        int schemeEnd = scheme(url);
+
+        int authorityStart = -1;
+
+        if (schemeEnd > 0 && url.startsWith(AUTHORITY, schemeEnd + 1)) {
+            authorityStart = schemeEnd + 3;
+        } else if (schemeEnd < 0 && url.startsWith(AUTHORITY)) {
+            authorityStart = 2;
+        }
+
+        int hostStart = -1;
+        int hostEnd = -1;
+        int authorityEnd = -1;
+
+        int pathStart = schemeEnd < 0 ? 0 : schemeEnd + 1;
+
+        if (authorityStart >= 0) {
+
+            authorityEnd = authorityStart;
+
+            while (authorityEnd < length && !delimiter(url.charAt(authorityEnd))) {
+                authorityEnd++;
+            }
+
+            hostStart = url.lastIndexOf('@', authorityEnd - 1) + 1;
+
+            if (hostStart < authorityStart) {
+                hostStart = authorityStart;
+            }
+
+            hostEnd = hostStart;
+
+            if (hostEnd < authorityEnd && url.charAt(hostEnd) == '[') {
+
+                int bracket = url.indexOf(']', hostEnd);
+                hostEnd = bracket < 0 || bracket >= authorityEnd ? authorityEnd : bracket + 1;
+
+            } else {
+
+                while (hostEnd < authorityEnd && url.charAt(hostEnd) != ':') {
+                    hostEnd++;
+                }
+            }
+
+            pathStart = authorityEnd;
+        }
+
+        int queryStart = url.indexOf('?', pathStart);
+
+        return new UrlParts(url, schemeEnd, hostStart, hostEnd, authorityEnd, queryStart);
+    }
+
+    /**
+     * Finds the colon ending a valid scheme (a letter followed by letters,
+     * digits, +, - or .).
+     * 
+     * @return the colon position or -1 if there is no scheme.
+     */
+    private static int scheme(String url) {
+
+        int length = url.length();
+
+        if (length == 0 || !letter(url.charAt(0))) {
+            return -1;
+        }
+
+        for (int i = 1; i < length; i++) {
+
+            char c = url.charAt(i);
+
+            if (c == ':') {
+                return url.startsWith(AUTHORITY, i + 1) ? i : -1;
+            }
+
+            if (!letter(c) && !(c >= '0' && c <= '9') && c != '+' && c != '-' && c != '.') {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean letter(char c) {
+
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean delimiter(char c) {
+
+        return c == '/' || c == '?' || c == '#';
+    }
+
+    /**
+     * Determines if the URL has a scheme (e.g. http://).
+     * 
+     * @return true if it has.
+     */
+    public boolean hasScheme() {
+
+        return this.schemeEnd > 0;
+    }
+
+    /**
+     * Determines if the URL has an authority, absolute or protocol relative.
+     * 
+     * @return true if it has.
+     */
+    public boolean hasAuthority() {
+
+        return this.authorityEnd >= 0;
+    }
+
+    /**
+     * The URL scheme.
+     * 
+     * @return the scheme or null if there is none.
+     */
+    public String getScheme() {
+
+        return this.hasScheme() ? this.url.substring(0, this.schemeEnd) : null;
+    }
+
+    /**
+     * The URL host, without user info nor port.
+     * 
+     * @return the host or null if there is no authority.
+     */
+    public String getHost() {
+
+        return this.hasAuthority() ? this.url.substring(this.hostStart, this.hostEnd) : null;
+    }
+
+    /**
+     * The URL path (it could be empty).
+     * 
+     * @return the path.
+     */
+    public String getPath() {
+
+        int start = this.hasAuthority() ? this.authorityEnd : 0;
+
+        int end = this.queryStart < 0 ? this.url.length() : this.queryStart;
+
+        return this.url.substring(start, end);
+    }
+
+    /**
+     * The URL query, without the question mark.
+     * 
+     * @return the query or null if there is none.
+     */
+    public String getQuery() {
+
+        if (this.queryStart < 0) {
+            return null;
+        }
+
+        int end = this.url.indexOf('#', this.queryStart);
+
+        return this.url.substring(this.queryStart + 1, end < 0 ? this.url.length() : end);
+    }
+
+    /**
+     * Replaces the host and port of the URL. If the URL has no authority, the
+     * host is prepended.
+     * 
+     * @param host
+     *            the new host (could include a port).
+     * 
+     * @return the new URL.
+     */
+    public String withHost(String host) {
+
+        if (!this.hasAuthority()) {
+            return new StringBuilder(host.length() + this.url.length()).append(host).append(this.url).toString();
+        }
+
+        return new StringBuilder(this.url.length() + host.length()).append(this.url, 0, this.hostStart)
+                .append(host).append(this.url, this.authorityEnd, this.url.length()).toString();
+    }
+
+    /**
+     * Replaces the scheme of the URL. If the URL has no scheme, it is prepended
+     * (just the colon for protocol relative URLs).
+     * 
+     * @param scheme
+     *            the new scheme.
+     * 
+     * @return the new URL.
+     */
+    public String withScheme(String scheme) {
+
+        StringBuilder builder = new StringBuilder(scheme.length() + this.url.length() + 3).append(scheme);
+
+        if (this.hasScheme()) {
+            return builder.append(this.url, this.schemeEnd, this.url.length()).toString();
+        }
+
+        if (this.hasAuthority()) {
+            return builder.append(':').append(this.url).toString();
+        }
+
+        return builder.append("://").append(this.url).toString();
+    }
+
+    @Override
+    public String toString() {
+
+        return this.url;
+    }
+}
@@ -11,7 +11,8 @@ import java.lang.annotation.Annotation;
 public class Annotations {
 
     /**
-     * Searches a annotation recursively.
+     * Searches a annotation recursively. The result is resolved once per class
+     * (see {@link ClassMetadata}).
      * 
      * @param target
      *            the annotated class or a subclass.
@@ -23,19 +24,6 @@ public class Annotations {
      */
     public static <T extends Annotation> T search(Class<?> target, Class<T> annotationClass) {
 
-        Class<?> type = target;
-
-        while (!Object.class.equals(type)) {
-
-            T annotation = type.getAnnotation(annotationClass);
-
-            if (annotation != null) {
-                return annotation;
-            }
-
-            type = type.getSuperclass();
-        }
-
-        return null;
+        return ClassMetadata.of(target).annotation(annotationClass);
     }
 }
@@ -0,0 +1,291 @@
+package com.github.sailarize.utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.github.sailarize.mediatype.MediaTypeBuilder;
+import com.github.sailarize.resource.Path;
+import com.github.sailarize.resource.Version;
+import com.github.sailarize.url.PathTemplate;
+
+/**
+ * Reflection metadata of a class, resolved once per class and shared by every
+ * utility that needs it (annotations search, URL and media type building,
+ * pretty printing and serialization).
+ * <p>
+ * Fields are resolved and made accessible the first time they are asked for.
+ * Fields declared by platform classes (java.*, javax.*, etc.) are never
+ * opened nor returned. Arrays returned by this class are shared and must not
+ * be modified.
+ * 
+ * @author agusmunioz
+ *
+ */
+public final class ClassMetadata {
+
+    private static final ClassValue<ClassMetadata> REGISTRY = new ClassValue<ClassMetadata>() {
+
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+
+            return new ClassMetadata(type);
+        }
+    };
+
+    /**
+     * Marks an annotation that is not present in the hierarchy.
+     */
+    private static final Object NONE = new Object();
+
+    private static final String[] PLATFORM = { "java.", "javax.", "jdk.", "sun.", "com.sun." };
+
+    private final Class<?> type;
+
+    private final ConcurrentMap<Class<?>, Object> annotations = new ConcurrentHashMap<Class<?>, Object>();
+
+    private final String path;
+
+    private final PathTemplate pathTemplate;
+
+    private final String version;
+
+    private final String mediaType;
+
+    private volatile Field[] fields;
+
+    private volatile Field[] properties;
+
+    private ClassMetadata(Class<?> type) {
+
+        this.type = type;
+
+        Path path = this.annotation(Path.class);
+
+        this.path = path == null ? null : path.value();
+        this.pathTemplate = this.path == null || this.path.isEmpty() ? null : PathTemplate.compile(this.path);
+
+        Version version = this.annotation(Version.class);
+
+        this.version = version == null ? null : version.value();
+        this.mediaType = MediaTypeBuilder.build(this.version);
+    }
+
+    /**
+     * Gets the metadata of a class.
+     * 
+     * @param type
+     *            the class.
+     * 
+     * @return the metadata.
+     */
+    public static ClassMetadata of(Class<?> type) {
+
+        return REGISTRY.get(type);
+    }
+
+    /**
+     * Determines if a class belongs to the Java platform, so its internals
+     * must not be reflected.
+     * 
+     * @param type
+     *            the class.
+     * 
+     * @return true for platform classes.
+     */
+    public static boolean isPlatform(Class<?> type) {
+
+        if (type.isPrimitive()) {
+            return true;
+        }
+
+        String name = type.getName();
+
+        for (String prefix : PLATFORM) {
+
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Searches an annotation in the class or any of its superclasses.
+     * 
+     * @param annotationClass
+     *            the type of annotation searched.
+     * 
+     * @return the annotation or null if not found.
+     */
+    public <T extends Annotation> T annotation(Class<T> annotationClass) {
+
+        Object annotation = this.annotations.get(annotationClass);
+
+        if (annotation == null) {
+
+            annotation = this.search(annotationClass);
+
+            this.annotations.putIfAbsent(annotationClass, annotation == null ? NONE : annotation);
+
+        } else if (annotation == NONE) {
+
+            return null;
+        }
+
+        return annotationClass.cast(annotation);
+    }
+
+    private <T extends Annotation> T search(Class<T> annotationClass) {
+
+        Class<?> current = this.type;
+
+        while (current != null && current != Object.class) {
+
+            T annotation = current.getAnnotation(annotationClass);
+
+            if (annotation != null) {
+                return annotation;
+            }
+
+            current = current.getSuperclass();
+        }
+
+        return null;
+    }
+
+    /**
+     * The class the metadata is about.
+     * 
+     * @return the class.
+     */
+    public Class<?> getType() {
+
+        return type;
+    }
+
+    /**
+     * The {@link Path} value of the class or any of its superclasses.
+     * 
+     * @return the path or null if not annotated.
+     */
+    public String getPath() {
+
+        return path;
+    }
+
+    /**
+     * The compiled {@link Path} of the class or any of its superclasses.
+     * 
+     * @return the compiled path or null if not annotated or empty.
+     */
+    public PathTemplate getPathTemplate() {
+
+        return pathTemplate;
+    }
+
+    /**
+     * The {@link Version} value of the class or any of its superclasses.
+     * 
+     * @return the version or null if not annotated.
+     */
+    public String getVersion() {
+
+        return version;
+    }
+
+    /**
+     * The Sail media type of the class, including its version if any.
+     * 
+     * @return the media type.
+     */
+    public String getMediaType() {
+
+        return mediaType;
+    }
+
+    /**
+     * The instance fields of the class, class fields first and then its
+     * superclasses' ones, already accessible.
+     * 
+     * @return the fields.
+     */
+    public Field[] getFields() {
+
+        Field[] fields = this.fields;
+
+        if (fields == null) {
+            fields = this.resolve(false);
+            this.fields = fields;
+        }
+
+        return fields;
+    }
+
+    /**
+     * The instance fields that hold the class state (neither transient nor
+     * synthetic), superclasses' fields first, already accessible.
+     * 
+     * @return the fields.
+     */
+    public Field[] getProperties() {
+
+        Field[] properties = this.properties;
+
+        if (properties == null) {
+            properties = this.resolve(true);
+            this.properties = properties;
+        }
+
+        return properties;
+    }
+
+    /**
+     * Resolves the instance fields of the application classes in the
+     * hierarchy and makes them accessible, skipping the ones that can not be.
+     * 
+     * @param state
+     *            true for the state fields only, in properties order.
+     */
+    private Field[] resolve(boolean state) {
+
+        LinkedList<Field> fields = new LinkedList<Field>();
+
+        Class<?> current = this.type;
+
+        while (current != null && current != Object.class && !isPlatform(current)) {
+
+            int position = 0;
+
+            for (Field field : current.getDeclaredFields()) {
+
+                int modifiers = field.getModifiers();
+
+                if (Modifier.isStatic(modifiers)
+                        || (state && (Modifier.isTransient(modifiers) || field.isSynthetic()))) {
+                    continue;
+                }
+
+                try {
+                    field.setAccessible(true);
+                } catch (RuntimeException e) {
+                    continue;
+                }
+
+                if (state) {
+                    fields.add(position++, field);
+                } else {
+                    fields.add(field);
+                }
+            }
+
+            current = current.getSuperclass();
+        }
+
+        return fields.toArray(new Field[fields.size()]);
+    }
+}
@@ -1,7 +1,6 @@
 package com.github.sailarize.utils;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 
 /**
  * Utility class for generating a pretty print of an object.
@@ -25,26 +24,15 @@ public class ToStringBuilder {
 
         StringBuilder builder = new StringBuilder(type.getSimpleName()).append(": [");
 
-        while (type != Object.class) {
+        Field[] fields = ClassMetadata.of(type).getFields();
 
-            for (Field field : type.getDeclaredFields()) {
+        for (int i = 0; i < fields.length; i++) {
 
-                if (!Modifier.isStatic(field.getModifiers())) {
-
-                    field.setAccessible(true);
-
-                    builder.append(field.getName()).append(": ").append(getValue(object, field)).append(", ");
-
-                }
+            if (i > 0) {
+                builder.append(", ");
             }
 
-            type = type.getSuperclass();
-        }
-
-        int delete = builder.lastIndexOf(",");
-
-        if (delete > 0) {
-            builder.delete(delete, delete + 2);
+            builder.append(fields[i].getName()).append(": ").append(getValue(object, fields[i]));
         }
 
         return builder.append("]").toString();
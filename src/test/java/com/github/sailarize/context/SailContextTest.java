@@ -0,0 +1,143 @@
+package com.github.sailarize.context;
+
+import java.util.Collection;
+import java.util.LinkedList;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sailarize.http.Header;
+import com.github.sailarize.http.HeaderHolder;
+import com.github.sailarize.http.ParameterHolder;
+import com.github.sailarize.url.PathHolder;
+
+/**
+ * Unit test for {@link SailContext}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class SailContextTest {
+
+    @After
+    public void clean() {
+
+        SailContext.clean();
+    }
+
+    /**
+     * Test the holders read and write the current context.
+     */
+    @Test
+    public void holders() {
+
+        PathHolder.set("http://api.com");
+
+        Assert.assertEquals("Path not set in the context", "http://api.com", SailContext.current().getPath());
+
+        SailContext.set(SailContext.current().withPath("http://other.com"));
+
+        Assert.assertEquals("Path holder not reading the context", "http://other.com", PathHolder.get());
+    }
+
+    /**
+     * Test a context is never modified by the holders.
+     */
+    @Test
+    public void immutable() {
+
+        PathHolder.set("http://api.com");
+
+        SailContext context = SailContext.current();
+
+        ParameterHolder.get().add("site", "AR");
+
+        Assert.assertNull("Context modified", context.getParameters());
+        Assert.assertNotSame("Context not replaced", context, SailContext.current());
+    }
+
+    /**
+     * Test the context keeps its own unmodifiable copy of the headers.
+     */
+    @Test
+    public void headers() {
+
+        Collection<Header> headers = new LinkedList<Header>();
+        headers.add(new Header("X-Client", "web"));
+
+        SailContext context = SailContext.builder().headers(headers).build();
+
+        headers.add(new Header("X-Other", "1"));
+
+        Assert.assertEquals("Context headers changed", 1, context.getHeaders().size());
+
+        try {
+            context.getHeaders().clear();
+            Assert.fail("Context headers modifiable");
+        } catch (UnsupportedOperationException e) {
+            // Expected.
+        }
+
+        context.attach();
+
+        HeaderHolder.add(new Header("X-Other", "1"));
+
+        Assert.assertEquals("Header not added", 2, HeaderHolder.get().size());
+        Assert.assertEquals("Context modified", 1, context.getHeaders().size());
+    }
+
+    /**
+     * Test the headers got from the holder can still be changed, writing the
+     * change into a new context.
+     */
+    @Test
+    public void holderHeaders() {
+
+        PathHolder.set("http://api.com");
+
+        SailContext context = SailContext.current();
+
+        HeaderHolder.get().add(new Header("X-Client", "web"));
+        HeaderHolder.get().add(new Header("X-Other", "1"));
+
+        Assert.assertEquals("Headers not added", "X-Client, X-Other", names(HeaderHolder.get()));
+        Assert.assertNull("Context modified", context.getHeaders());
+
+        HeaderHolder.get().remove(SailContext.current().getHeaders().iterator().next());
+
+        Assert.assertEquals("Header not removed", "X-Other", names(HeaderHolder.get()));
+
+        HeaderHolder.get().clear();
+
+        Assert.assertTrue("Headers not cleared", SailContext.current().getHeaders().isEmpty());
+    }
+
+    private static String names(Collection<Header> headers) {
+
+        StringBuilder names = new StringBuilder();
+
+        for (Header header : headers) {
+
+            if (names.length() > 0) {
+                names.append(", ");
+            }
+
+            names.append(header.getName());
+        }
+
+        return names.toString();
+    }
+
+    /**
+     * Test cleaning every value leaves no context.
+     */
+    @Test
+    public void cleanHolders() {
+
+        PathHolder.set("http://api.com");
+        PathHolder.clean();
+
+        Assert.assertSame("Context not cleaned", SailContext.EMPTY, SailContext.current());
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.sailarize.context;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.sailarize.url.PathHolder;
+
+/**
+ * Unit test for {@link SailContexts}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class SailContextsTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void init() {
+
+        this.executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void clean() {
+
+        this.executor.shutdownNow();
+        SailContext.clean();
+    }
+
+    /**
+     * Test a task submitted to a wrapped executor service runs under the
+     * submitter context and the pooled thread is left clean.
+     */
+    @Test
+    public void executorService() throws Exception {
+
+        ExecutorService wrapped = SailContexts.executorService(this.executor);
+
+        PathHolder.set("http://api.com");
+
+        Assert.assertEquals("Context not propagated", "http://api.com", wrapped.submit(path()).get());
+
+        Assert.assertEquals("Context leaked in the pooled thread", "", this.executor.submit(path()).get());
+    }
+
+    /**
+     * Test completable future stages run under the context that created them.
+     */
+    @Test
+    public void completableFuture() throws Exception {
+
+        PathHolder.set("http://api.com");
+
+        String path = CompletableFuture.supplyAsync(SailContexts.supplier(new Supplier<String>() {
+
+            @Override
+            public String get() {
+                return PathHolder.get();
+            }
+
+        }), this.executor).get();
+
+        Assert.assertEquals("Context not propagated", "http://api.com", path);
+
+        Assert.assertEquals("Context leaked in the pooled thread", "", this.executor.submit(path()).get());
+    }
+
+    private static Callable<String> path() {
+
+        return new Callable<String>() {
+
+            @Override
+            public String call() {
+                return PathHolder.get();
+            }
+        };
+    }
+}
@@ -0,0 +1,213 @@
+package com.github.sailarize.facet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sailarize.form.Form;
+import com.github.sailarize.form.MultiSelectInput;
+import com.github.sailarize.form.Option;
+import com.github.sailarize.form.SelectInput;
+import com.github.sailarize.link.HypermediaLink;
+import com.github.sailarize.mock.SailMockResource;
+import com.github.sailarize.resource.SailTags;
+import com.github.sailarize.url.Filter;
+
+/**
+ * Unit test for {@link FacetBuilder}.
+ *
+ * @author agusmunioz
+ *
+ */
+public class FacetBuilderTest {
+
+    private static final String LINKS = SailTags.LINKS + SailTags.KEY + FacetBuilder.GROUP + SailTags.KEY + "brand";
+
+    /**
+     * Tests options are built by count, without empty ones, up to the top
+     * amount and with a link to the rest.
+     */
+    @Test
+    public void top() {
+
+        SailMockResource resource = new SailMockResource("1");
+
+        FacetBuilder.facet("brand")
+                .inclusive("fiat", "audi", "ford", "kia", "seat")
+                .counts(5, 20, 0, 20, 7)
+                .byCount()
+                .dropEmpty()
+                .top(2)
+                .more("More")
+                .build(resource);
+
+        Collection<HypermediaLink> links = resource.getLinks().get(LINKS);
+
+        Assert.assertEquals("Unexpected rels", Arrays.asList("brandAudi", "brandKia", "more#brand"), rels(links));
+
+        HypermediaLink audi = links.iterator().next();
+
+        Assert.assertEquals("Unexpected count", "20", audi.getData().get("data-" + FacetBuilder.COUNT));
+
+        HypermediaLink more = new ArrayList<HypermediaLink>(links).get(2);
+
+        Assert.assertTrue("Unexpected more href " + more.getHref(), more.getHref().endsWith("?brandOffset=2"));
+    }
+
+    /**
+     * Tests the offset continues the ranking and the more link disappears at
+     * the end.
+     */
+    @Test
+    public void offset() {
+
+        SailMockResource resource = new SailMockResource("1");
+
+        FacetBuilder.facet("brand")
+                .inclusive("fiat", "audi", "ford", "kia", "seat")
+                .counts(5, 20, 0, 20, 7)
+                .byCount()
+                .dropEmpty()
+                .top(2)
+                .offset(2)
+                .more("More")
+                .build(resource);
+
+        Assert.assertEquals("Unexpected rels", Arrays.asList("brandSeat", "brandFiat"),
+                rels(resource.getLinks().get(LINKS)));
+    }
+
+    /**
+     * Tests the top options are selected by count, ties in the given order.
+     */
+    @Test
+    public void ranking() {
+
+        long[] counts = { 3, 9, 3, 1, 9, 0 };
+
+        int[] positions = { 0, 1, 2, 3, 4, 5 };
+
+        Assert.assertArrayEquals("Unexpected top", new int[] { 1, 4, 0 },
+                CountRanking.top(positions, positions.length, counts, 3));
+
+        Assert.assertArrayEquals("Unexpected ranking", new int[] { 1, 4, 0, 2, 3, 5 },
+                CountRanking.top(positions, positions.length, counts, 10));
+    }
+
+    /**
+     * Tests the compact mode builds a single form with the options, the
+     * applied one selected and the other facets filters in the action.
+     */
+    @Test
+    public void compact() {
+
+        SailMockResource resource = new SailMockResource("1");
+
+        FacetBuilder.facet("brand")
+                .inclusive("fiat", "audi")
+                .counts(5, 20)
+                .filter("brand", "audi")
+                .filter("color", "red")
+                .compact()
+                .build(resource);
+
+        Assert.assertNull("Unexpected option links",
+                resource.getLinks() == null ? null : resource.getLinks().get(LINKS));
+
+        Collection<Form> forms = resource.getForms().get(SailTags.FORMS + SailTags.KEY + FacetBuilder.GROUP);
+
+        Assert.assertEquals("Unexpected forms", 1, forms.size());
+
+        Form form = forms.iterator().next();
+
+        Assert.assertEquals("Unexpected id", "brand", form.getId());
+        Assert.assertTrue("Unexpected action " + form.getAction(), form.getAction().endsWith("?color=red"));
+
+        SelectInput input = (SelectInput) form.getInputs().iterator().next();
+
+        Assert.assertTrue("Unexpected input", input instanceof MultiSelectInput);
+        Assert.assertEquals("Unexpected input name", "brand", input.getName());
+
+        List<Option> options = new ArrayList<Option>(input.getOptions());
+
+        Assert.assertEquals("Unexpected options", 2, options.size());
+        Assert.assertEquals("Unexpected value", "fiat", options.get(0).getValue());
+        Assert.assertFalse("Unexpected selected", Boolean.TRUE.equals(options.get(0).getSelected()));
+        Assert.assertEquals("Unexpected value", "audi", options.get(1).getValue());
+        Assert.assertTrue("Unexpected selected", options.get(1).getSelected());
+        Assert.assertEquals("Unexpected count", 20L, options.get(1).getData().get("data-" + FacetBuilder.COUNT));
+        Assert.assertEquals("Unexpected refines", "false", options.get(1).getData().get("data-refines"));
+    }
+
+    /**
+     * Tests options that override the filters methods of the
+     * {@link FacetOption} interface are honored.
+     */
+    @Test
+    public void overridden() {
+
+        SailMockResource resource = new SailMockResource("1");
+
+        FacetBuilder.facet("brand")
+                .options(Arrays.<FacetOption> asList(new ModelOption("brand", "fiat"), new KeepOption("brand", "audi")))
+                .filter("brand", "kia")
+                .build(resource);
+
+        List<HypermediaLink> links = new ArrayList<HypermediaLink>(resource.getLinks().get(LINKS));
+
+        Assert.assertTrue("Override not applied " + links.get(0).getHref(),
+                links.get(0).getHref().endsWith("?brand=fiat&model=uno"));
+        Assert.assertTrue("Compatibility override not applied " + links.get(1).getHref(),
+                links.get(1).getHref().endsWith("?brand=kia&brand=audi"));
+    }
+
+    /**
+     * An option that adds one more filter.
+     */
+    private static class ModelOption extends ExclusiveFacetOption {
+
+        public ModelOption(String facet, String value) {
+
+            super(facet, value);
+        }
+
+        @Override
+        public void apply(Collection<Filter> filters) {
+
+            super.apply(filters);
+            filters.add(new Filter("model", "uno"));
+        }
+    }
+
+    /**
+     * An exclusive option that keeps the other values of the facet.
+     */
+    private static class KeepOption extends ExclusiveFacetOption {
+
+        public KeepOption(String facet, String value) {
+
+            super(facet, value);
+        }
+
+        @Override
+        protected boolean isCompatible(Filter filter) {
+
+            return true;
+        }
+    }
+
+    private static List<String> rels(Collection<HypermediaLink> links) {
+
+        List<String> rels = new ArrayList<String>();
+
+        for (HypermediaLink link : links) {
+            rels.add(link.getRel());
+        }
+
+        return rels;
+    }
+}
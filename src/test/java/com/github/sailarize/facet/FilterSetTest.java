@@ -0,0 +1,93 @@
+package com.github.sailarize.facet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sailarize.url.Filter;
+
+/**
+ * Unit test for {@link FilterSet} and the facet options working over it.
+ *
+ * @author agusmunioz
+ *
+ */
+public class FilterSetTest {
+
+    private static final Filter FIAT = new Filter("brand", "fiat");
+
+    private static final Filter AUDI = new Filter("brand", "audi");
+
+    private static final Filter RED = new Filter("color", "red");
+
+    /**
+     * Tests derived sets keep the order and do not change the original.
+     */
+    @Test
+    public void overlays() {
+
+        FilterSet filters = FilterSet.of(Arrays.asList(FIAT, RED, AUDI));
+
+        Assert.assertEquals("Unexpected without name", Arrays.asList(RED), list(filters.without("brand")));
+        Assert.assertEquals("Unexpected without filter", Arrays.asList(FIAT, RED),
+                list(filters.without("brand", "audi")));
+        Assert.assertEquals("Unexpected only", Arrays.asList(RED), list(filters.only(Arrays.asList("color"))));
+
+        FilterSet applied = filters.without("color").with(RED);
+
+        Assert.assertEquals("Unexpected with", Arrays.asList(FIAT, AUDI, RED), list(applied));
+        Assert.assertTrue("Unexpected containment", applied.contains("color", "red"));
+        Assert.assertEquals("Unexpected size", 3, applied.size());
+        Assert.assertEquals("Original changed", Arrays.asList(FIAT, RED, AUDI), list(filters));
+    }
+
+    /**
+     * Tests only the first occurrence of a filter is removed, as
+     * {@link java.util.Collection#remove(Object)} does.
+     */
+    @Test
+    public void withoutFirst() {
+
+        FilterSet filters = FilterSet.of(Arrays.asList(FIAT, RED, FIAT));
+
+        Assert.assertEquals("Unexpected filters", Arrays.asList(RED, FIAT), list(filters.without(FIAT)));
+    }
+
+    /**
+     * Tests options get the same filters from a set than from a list.
+     */
+    @Test
+    public void options() {
+
+        List<Filter> list = Arrays.asList(FIAT, RED, AUDI);
+
+        FilterSet set = FilterSet.of(list);
+
+        IsolatedFacetOption isolated = new IsolatedFacetOption("brand", "fiat");
+        isolated.retain("color");
+
+        BaseFacetOption[] options = { new ExclusiveFacetOption("brand", "fiat"),
+                new InclusiveFacetOption("brand", "fiat"), new ClearFacetOption("brand", "fiat"), isolated };
+
+        for (BaseFacetOption option : options) {
+
+            Assert.assertEquals("Unexpected compatibles for " + option, list(option.compatibles(list)),
+                    list(option.compatibles(set)));
+            Assert.assertEquals("Unexpected applied for " + option, option.isApplied(list), option.isApplied(set));
+        }
+    }
+
+    private static List<Filter> list(Iterable<Filter> filters) {
+
+        List<Filter> list = new ArrayList<Filter>();
+
+        for (Filter filter : filters) {
+            list.add(filter);
+        }
+
+        return list;
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.sailarize.facet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sailarize.link.HypermediaLink;
+import com.github.sailarize.mock.SailMockResource;
+import com.github.sailarize.resource.SailTags;
+
+/**
+ * Unit test for {@link RangeFacetBuilder} and {@link RangeBins}.
+ *
+ * @author agusmunioz
+ *
+ */
+public class RangeFacetBuilderTest {
+
+    private static final String LINKS = SailTags.LINKS + SailTags.KEY + FacetBuilder.GROUP + SailTags.KEY + "price";
+
+    /**
+     * Tests values are binned with the last edge included and out of range
+     * values ignored.
+     */
+    @Test
+    public void count() {
+
+        double[] edges = { 0, 10, 20 };
+
+        Assert.assertArrayEquals("Unexpected counts", new long[] { 2, 2 },
+                RangeBins.count(edges, new double[] { 0, 9.9, 10, 20, 21, -1, Double.NaN }, null));
+    }
+
+    /**
+     * Tests nice edges are rounded to 1, 2 or 5 times a power of ten.
+     */
+    @Test
+    public void nice() {
+
+        Assert.assertArrayEquals("Unexpected edges", new double[] { 0, 200, 400, 600, 800, 1000 },
+                RangeBins.nice(13, 987, 5), 0);
+
+        Assert.assertArrayEquals("Unexpected decimal edges", new double[] { 0.2, 0.3, 0.4 },
+                RangeBins.nice(0.23, 0.37, 2), 0);
+    }
+
+    /**
+     * Tests quantile edges split values evenly.
+     */
+    @Test
+    public void quantiles() {
+
+        long[] values = new long[100];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i < 50 ? i : 1000 + i;
+        }
+
+        double[] edges = RangeBins.quantiles(null, values, 2);
+
+        Assert.assertEquals("Unexpected amount of edges " + Arrays.toString(edges), 3, edges.length);
+        Assert.assertArrayEquals("Unexpected counts " + Arrays.toString(edges), new long[] { 50, 50 },
+                RangeBins.count(edges, null, values));
+    }
+
+    /**
+     * Tests an amount of ranges less than one is rejected.
+     */
+    @Test
+    public void bins() {
+
+        for (int bins : new int[] { 0, -1 }) {
+
+            try {
+                RangeFacetBuilder.facet("price").quantiles(bins);
+                Assert.fail("Quantiles accepted " + bins + " ranges");
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+
+            try {
+                RangeFacetBuilder.facet("price").nice(bins);
+                Assert.fail("Nice accepted " + bins + " ranges");
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+    }
+
+    /**
+     * Tests links are built for each range with counts and bounds, keeping an
+     * applied range that is not computed.
+     */
+    @Test
+    public void build() {
+
+        SailMockResource resource = new SailMockResource("1");
+
+        RangeFacetBuilder.facet("price")
+                .filter("price", "5-15")
+                .values(new long[] { 120, 130, 250, 310, 330, 340 })
+                .fixed(100, 200, 300, 400)
+                .build(resource);
+
+        List<HypermediaLink> links = new ArrayList<HypermediaLink>(resource.getLinks().get(LINKS));
+
+        List<String> rels = new ArrayList<String>();
+
+        for (HypermediaLink link : links) {
+            rels.add(link.getRel());
+        }
+
+        Assert.assertEquals("Unexpected rels",
+                Arrays.asList(FacetBuilder.CLEAN + "price5-15", "price100-200", "price200-300", "price300-400"),
+                rels);
+
+        Assert.assertEquals("Unexpected count", "3", links.get(3).getData().get("data-count"));
+        Assert.assertEquals("Unexpected min", "300", links.get(3).getData().get("data-min"));
+        Assert.assertTrue("Unexpected href " + links.get(1).getHref(),
+                links.get(1).getHref().endsWith("?price=100-200"));
+    }
+}
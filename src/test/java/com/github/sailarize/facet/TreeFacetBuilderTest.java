@@ -0,0 +1,96 @@
+package com.github.sailarize.facet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sailarize.link.HypermediaLink;
+import com.github.sailarize.mock.SailMockResource;
+import com.github.sailarize.resource.SailTags;
+
+/**
+ * Unit test for {@link TreeFacetBuilder} and {@link FacetTree}.
+ *
+ * @author agusmunioz
+ *
+ */
+public class TreeFacetBuilderTest {
+
+    private static final String LINKS = SailTags.LINKS + SailTags.KEY + FacetBuilder.GROUP + SailTags.KEY
+            + "category";
+
+    private static final FacetTree TREE = FacetTree.builder("category")
+            .node("cars", null)
+            .node("bikes", null)
+            .node("sedan", "cars")
+            .node("suv", "cars")
+            .node("compact", "sedan")
+            .node("road", "bikes")
+            .build();
+
+    /**
+     * Tests the tree structure.
+     */
+    @Test
+    public void tree() {
+
+        int sedan = TREE.indexOf("sedan");
+
+        Assert.assertEquals("Unexpected roots", 2, TREE.getChildCount(FacetTree.ROOT));
+        Assert.assertEquals("Unexpected parent", "cars", TREE.getValue(TREE.getParent(sedan)));
+        Assert.assertEquals("Unexpected depth", 2, TREE.getDepth(TREE.indexOf("compact")));
+        Assert.assertEquals("Unexpected child", "compact", TREE.getValue(TREE.getChild(sedan, 0)));
+        Assert.assertEquals("Unexpected missing node", FacetTree.ROOT, TREE.indexOf("trucks"));
+    }
+
+    /**
+     * Tests only root nodes are built when none is applied.
+     */
+    @Test
+    public void roots() {
+
+        SailMockResource resource = new SailMockResource("1");
+
+        TreeFacetBuilder.facet(TREE).build(resource);
+
+        Assert.assertEquals("Unexpected rels", Arrays.asList("categoryCars", "categoryBikes"), rels(resource));
+    }
+
+    /**
+     * Tests the path, the siblings and the children of the applied node are
+     * built.
+     */
+    @Test
+    public void collapsed() {
+
+        SailMockResource resource = new SailMockResource("1");
+
+        TreeFacetBuilder.facet(TREE).filter("category", "sedan").count("suv", 3).build(resource);
+
+        Assert.assertEquals("Unexpected rels",
+                Arrays.asList("categoryCars", FacetBuilder.CLEAN + "categorySedan", "categoryCompact", "categorySuv"),
+                rels(resource));
+
+        List<HypermediaLink> links = new ArrayList<HypermediaLink>(resource.getLinks().get(LINKS));
+
+        Assert.assertEquals("Unexpected ancestor refines", "false", links.get(0).getData().get("data-refines"));
+        Assert.assertEquals("Unexpected depth", "2", links.get(2).getData().get("data-depth"));
+        Assert.assertEquals("Unexpected count", "3", links.get(3).getData().get("data-count"));
+        Assert.assertTrue("Unexpected sibling href " + links.get(3).getHref(),
+                links.get(3).getHref().endsWith("?category=suv"));
+    }
+
+    private static List<String> rels(SailMockResource resource) {
+
+        List<String> rels = new ArrayList<String>();
+
+        for (HypermediaLink link : resource.getLinks().get(LINKS)) {
+            rels.add(link.getRel());
+        }
+
+        return rels;
+    }
+}
@@ -174,4 +174,44 @@ public class TemplateTest {
         Assert.assertEquals(expected, result);
 
     }
+
+    /**
+     * Test earlier variables take as much as possible, backtracking when the
+     * rest of the template does not match.
+     */
+    @Test
+    public void greedy() {
+
+        String template = "{#from}-{#to}-END";
+
+        String instance = "1-2-3-END-4-END";
+
+        String expression = "{#from} to {#to}";
+
+        Assert.assertEquals("1-2-3-END to 4", Template.template(template).eval(expression, instance));
+    }
+
+    /**
+     * Test an instance that does not match keeps the variables.
+     */
+    @Test
+    public void notMatching() {
+
+        String template = "{#min}-{#max}";
+
+        Assert.assertEquals("{#min} to {#max} (other)", Template.template(template).eval("{#min} to {#max} ({#value})",
+                "other"));
+
+        Assert.assertEquals("10 to 20", Template.template(template).eval("{#min} to {#max}", "10-20"));
+    }
+
+    /**
+     * Test templates are compiled once and shared.
+     */
+    @Test
+    public void cached() {
+
+        Assert.assertSame(Template.template("{#min}-{#max}"), Template.template("{#min}-{#max}"));
+        Assert.assertSame(Template.template(null), Template.template(""));
+    }
 }
@@ -0,0 +1,52 @@
+package com.github.sailarize.json;
+
+import java.lang.reflect.Field;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sailarize.form.ValueInput;
+
+/**
+ * Tests for {@link BeanProperties}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class BeanPropertiesTest {
+
+    /**
+     * Test the properties of a class are resolved for each stop class, whatever
+     * the one asked first.
+     */
+    @Test
+    public void stops() {
+
+        Assert.assertEquals("Unexpected bean properties", "id, name, title, value, mask, color",
+                names(BeanProperties.of(ColorInput.class, Object.class)));
+        Assert.assertEquals("Unexpected input properties", "color",
+                names(BeanProperties.of(ColorInput.class, ValueInput.class)));
+    }
+
+    private static String names(Field[] fields) {
+
+        StringBuilder names = new StringBuilder();
+
+        for (Field field : fields) {
+            names.append(names.length() == 0 ? "" : ", ").append(field.getName());
+        }
+
+        return names.toString();
+    }
+
+    @SuppressWarnings("unused")
+    private static class ColorInput extends ValueInput {
+
+        private String color = "red";
+
+        public ColorInput() {
+
+            super("color");
+        }
+    }
+}
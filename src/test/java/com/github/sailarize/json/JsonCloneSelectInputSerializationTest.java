@@ -0,0 +1,19 @@
+package com.github.sailarize.json;
+
+import com.github.sailarize.form.CloneSelectInputSerializationTest;
+import com.github.sailarize.form.CloneSelectInput;
+
+/**
+ * Runs the clone select serialization contract against {@link SailWriter}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class JsonCloneSelectInputSerializationTest extends CloneSelectInputSerializationTest {
+
+    @Override
+    protected String serialize(CloneSelectInput input) {
+
+        return SailWriter.toJson(input);
+    }
+}
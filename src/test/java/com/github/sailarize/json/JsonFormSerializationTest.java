@@ -0,0 +1,19 @@
+package com.github.sailarize.json;
+
+import com.github.sailarize.form.FormSerializationTest;
+import com.github.sailarize.form.Form;
+
+/**
+ * Runs the form serialization contract against {@link SailWriter}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class JsonFormSerializationTest extends FormSerializationTest {
+
+    @Override
+    protected String serialize(Form form) {
+
+        return SailWriter.toJson(form);
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.sailarize.json;
+
+import com.github.sailarize.link.HypermediaLinkSerializationTest;
+import com.github.sailarize.link.HypermediaLink;
+
+/**
+ * Runs the link serialization contract against {@link SailWriter}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class JsonHypermediaLinkSerializationTest extends HypermediaLinkSerializationTest {
+
+    @Override
+    protected String serialize(HypermediaLink link) {
+
+        return SailWriter.toJson(link);
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.sailarize.json;
+
+import com.github.sailarize.form.MultiSelectInputSerializationTest;
+import com.github.sailarize.form.MultiSelectInput;
+
+/**
+ * Runs the multi select serialization contract against {@link SailWriter}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class JsonMultiSelectInputSerializationTest extends MultiSelectInputSerializationTest {
+
+    @Override
+    protected String serialize(MultiSelectInput input) {
+
+        return SailWriter.toJson(input);
+    }
+}
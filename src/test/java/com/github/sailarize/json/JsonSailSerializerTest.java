@@ -0,0 +1,19 @@
+package com.github.sailarize.json;
+
+import com.github.sailarize.resource.SailSerializerTest;
+import com.github.sailarize.resource.SailResource;
+
+/**
+ * Runs the resource serialization contract against {@link SailWriter}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class JsonSailSerializerTest extends SailSerializerTest {
+
+    @Override
+    protected String serialize(SailResource resource) {
+
+        return SailWriter.toJson(resource);
+    }
+}
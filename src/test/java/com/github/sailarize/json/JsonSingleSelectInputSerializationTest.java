@@ -0,0 +1,19 @@
+package com.github.sailarize.json;
+
+import com.github.sailarize.form.SingleSelectInputSerializationTest;
+import com.github.sailarize.form.SingleSelectInput;
+
+/**
+ * Runs the single select serialization contract against {@link SailWriter}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class JsonSingleSelectInputSerializationTest extends SingleSelectInputSerializationTest {
+
+    @Override
+    protected String serialize(SingleSelectInput input) {
+
+        return SailWriter.toJson(input);
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.sailarize.json;
+
+import com.github.sailarize.form.ValueInputSerializationTest;
+import com.github.sailarize.form.ValueInput;
+
+/**
+ * Runs the value input serialization contract against {@link SailWriter}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class JsonValueInputSerializationTest extends ValueInputSerializationTest {
+
+    @Override
+    protected String serialize(ValueInput input) {
+
+        return SailWriter.toJson(input);
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.sailarize.json;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sailarize.mock.NotAnnotatedResource;
+import com.github.sailarize.mock.PersonMock;
+
+/**
+ * Tests for {@link ResourceWriters}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class ResourceWritersTest {
+
+    /**
+     * Test an annotated resource is written by its generated writer.
+     */
+    @Test
+    public void generated() {
+
+        ResourceWriter<?> writer = ResourceWriters.of(PersonMock.class);
+
+        Assert.assertEquals("Unexpected writer", PersonMock.class.getName() + ResourceWriters.SUFFIX,
+                writer.getClass().getName());
+    }
+
+    /**
+     * Test a not annotated resource falls back to reflection.
+     */
+    @Test
+    public void reflective() {
+
+        ResourceWriter<?> writer = ResourceWriters.of(NotAnnotatedResource.class);
+
+        Assert.assertNotEquals("Unexpected writer", NotAnnotatedResource.class.getName() + ResourceWriters.SUFFIX,
+                writer.getClass().getName());
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.sailarize.link;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sailarize.facet.FacetBuilder;
+import com.github.sailarize.form.Form;
+import com.github.sailarize.form.Option;
+import com.github.sailarize.form.SelectInput;
+import com.github.sailarize.mock.SailMockResource;
+import com.github.sailarize.properties.Titles;
+import com.github.sailarize.resource.SailTags;
+import com.github.sailarize.sort.SortBuilder;
+
+/**
+ * Unit test for {@link LinkBlockCache}.
+ *
+ * @author agusmunioz
+ *
+ */
+public class LinkBlockCacheTest {
+
+    private static final String FORMS = SailTags.FORMS + SailTags.KEY + FacetBuilder.GROUP;
+
+    private static final String FACETS = SailTags.LINKS + SailTags.KEY + FacetBuilder.GROUP + SailTags.KEY + "brand";
+
+    /**
+     * Tests the same configuration is served from the cache with copies of the
+     * built links.
+     */
+    @Test
+    public void hit() {
+
+        LinkBlockCache cache = new LinkBlockCache(10);
+
+        SailMockResource first = new SailMockResource("1");
+        SailMockResource second = new SailMockResource("1");
+
+        cache.build(FacetBuilder.facet("brand").inclusive("fiat", "audi").filter("color", "red"), first);
+        cache.build(FacetBuilder.facet("brand").inclusive("fiat", "audi").filter("color", "red"), second);
+
+        Assert.assertEquals("Unexpected hits", 1, cache.getHits());
+        Assert.assertEquals("Unexpected links", hrefs(first, FACETS), hrefs(second, FACETS));
+
+        first.getLinks().get(FACETS).iterator().next().setHref("changed");
+
+        SailMockResource third = new SailMockResource("1");
+
+        cache.build(FacetBuilder.facet("brand").inclusive("fiat", "audi").filter("color", "red"), third);
+
+        Assert.assertEquals("Cached link changed", hrefs(second, FACETS), hrefs(third, FACETS));
+    }
+
+    /**
+     * Tests forms are served as copies too, so changing the form of a response
+     * does not change the cached one.
+     */
+    @Test
+    public void forms() {
+
+        LinkBlockCache cache = new LinkBlockCache(10);
+
+        SailMockResource first = new SailMockResource("1");
+
+        cache.build(FacetBuilder.facet("brand").inclusive("fiat", "audi").compact(), first);
+
+        Form form = first.getForms().get(FORMS).iterator().next();
+        form.addData("changed", "true");
+        ((SelectInput) form.getInputs().iterator().next()).getOptions().iterator().next().addData("changed", "true");
+
+        SailMockResource second = new SailMockResource("1");
+
+        cache.build(FacetBuilder.facet("brand").inclusive("fiat", "audi").compact(), second);
+
+        Assert.assertEquals("Unexpected hits", 1, cache.getHits());
+
+        Form cached = second.getForms().get(FORMS).iterator().next();
+
+        Assert.assertNotSame("Form shared", form, cached);
+        Assert.assertNull("Cached form changed", cached.getData());
+
+        Option option = ((SelectInput) cached.getInputs().iterator().next()).getOptions().iterator().next();
+
+        Assert.assertFalse("Cached option changed", option.getData().containsKey("data-changed"));
+    }
+
+    /**
+     * Tests a different configuration, resource or filters is not served from
+     * the cache.
+     */
+    @Test
+    public void miss() {
+
+        LinkBlockCache cache = new LinkBlockCache(10);
+
+        cache.build(FacetBuilder.facet("brand").inclusive("fiat").filter("color", "red"), new SailMockResource("1"));
+        cache.build(FacetBuilder.facet("brand").inclusive("fiat").filter("color", "blue"), new SailMockResource("1"));
+        cache.build(FacetBuilder.facet("brand").inclusive("fiat").filter("color", "red"), new SailMockResource("2"));
+        cache.build(SortBuilder.ascendings("price"), new SailMockResource("1"));
+
+        Assert.assertEquals("Unexpected hits", 0, cache.getHits());
+        Assert.assertEquals("Unexpected misses", 4, cache.getMisses());
+    }
+
+    /**
+     * Tests blocks built before the titles are reloaded are not served.
+     */
+    @Test
+    public void reloaded() {
+
+        LinkBlockCache cache = new LinkBlockCache(10);
+
+        cache.build(SortBuilder.ascendings("price"), new SailMockResource("1"));
+
+        Titles.reload();
+
+        cache.build(SortBuilder.ascendings("price"), new SailMockResource("1"));
+
+        Assert.assertEquals("Unexpected hits", 0, cache.getHits());
+        Assert.assertEquals("Unexpected misses", 2, cache.getMisses());
+    }
+
+    /**
+     * Tests the least recently used block is evicted.
+     */
+    @Test
+    public void evict() {
+
+        LinkBlockCache cache = new LinkBlockCache(2);
+
+        cache.build(SortBuilder.ascendings("price"), new SailMockResource("1"));
+        cache.build(SortBuilder.ascendings("price"), new SailMockResource("2"));
+        cache.build(SortBuilder.ascendings("price"), new SailMockResource("1"));
+        cache.build(SortBuilder.ascendings("price"), new SailMockResource("3"));
+        cache.build(SortBuilder.ascendings("price"), new SailMockResource("1"));
+
+        Assert.assertEquals("Unexpected size", 2, cache.size());
+        Assert.assertEquals("Unexpected hits", 2, cache.getHits());
+    }
+
+    private static List<String> hrefs(SailMockResource resource, String group) {
+
+        List<String> hrefs = new ArrayList<String>();
+
+        for (HypermediaLink link : resource.getLinks().get(group)) {
+            hrefs.add(link.getRel() + " " + link.getHref());
+        }
+
+        return hrefs;
+    }
+}
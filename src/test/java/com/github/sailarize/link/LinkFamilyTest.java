@@ -0,0 +1,118 @@
+package com.github.sailarize.link;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sailarize.context.SailContext;
+import com.github.sailarize.http.Header;
+import com.github.sailarize.mock.SailMockResource;
+import com.github.sailarize.url.Filter;
+import com.github.sailarize.url.QueryString;
+
+/**
+ * Unit test for {@link LinkFamily}.
+ *
+ * @author agusmunioz
+ *
+ */
+public class LinkFamilyTest {
+
+    @After
+    public void clean() {
+
+        SailContext.clean();
+    }
+
+    /**
+     * Tests siblings are the same links a {@link LinkBuilder} builds, request
+     * headers and parameters included.
+     */
+    @Test
+    public void siblings() {
+
+        QueryString parameters = new QueryString();
+        parameters.add("site", "AR");
+
+        SailContext.builder()
+                .path("http://api.com")
+                .serverName("api.com")
+                .headers(Collections.singletonList(new Header("X-Client", "web")))
+                .parameters(parameters)
+                .build()
+                .attach();
+
+        SailMockResource resource = new SailMockResource("1");
+
+        Header shared = new Header("X-Shared", "yes");
+
+        LinkFamily family = LinkFamily.of(resource)
+                .headers(Collections.singletonList(shared))
+                .filters(Arrays.asList(new Filter("color", "dark red")));
+
+        HypermediaLink sibling = family.link("next")
+                .filter("page", "2")
+                .query(family.getFilters())
+                .build();
+
+        HypermediaLink link = new LinkBuilder(resource, "next")
+                .filter("page", "2")
+                .filters(Arrays.asList(new Filter("color", "dark red")))
+                .headers(Collections.singletonList(shared))
+                .build();
+
+        Assert.assertEquals("Unexpected href", link.getHref(), sibling.getHref());
+        Assert.assertEquals("Unexpected type", link.getType(), sibling.getType());
+        Assert.assertEquals("Unexpected headers", link.getHeaders().toString(), sibling.getHeaders().toString());
+
+        HypermediaLink bare = family.link("self").build();
+
+        Assert.assertEquals("Unexpected href", new LinkBuilder(resource, "self").build().getHref(), bare.getHref());
+    }
+
+    /**
+     * Tests a sibling whose href is changed is completed as any other link.
+     */
+    @Test
+    public void changed() {
+
+        QueryString parameters = new QueryString();
+        parameters.add("site", "AR");
+
+        SailContext.builder()
+                .path("http://api.com")
+                .serverName("api.com")
+                .parameters(parameters)
+                .build()
+                .attach();
+
+        HypermediaLink link = LinkFamily.of(new SailMockResource("1")).link("next").https().filter("page", "2")
+                .build();
+
+        Assert.assertEquals("Unexpected href", "https://api.com/mocks/1?page=2&site=AR", link.getHref());
+    }
+
+    /**
+     * Tests siblings of a cross-domain family do not get request state.
+     */
+    @Test
+    public void cross() {
+
+        QueryString parameters = new QueryString();
+        parameters.add("site", "AR");
+
+        SailContext.builder()
+                .path("http://other.com")
+                .serverName("api.com")
+                .parameters(parameters)
+                .build()
+                .attach();
+
+        HypermediaLink link = LinkFamily.of(new SailMockResource("1")).link("next").filter("page", "2").build();
+
+        Assert.assertFalse("Request parameters added " + link.getHref(), link.getHref().contains("site"));
+    }
+}
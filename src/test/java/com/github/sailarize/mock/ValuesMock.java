@@ -0,0 +1,37 @@
+package com.github.sailarize.mock;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import com.github.sailarize.resource.Path;
+import com.github.sailarize.resource.SailResource;
+
+@Path("/values")
+public class ValuesMock extends SailResource {
+
+    private UUID uuid;
+
+    private URI uri;
+
+    private LocalDate date;
+
+    public ValuesMock(String id, UUID uuid, URI uri, LocalDate date) {
+        super(id);
+        this.uuid = uuid;
+        this.uri = uri;
+        this.date = date;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+}
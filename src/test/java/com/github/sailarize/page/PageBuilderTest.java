@@ -0,0 +1,127 @@
+package com.github.sailarize.page;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sailarize.link.HypermediaLink;
+import com.github.sailarize.mock.SailMockResource;
+import com.github.sailarize.resource.SailTags;
+
+/**
+ * Unit test for {@link PageBuilder}.
+ *
+ * @author agusmunioz
+ *
+ */
+public class PageBuilderTest {
+
+    private static final String LINKS = SailTags.LINKS + SailTags.KEY + PageConstants.GROUP;
+
+    /**
+     * Tests the cursor mode builds next and previous links with the encoded
+     * cursors and no total.
+     */
+    @Test
+    public void cursor() {
+
+        SailMockResource resource = new SailMockResource("1");
+
+        PageBuilder.cursor("price:10/id:7", "price:5/id:2")
+                .size(20)
+                .filter("color", "red")
+                .filter(PageConstants.CURSOR_PARAM, "ignored")
+                .next("Next")
+                .previous("Previous")
+                .build(resource);
+
+        List<HypermediaLink> links = new ArrayList<HypermediaLink>(resource.getLinks().get(LINKS));
+
+        Assert.assertEquals("Unexpected links", 2, links.size());
+
+        HypermediaLink next = links.get(1);
+
+        Assert.assertEquals("Unexpected rel", PageConstants.NEXT_REL, next.getRel());
+
+        String href = next.getHref();
+
+        String cursor = href.substring(href.indexOf("cursor=") + "cursor=".length(), href.indexOf('&'));
+
+        Assert.assertTrue("Unexpected href " + href, href.endsWith("&pageSize=20&color=red"));
+        Assert.assertTrue("Cursor not URL safe " + cursor, cursor.matches("[A-Za-z0-9_-]+"));
+        Assert.assertEquals("Unexpected cursor", "price:10/id:7", Cursor.decode(cursor));
+    }
+
+    /**
+     * Tests the last page in cursor mode has no next link.
+     */
+    @Test
+    public void lastCursor() {
+
+        SailMockResource resource = new SailMockResource("1");
+
+        PageBuilder.cursor(null, "price:5").size(20).build(resource);
+
+        List<HypermediaLink> links = new ArrayList<HypermediaLink>(resource.getLinks().get(LINKS));
+
+        Assert.assertEquals("Unexpected links", 1, links.size());
+        Assert.assertEquals("Unexpected rel", PageConstants.PREVIOUS_REL, links.get(0).getRel());
+    }
+
+    /**
+     * Tests the lookahead mode builds the next link without a total and
+     * without last and shortcuts links.
+     */
+    @Test
+    public void lookahead() {
+
+        SailMockResource resource = new SailMockResource("1");
+
+        PageBuilder.page(3).size(10).hasNext(true).shortcuts(1, 2, 3).first(2).last(1).build(resource);
+
+        Assert.assertEquals("Unexpected rels", "[previous, next, first]", rels(resource).toString());
+    }
+
+    /**
+     * Tests only the links that depend on a pending total wait for it and
+     * they are left for the caller to add.
+     */
+    @Test
+    public void pendingTotal() {
+
+        SailMockResource resource = new SailMockResource("1");
+
+        CompletableFuture<Integer> total = new CompletableFuture<Integer>();
+
+        CompletableFuture<Collection<HypermediaLink>> pending = PageBuilder.page(2).size(10).total(total).first(1)
+                .last(3).buildAsync(resource);
+
+        Assert.assertFalse("Built before the total", pending.isDone());
+        Assert.assertEquals("Unexpected rels", "[previous, first]", rels(resource).toString());
+
+        total.complete(35);
+
+        Assert.assertEquals("Links added by the completing thread", "[previous, first]", rels(resource).toString());
+
+        PageBuilder.add(resource, pending.join());
+
+        Assert.assertEquals("Unexpected rels", "[previous, first, next, last]", rels(resource).toString());
+        Assert.assertTrue("Unexpected last", resource.getLinks().get(LINKS).toArray(new HypermediaLink[4])[3]
+                .getHref().contains("page=4"));
+    }
+
+    private static List<String> rels(SailMockResource resource) {
+
+        List<String> rels = new ArrayList<String>();
+
+        for (HypermediaLink link : resource.getLinks().get(LINKS)) {
+            rels.add(link.getRel());
+        }
+
+        return rels;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.sailarize.properties;
+
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sailarize.context.SailContext;
+
+/**
+ * Unit test for {@link LocaleNegotiator}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class LocaleNegotiatorTest {
+
+    @After
+    public void clean() {
+
+        SailContext.clean();
+    }
+
+    /**
+     * Test the locale of the best titles file is negotiated, by quality and
+     * from the most specific form of each language.
+     */
+    @Test
+    public void negotiate() {
+
+        Assert.assertEquals(new Locale("en", "US"), LocaleNegotiator.negotiate("en-US,en;q=0.8"));
+        Assert.assertEquals(new Locale("fr"), LocaleNegotiator.negotiate("fr-CA"));
+        Assert.assertEquals(new Locale("fr", "FR"), LocaleNegotiator.negotiate("es-AR;q=0.5, fr-FR"));
+        Assert.assertEquals(new Locale("es"), LocaleNegotiator.negotiate("pt-BR, es;q=0.3"));
+        Assert.assertNull(LocaleNegotiator.negotiate("pt-BR, *;q=0.1"));
+        Assert.assertNull(LocaleNegotiator.negotiate("not a valid ;; range"));
+        Assert.assertNull(LocaleNegotiator.negotiate(null));
+    }
+
+    /**
+     * Test titles use the request locale by default.
+     */
+    @Test
+    public void titles() {
+
+        SailContext.builder().locale(LocaleNegotiator.negotiate("fr-FR")).build().attach();
+
+        Assert.assertEquals("France titre premier", Titles.get("facets.test.ONE"));
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.sailarize.properties;
+
+import java.text.MessageFormat;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link PropertyTemplate}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class PropertyTemplateTest {
+
+    /**
+     * Test values are expanded as {@link MessageFormat} does.
+     */
+    @Test
+    public void format() {
+
+        String[] values = { "img{0}.cdn.com", "{1}/{0}/{1}", "it''s {0}", "a'{0}'b{0}", "'quoted", "x}{0}",
+                "{0}{2}", "no arguments" };
+
+        Object[] args = { "7", "path" };
+
+        for (String value : values) {
+            Assert.assertEquals("Unexpected value for " + value, MessageFormat.format(value, args),
+                    PropertyTemplate.compile(value).format(args));
+        }
+
+        Assert.assertEquals("Unexpected formatted value", MessageFormat.format("{0,number,#.0}", 7.25),
+                PropertyTemplate.compile("{0,number,#.0}").format(7.25));
+    }
+}
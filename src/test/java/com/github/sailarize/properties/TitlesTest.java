@@ -1,5 +1,8 @@
 package com.github.sailarize.properties;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.Locale;
 
 import org.junit.Assert;
@@ -88,4 +91,70 @@ public class TitlesTest {
         Assert.assertEquals("Titre premier", title);
     }
 
+    /**
+     * Test a batch of titles is obtained at once.
+     */
+    @Test
+    public void bulk() {
+
+        String[] titles = Titles.get(new Locale("fr", "FR"), "facets.test.ONE", "facets.test.MISSING");
+
+        Assert.assertArrayEquals(new String[] { "France titre premier", null }, titles);
+    }
+
+    /**
+     * Test localized titles files are detected.
+     */
+    @Test
+    public void localized() {
+
+        Assert.assertTrue("Localized titles not detected", Titles.isLocalized());
+    }
+
+    /**
+     * Test titles are reloaded when a properties file changes.
+     */
+    @Test
+    public void reload() throws Exception {
+
+        File folder = new File(Titles.class.getClassLoader().getResource("sail/titles.properties").toURI())
+                .getParentFile();
+
+        File file = new File(folder, "titles_it.properties");
+
+        Locale italian = new Locale("it");
+
+        try {
+
+            Assert.assertEquals("Default title", Titles.get("facets.test.ONE", italian));
+
+            write(file, "facets.test.ONE=Titolo uno");
+
+            Assert.assertEquals("Reloaded without interval", "Default title", Titles.get("facets.test.ONE", italian));
+
+            Titles.interval(1);
+            Thread.sleep(5);
+
+            Assert.assertEquals("Titolo uno", Titles.get("facets.test.ONE", italian));
+
+        } finally {
+
+            Titles.interval(0);
+            file.delete();
+            Titles.reload();
+        }
+
+        Assert.assertEquals("Default title", Titles.get("facets.test.ONE", italian));
+    }
+
+    private static void write(File file, String content) throws IOException {
+
+        FileOutputStream out = new FileOutputStream(file);
+
+        try {
+            out.write(content.getBytes("ISO-8859-1"));
+        } finally {
+            out.close();
+        }
+    }
 }
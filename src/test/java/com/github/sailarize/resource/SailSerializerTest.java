@@ -1,5 +1,9 @@
 package com.github.sailarize.resource;
 
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.UUID;
+
 import org.junit.Test;
 
 import com.github.sailarize.asserts.AssertSerialization;
@@ -8,6 +12,7 @@ import com.github.sailarize.link.LinkBuilder;
 import com.github.sailarize.media.Image;
 import com.github.sailarize.media.Video;
 import com.github.sailarize.mock.PersonMock;
+import com.github.sailarize.mock.ValuesMock;
 
 /**
  * Test that any serialization implementation must run (extend) in order to
@@ -177,6 +182,22 @@ public abstract class SailSerializerTest {
                 "person_full", resource);
     }
 
+    /**
+     * Test the serialization of a resource with properties of value types of
+     * the platform, which are written as strings.
+     */
+    @Test
+    public void values() {
+
+        ValuesMock values = new ValuesMock("1", UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e"),
+                URI.create("http://www.sail.com/values/1"), LocalDate.of(2016, 2, 29));
+
+        String resource = this.serialize(values);
+
+        AssertSerialization.assertEquals("Unexpected resource with value properties serialization", "values",
+                resource);
+    }
+
     /**
      * Serializes a sail resource.
      * 
@@ -0,0 +1,299 @@
+package com.github.sailarize.servlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.github.sailarize.context.SailContext;
+
+/**
+ * Unit test for {@link RepresentationCache}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class RepresentationCacheTest {
+
+    private final AtomicInteger built = new AtomicInteger();
+
+    /**
+     * Tests a representation is built once and then served from the cache,
+     * compressed for clients accepting gzip.
+     */
+    @Test
+    public void hit() throws Exception {
+
+        RepresentationCache cache = new RepresentationCache(Collections.singletonList("/products"), 60000, 0, true,
+                new MemoryRepresentationStore(10));
+
+        HttpServletRequest request = request("/products");
+
+        Assert.assertTrue("Request not accepted", cache.accepts(request));
+        Assert.assertFalse("Request accepted", cache.accepts(request("/users")));
+        Assert.assertTrue("Sub path not accepted", cache.accepts(request("/products/1")));
+        Assert.assertFalse("Sibling path accepted", cache.accepts(request("/productsAdmin/1")));
+
+        StringWriter first = new StringWriter();
+
+        cache.filter(request, response(first, null), this.chain(200), SailContext.EMPTY);
+
+        Assert.assertEquals("Unexpected first body", "{\"id\":1}", first.toString());
+
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+        cache.filter(request, response(null, second), this.chain(200), SailContext.EMPTY);
+
+        Assert.assertEquals("Unexpected builds", 1, this.built.get());
+        Assert.assertEquals("Unexpected cached body", "{\"id\":1}", second.toString("UTF-8"));
+
+        Mockito.when(request.getHeader("Accept-Encoding")).thenReturn("gzip, deflate");
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        cache.filter(request, response(null, compressed), this.chain(200), SailContext.EMPTY);
+
+        Assert.assertEquals("Unexpected compressed body", "{\"id\":1}", gunzip(compressed.toByteArray()));
+    }
+
+    /**
+     * Tests gzip is served only to clients that accept it with a quality
+     * above 0 and every response, hit or miss, varies by Accept-Encoding.
+     */
+    @Test
+    public void encoding() throws Exception {
+
+        Assert.assertTrue("gzip not accepted", RepresentationCache.acceptsGzip("deflate, GZIP;q=0.5"));
+        Assert.assertTrue("x-gzip not accepted", RepresentationCache.acceptsGzip("x-gzip"));
+        Assert.assertTrue("Wildcard not accepted", RepresentationCache.acceptsGzip("br, *"));
+        Assert.assertFalse("Refused gzip accepted", RepresentationCache.acceptsGzip("gzip;q=0"));
+        Assert.assertFalse("Refused gzip accepted", RepresentationCache.acceptsGzip("gzip; q=0.0, *"));
+        Assert.assertFalse("Other coding accepted", RepresentationCache.acceptsGzip("x-gzip2, gzipped"));
+        Assert.assertFalse("Nothing accepted", RepresentationCache.acceptsGzip(null));
+
+        RepresentationCache cache = new RepresentationCache(Collections.singletonList("/products"), 60000, 0, true,
+                new MemoryRepresentationStore(10));
+
+        HttpServletRequest request = request("/products");
+        Mockito.when(request.getHeader("Accept-Encoding")).thenReturn("gzip;q=0");
+
+        HttpServletResponse miss = response(new StringWriter(), null);
+
+        cache.filter(request, miss, this.chain(200), SailContext.EMPTY);
+
+        Mockito.verify(miss).addHeader("Vary", "Accept-Encoding");
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        HttpServletResponse hit = response(null, body);
+
+        cache.filter(request, hit, this.chain(200), SailContext.EMPTY);
+
+        Mockito.verify(hit).addHeader("Vary", "Accept-Encoding");
+        Mockito.verify(hit, Mockito.never()).setHeader("Content-Encoding", "gzip");
+        Assert.assertEquals("Unexpected body", "{\"id\":1}", body.toString("UTF-8"));
+    }
+
+    /**
+     * Tests expired representations and responses that are not 200 are built
+     * again.
+     */
+    @Test
+    public void miss() throws Exception {
+
+        RepresentationCache cache = new RepresentationCache(Collections.singletonList("/products"), 0, 0, false,
+                new MemoryRepresentationStore(10));
+
+        HttpServletRequest request = request("/products");
+
+        cache.filter(request, response(new StringWriter(), null), this.chain(200), SailContext.EMPTY);
+        cache.filter(request, response(new StringWriter(), null), this.chain(200), SailContext.EMPTY);
+
+        Assert.assertEquals("Expired representation served", 2, this.built.get());
+
+        cache = new RepresentationCache(Collections.singletonList("/products"), 60000, 0, false,
+                new MemoryRepresentationStore(10));
+
+        cache.filter(request, response(new StringWriter(), null), this.chain(404), SailContext.EMPTY);
+        cache.filter(request, response(new StringWriter(), null), this.chain(404), SailContext.EMPTY);
+
+        Assert.assertEquals("Not found response cached", 4, this.built.get());
+    }
+
+    /**
+     * Tests the headers set by the application are served with the cached
+     * body.
+     */
+    @Test
+    public void headers() throws Exception {
+
+        RepresentationCache cache = new RepresentationCache(Collections.singletonList("/products"), 60000, 0, false,
+                new MemoryRepresentationStore(10));
+
+        HttpServletRequest request = request("/products");
+
+        FilterChain chain = new FilterChain() {
+
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response)
+                    throws IOException, ServletException {
+
+                HttpServletResponse http = (HttpServletResponse) response;
+                http.setHeader("Cache-Control", "max-age=60");
+                http.addHeader("Link", "</products?page=2>; rel=next");
+                http.addHeader("Link", "</products?page=9>; rel=last");
+                http.setHeader("ETag", "\"v1\"");
+                http.getWriter().write("[]");
+            }
+        };
+
+        cache.filter(request, response(new StringWriter(), null), chain, SailContext.EMPTY);
+
+        HttpServletResponse hit = response(null, new ByteArrayOutputStream());
+
+        cache.filter(request, hit, this.chain(200), SailContext.EMPTY);
+
+        Assert.assertEquals("Unexpected builds", 0, this.built.get());
+
+        Mockito.verify(hit).setHeader("Cache-Control", "max-age=60");
+        Mockito.verify(hit).setHeader("Link", "</products?page=2>; rel=next");
+        Mockito.verify(hit).addHeader("Link", "</products?page=9>; rel=last");
+        Mockito.verify(hit).setHeader("ETag", "\"v1\"");
+    }
+
+    /**
+     * Tests requests with credentials are not cached unless the credentials
+     * are part of the key, and configured paths are trimmed.
+     */
+    @Test
+    public void credentials() throws Exception {
+
+        RepresentationCache cache = new RepresentationCache(Arrays.asList("/users", " /products"), 60000, 0, false,
+                new MemoryRepresentationStore(10));
+
+        HttpServletRequest request = request("/products");
+
+        Assert.assertTrue("Trimmed path not accepted", cache.accepts(request));
+
+        Mockito.when(request.getHeader("Cookie")).thenReturn("session=1");
+
+        Assert.assertFalse("Request with cookies accepted", cache.accepts(request));
+
+        cache = new RepresentationCache(Collections.singletonList("/products"), Arrays.asList(" Authorization"), 60000,
+                0, false, new MemoryRepresentationStore(10));
+
+        HttpServletRequest first = request("/products");
+        Mockito.when(first.getHeader("Authorization")).thenReturn("Bearer one");
+
+        HttpServletRequest second = request("/products");
+        Mockito.when(second.getHeader("Authorization")).thenReturn("Bearer two");
+
+        Assert.assertTrue("Request with key credentials not accepted", cache.accepts(first));
+
+        cache.filter(first, response(new StringWriter(), null), this.chain(200), SailContext.EMPTY);
+        cache.filter(second, response(new StringWriter(), null), this.chain(200), SailContext.EMPTY);
+        cache.filter(first, response(null, new ByteArrayOutputStream()), this.chain(200), SailContext.EMPTY);
+
+        Assert.assertEquals("Unexpected builds", 2, this.built.get());
+    }
+
+    private FilterChain chain(final int status) {
+
+        return new FilterChain() {
+
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response)
+                    throws IOException, ServletException {
+
+                built.incrementAndGet();
+
+                HttpServletResponse http = (HttpServletResponse) response;
+                http.setStatus(status);
+                http.setContentType("application/json");
+                http.getWriter().write("{\"id\":1}");
+            }
+        };
+    }
+
+    private static HttpServletRequest request(String uri) {
+
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getMethod()).thenReturn("GET");
+        Mockito.when(request.getRequestURI()).thenReturn(uri);
+        Mockito.when(request.getContextPath()).thenReturn("");
+        Mockito.when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        Mockito.when(request.getParameterMap()).thenReturn(Collections.<String, String[]> emptyMap());
+
+        return request;
+    }
+
+    private static HttpServletResponse response(StringWriter writer, final ByteArrayOutputStream out)
+            throws IOException {
+
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        Mockito.when(response.getCharacterEncoding()).thenReturn("UTF-8");
+        Mockito.when(response.getContentType()).thenReturn("application/json;charset=UTF-8");
+
+        if (writer != null) {
+            Mockito.when(response.getWriter()).thenReturn(new PrintWriter(writer));
+        }
+
+        if (out != null) {
+            Mockito.when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+
+                @Override
+                public void write(int b) throws IOException {
+
+                    out.write(b);
+                }
+
+                @Override
+                public boolean isReady() {
+
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+
+                }
+            });
+        }
+
+        return response;
+    }
+
+    private static String gunzip(byte[] compressed) throws IOException {
+
+        GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        byte[] buffer = new byte[256];
+
+        for (int read = in.read(buffer); read > 0; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+        }
+
+        return out.toString("UTF-8");
+    }
+}
@@ -0,0 +1,369 @@
+package com.github.sailarize.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.github.sailarize.context.SailContext;
+import com.github.sailarize.http.ParameterHolder;
+import com.github.sailarize.url.PathHolder;
+
+/**
+ * Unit test for {@link SailarizeFilter}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class SailarizeFilterTest {
+
+    private SailarizeFilter filter;
+
+    private HttpServletRequest request;
+
+    @Before
+    public void init() throws ServletException {
+
+        FilterConfig config = Mockito.mock(FilterConfig.class);
+        Mockito.when(config.getInitParameter("path")).thenReturn("api");
+        Mockito.when(config.getInitParameter("parameters")).thenReturn("site");
+
+        this.filter = new SailarizeFilter();
+        this.filter.init(config);
+
+        this.request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(this.request.getScheme()).thenReturn("http");
+        Mockito.when(this.request.getServerName()).thenReturn("www.sail.com");
+        Mockito.when(this.request.getHeader("Host")).thenReturn("www.sail.com");
+        Mockito.when(this.request.getContextPath()).thenReturn("");
+        Mockito.when(this.request.getParameter("site")).thenReturn("AR");
+    }
+
+    /**
+     * Test the context is available while the request is processed and
+     * cleaned after.
+     */
+    @Test
+    public void context() throws IOException, ServletException {
+
+        final StringBuilder seen = new StringBuilder();
+
+        this.filter.doFilter(this.request, Mockito.mock(HttpServletResponse.class), new FilterChain() {
+
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+
+                seen.append(PathHolder.get()).append(ParameterHolder.get());
+                Assert.assertSame("Unexpected request", request, RequestHolder.get());
+            }
+        });
+
+        Assert.assertEquals("Unexpected context", "http://www.sail.com/api?site=AR", seen.toString());
+        Assert.assertSame("Context not cleaned", SailContext.EMPTY, SailContext.current());
+    }
+
+    /**
+     * Test the request locale is negotiated from the Accept-Language header.
+     */
+    @Test
+    public void locale() throws IOException, ServletException {
+
+        Mockito.when(this.request.getHeader("Accept-Language")).thenReturn("fr-CA, en;q=0.5");
+
+        final StringBuilder seen = new StringBuilder();
+
+        this.filter.doFilter(this.request, Mockito.mock(HttpServletResponse.class), new FilterChain() {
+
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+
+                seen.append(SailContext.current().getLocale());
+            }
+        });
+
+        Assert.assertEquals("Unexpected locale", "fr", seen.toString());
+    }
+
+    /**
+     * Test the context is cleaned even if the request processing fails.
+     */
+    @Test
+    public void cleanOnError() throws IOException, ServletException {
+
+        try {
+
+            this.filter.doFilter(this.request, Mockito.mock(HttpServletResponse.class), new FilterChain() {
+
+                @Override
+                public void doFilter(ServletRequest request, ServletResponse response) {
+                    throw new IllegalStateException();
+                }
+            });
+
+            Assert.fail("Exception swallowed");
+
+        } catch (IllegalStateException e) {
+            Assert.assertSame("Context not cleaned", SailContext.EMPTY, SailContext.current());
+        }
+    }
+
+    /**
+     * Test tasks started in an async request run under the request context,
+     * which is released when the async processing completes.
+     */
+    @Test
+    public void async() throws Exception {
+
+        AsyncContext async = Mockito.mock(AsyncContext.class);
+
+        Mockito.when(this.request.isAsyncSupported()).thenReturn(true);
+        Mockito.when(this.request.startAsync()).thenReturn(async);
+        this.attributes();
+
+        final StringBuilder seen = new StringBuilder();
+
+        this.filter.doFilter(this.request, Mockito.mock(HttpServletResponse.class), new FilterChain() {
+
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+
+                request.startAsync().start(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        seen.append(PathHolder.get());
+                    }
+                });
+            }
+        });
+
+        Assert.assertSame("Context not cleaned in the request thread", SailContext.EMPTY, SailContext.current());
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(async).start(task.capture());
+
+        Thread thread = new Thread(task.getValue());
+        thread.start();
+        thread.join();
+
+        Assert.assertEquals("Context not propagated to the async task", "http://www.sail.com/api", seen.toString());
+
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        Mockito.verify(async).addListener(listener.capture());
+
+        listener.getValue().onComplete(new AsyncEvent(async, this.request, null));
+
+        Mockito.verify(this.request).removeAttribute(SailContext.class.getName());
+    }
+
+    /**
+     * Test a single listener releases the context, whatever the async cycles
+     * of the request.
+     */
+    @Test
+    public void asyncCycles() throws Exception {
+
+        AsyncContext first = Mockito.mock(AsyncContext.class);
+        AsyncContext second = Mockito.mock(AsyncContext.class);
+
+        Mockito.when(this.request.isAsyncSupported()).thenReturn(true);
+        Mockito.when(this.request.startAsync()).thenReturn(first, second);
+        this.attributes();
+
+        this.filter.doFilter(this.request, Mockito.mock(HttpServletResponse.class), new FilterChain() {
+
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+
+                request.startAsync();
+                request.startAsync();
+                request.startAsync();
+            }
+        });
+
+        Mockito.verify(first, Mockito.times(1)).addListener(Mockito.any(AsyncListener.class));
+        Mockito.verify(second, Mockito.never()).addListener(Mockito.any(AsyncListener.class));
+    }
+
+    /**
+     * Backs the mocked request attributes with a map.
+     */
+    private void attributes() {
+
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+
+        Mockito.doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(this.request).setAttribute(Mockito.anyString(), Mockito.any());
+
+        Mockito.when(this.request.getAttribute(Mockito.anyString())).thenAnswer(new Answer<Object>() {
+
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return attributes.get(invocation.getArguments()[0]);
+            }
+        });
+    }
+
+    /**
+     * Test the ETag is hashed from the body, the response varies by the
+     * headers the representation depends on and a request that already has
+     * the ETag is answered with 304 and no body.
+     */
+    @Test
+    public void etag() throws Exception {
+
+        FilterConfig config = Mockito.mock(FilterConfig.class);
+        Mockito.when(config.getInitParameter("etag")).thenReturn("true");
+        Mockito.when(config.getInitParameter("headers")).thenReturn("X-Client");
+
+        SailarizeFilter filter = new SailarizeFilter();
+        filter.init(config);
+
+        Mockito.when(this.request.getMethod()).thenReturn("GET");
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        HttpServletResponse response = response(body);
+
+        filter.doFilter(this.request, response, this.json());
+
+        ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(response).setHeader(Mockito.eq("ETag"), etag.capture());
+
+        Mockito.verify(response).addHeader("Vary", "Accept-Language, X-Client");
+        Assert.assertTrue("ETag not quoted " + etag.getValue(), etag.getValue().matches("\"[\\w-]{43}\""));
+        Assert.assertEquals("Unexpected body", "{\"id\":1}", body.toString("UTF-8"));
+
+        Mockito.when(this.request.getHeader("If-None-Match")).thenReturn("\"other\", W/" + etag.getValue());
+
+        ByteArrayOutputStream notModified = new ByteArrayOutputStream();
+        response = response(notModified);
+
+        filter.doFilter(this.request, response, this.json());
+
+        Mockito.verify(response).setHeader("ETag", etag.getValue());
+        Mockito.verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        Assert.assertEquals("Body sent with a 304", 0, notModified.size());
+    }
+
+    /**
+     * Test no Vary header is sent when neither ETags nor the cache are
+     * configured.
+     */
+    @Test
+    public void noVary() throws Exception {
+
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+
+        this.filter.doFilter(this.request, response, Mockito.mock(FilterChain.class));
+
+        Mockito.verify(response, Mockito.never()).addHeader(Mockito.eq("Vary"), Mockito.anyString());
+    }
+
+    /**
+     * Test a precomputed ETag the client already has skips the build.
+     */
+    @Test
+    public void resolver() throws Exception {
+
+        FilterConfig config = Mockito.mock(FilterConfig.class);
+        Mockito.when(config.getInitParameter("etagResolver")).thenReturn(VersionResolver.class.getName());
+
+        SailarizeFilter filter = new SailarizeFilter();
+        filter.init(config);
+
+        Mockito.when(this.request.getMethod()).thenReturn("GET");
+        Mockito.when(this.request.getHeader("If-None-Match")).thenReturn("\"v7\"");
+
+        HttpServletResponse response = response(new ByteArrayOutputStream());
+
+        filter.doFilter(this.request, response, new FilterChain() {
+
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                Assert.fail("Representation built");
+            }
+        });
+
+        Mockito.verify(response).setHeader("ETag", "\"v7\"");
+        Mockito.verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+
+    /**
+     * An {@link ETagResolver} for a resource in version 7.
+     */
+    public static class VersionResolver implements ETagResolver {
+
+        @Override
+        public String resolve(HttpServletRequest request) {
+
+            return "v7";
+        }
+    }
+
+    private FilterChain json() {
+
+        return new FilterChain() {
+
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+
+                response.setContentType("application/json");
+                response.getWriter().write("{\"id\":1}");
+            }
+        };
+    }
+
+    private static HttpServletResponse response(final ByteArrayOutputStream body) throws IOException {
+
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        Mockito.when(response.getCharacterEncoding()).thenReturn("UTF-8");
+        Mockito.when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+
+            @Override
+            public void write(int b) throws IOException {
+
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+
+            }
+        });
+
+        return response;
+    }
+}
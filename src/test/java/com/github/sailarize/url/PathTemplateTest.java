@@ -0,0 +1,61 @@
+package com.github.sailarize.url;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PathTemplate}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class PathTemplateTest {
+
+    /**
+     * Test variables are replaced by position.
+     */
+    @Test
+    public void expand() {
+
+        PathTemplate template = PathTemplate.compile("/users/{user}/phones/{phone}");
+
+        Assert.assertEquals("Unexpected expansion", "/users/1/phones/2",
+                template.expand(new StringBuilder(), 1, 2).toString());
+    }
+
+    /**
+     * Test a repeated variable takes the value of its first occurrence.
+     */
+    @Test
+    public void repeated() {
+
+        PathTemplate template = PathTemplate.compile("/{a}/{b}/{a}/{c}");
+
+        Assert.assertEquals("Unexpected expansion", "/1/2/1/4",
+                template.expand(new StringBuilder(), 1, 2, 3, 4).toString());
+    }
+
+    /**
+     * Test variables without value are kept as is.
+     */
+    @Test
+    public void missingValues() {
+
+        PathTemplate template = PathTemplate.compile("/users/{user}/phones/{phone}");
+
+        Assert.assertEquals("Unexpected expansion", "/users/1/phones/{phone}",
+                template.expand(new StringBuilder(), 1).toString());
+    }
+
+    /**
+     * Test braces that do not enclose a variable name are literals.
+     */
+    @Test
+    public void notVariables() {
+
+        PathTemplate template = PathTemplate.compile("/{}/{a-b}/{{c}");
+
+        Assert.assertEquals("Unexpected expansion", "/{}/{a-b}/{1",
+                template.expand(new StringBuilder(), 1).toString());
+    }
+}
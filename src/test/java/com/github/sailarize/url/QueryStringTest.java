@@ -0,0 +1,85 @@
+package com.github.sailarize.url;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link QueryString} and {@link PercentEncoder}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class QueryStringTest {
+
+    /**
+     * Test parameters are rendered in order, multi-valued ones included.
+     */
+    @Test
+    public void render() {
+
+        QueryString query = new QueryString();
+
+        Assert.assertEquals("Unexpected empty query", "", query.toString());
+
+        query.add("brand", "fiat");
+        query.add("brand", "audi");
+        query.add("q", "a b&c");
+
+        Assert.assertEquals("Unexpected query", "?brand=fiat&brand=audi&q=a+b%26c", query.toString());
+    }
+
+    /**
+     * Test a query is appended after the current parameters.
+     */
+    @Test
+    public void append() {
+
+        QueryString query = new QueryString();
+        query.add("brand", "fiat");
+
+        QueryString other = new QueryString();
+        other.add("size", "10");
+
+        query.append(other);
+        query.append(new QueryString());
+
+        Assert.assertEquals("Unexpected query", "?brand=fiat&size=10", query.toString());
+        Assert.assertEquals("Appended query modified", "?size=10", other.toString());
+    }
+
+    /**
+     * Test a parameter is looked up by its whole name.
+     */
+    @Test
+    public void contains() {
+
+        QueryString query = new QueryString();
+        query.add("pageSize", "10");
+
+        Assert.assertTrue("Parameter not found", query.contains("pageSize"));
+        Assert.assertFalse("Parameter found by a part of another name", query.contains("page"));
+        Assert.assertFalse("Parameter found by a value", query.contains("10"));
+
+        query.add("page", "2");
+
+        Assert.assertTrue("Parameter added after a lookup not found", query.contains("page"));
+    }
+
+    /**
+     * Test values are encoded as {@link URLEncoder} does with UTF-8.
+     */
+    @Test
+    public void encode() throws UnsupportedEncodingException {
+
+        String[] values = { "plain", "a b", "a+b=c&d", "~!'()*-._", "ñandú", "€", "😀", "\uD800x",
+                "/path?x=1#y" };
+
+        for (String value : values) {
+            Assert.assertEquals("Unexpected encoding of " + value, URLEncoder.encode(value, "UTF-8"),
+                    PercentEncoder.encode(value));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.sailarize.url;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.github.sailarize.context.SailContext;
+import com.github.sailarize.http.ParameterHolder;
+
+/**
+ * Unit test for {@link RequestFilters}.
+ *
+ * @author agusmunioz
+ *
+ */
+public class RequestFiltersTest {
+
+    @After
+    public void clean() {
+
+        SailContext.clean();
+    }
+
+    /**
+     * Test parameters are parsed in order and propagated ones are left out.
+     */
+    @Test
+    public void parse() {
+
+        QueryString propagated = new QueryString();
+        propagated.add("token", "abc");
+
+        RequestFilters filters = RequestFilters.parse(parameters(), propagated);
+
+        Assert.assertEquals("Unexpected filters",
+                Arrays.asList(new Filter("brand", "fiat"), new Filter("brand", "audi"), new Filter("page", "2")),
+                filters.filters());
+
+        Assert.assertFalse("Propagated parameter included", filters.contains("token"));
+        Assert.assertEquals("Unexpected brand filters", 2, filters.get("brand").size());
+        Assert.assertTrue("Unexpected missing filters", filters.get("color").isEmpty());
+    }
+
+    /**
+     * Test views hide filters without changing the snapshot.
+     */
+    @Test
+    public void without() {
+
+        RequestFilters filters = RequestFilters.parse(parameters(), null);
+
+        RequestFilters view = filters.without("page").without("brand");
+
+        Assert.assertEquals("Unexpected view", Arrays.asList(new Filter("token", "abc")), view.filters());
+        Assert.assertFalse("Hidden filter", view.contains("brand"));
+        Assert.assertTrue("Snapshot changed", filters.contains("page"));
+        Assert.assertSame("Unexpected view for missing names", filters, filters.without("color"));
+    }
+
+    /**
+     * Test facet offsets are hidden, whatever the facet, and other parameters
+     * are kept.
+     */
+    @Test
+    public void withoutOffsets() {
+
+        Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+        parameters.put("brand", new String[] { "fiat" });
+        parameters.put("brandOffset", new String[] { "10" });
+        parameters.put("colorOffset", new String[] { "20" });
+        parameters.put("timeOffset", new String[] { "-03:00" });
+        parameters.put("Offset", new String[] { "5" });
+
+        RequestFilters filters = RequestFilters.parse(parameters, null);
+
+        Assert.assertEquals("Unexpected view", Arrays.asList(new Filter("brand", "fiat"),
+                new Filter("timeOffset", "-03:00"), new Filter("Offset", "5")), filters.withoutOffsets().filters());
+        RequestFilters view = filters.without("brandOffset", "colorOffset");
+
+        Assert.assertSame("Unexpected view without offsets", view, view.withoutOffsets());
+    }
+
+    /**
+     * Test the request is parsed once while propagated parameters do not
+     * change.
+     */
+    @Test
+    public void once() {
+
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+
+        Mockito.when(request.getParameterMap()).thenReturn(parameters());
+
+        Mockito.when(request.getAttribute(Mockito.anyString())).thenAnswer(new Answer<Object>() {
+
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return attributes.get(invocation.getArguments()[0]);
+            }
+        });
+
+        Mockito.doAnswer(new Answer<Object>() {
+
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]);
+            }
+        }).when(request).setAttribute(Mockito.anyString(), Mockito.any());
+
+        RequestFilters first = RequestFilters.of(request);
+
+        Assert.assertSame("Request parsed again", first, RequestFilters.of(request));
+        Mockito.verify(request, Mockito.times(1)).getParameterMap();
+
+        QueryString propagated = new QueryString();
+        propagated.add("token", "abc");
+        ParameterHolder.set(propagated);
+
+        Assert.assertFalse("Propagated parameter included", RequestFilters.of(request).contains("token"));
+    }
+
+    private static Map<String, String[]> parameters() {
+
+        Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+        parameters.put("brand", new String[] { "fiat", "audi" });
+        parameters.put("token", new String[] { "abc" });
+        parameters.put("page", new String[] { "2" });
+
+        return parameters;
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.sailarize.url;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link UrlParts}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class UrlPartsTest {
+
+    /**
+     * Test the split of an absolute URL.
+     */
+    @Test
+    public void absolute() {
+
+        UrlParts parts = UrlParts.parse("https://user@www.host.com:8080/api/cars?brand=fiat#top");
+
+        Assert.assertEquals("Unexpected scheme", "https", parts.getScheme());
+        Assert.assertEquals("Unexpected host", "www.host.com", parts.getHost());
+        Assert.assertEquals("Unexpected path", "/api/cars", parts.getPath());
+        Assert.assertEquals("Unexpected query", "brand=fiat", parts.getQuery());
+    }
+
+    /**
+     * Test the split of a path.
+     */
+    @Test
+    public void path() {
+
+        UrlParts parts = UrlParts.parse("/api/cars?next=http://other.com");
+
+        Assert.assertNull("Unexpected scheme", parts.getScheme());
+        Assert.assertNull("Unexpected host", parts.getHost());
+        Assert.assertEquals("Unexpected path", "/api/cars", parts.getPath());
+        Assert.assertEquals("Unexpected query", "next=http://other.com", parts.getQuery());
+    }
+
+    /**
+     * Test a host with regex meta characters is replaced literally.
+     */
+    @Test
+    public void hostLiteral() {
+
+        UrlParts parts = UrlParts.parse("http://a.b.c/a+b.c/x");
+
+        Assert.assertEquals("Unexpected host replacement", "http://new.com/a+b.c/x", parts.withHost("new.com"));
+    }
+
+    /**
+     * Test a protocol relative URL keeps being valid after replacements.
+     */
+    @Test
+    public void protocolRelative() {
+
+        UrlParts parts = UrlParts.parse("//cdn.host.com/img.png");
+
+        Assert.assertEquals("Unexpected host replacement", "//new.com/img.png", parts.withHost("new.com"));
+        Assert.assertEquals("Unexpected scheme set", "https://cdn.host.com/img.png", parts.withScheme("https"));
+    }
+}
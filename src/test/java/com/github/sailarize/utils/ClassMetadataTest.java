@@ -0,0 +1,106 @@
+package com.github.sailarize.utils;
+
+import java.lang.reflect.Field;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sailarize.mediatype.MediaTypeBuilder;
+import com.github.sailarize.mock.NotAnnotatedResource;
+import com.github.sailarize.mock.PersonMock;
+import com.github.sailarize.resource.Path;
+
+/**
+ * Unit test for {@link ClassMetadata}.
+ * 
+ * @author agusmunioz
+ *
+ */
+public class ClassMetadataTest {
+
+    /**
+     * Test the metadata of a resource annotated with {@link Path}.
+     */
+    @Test
+    public void annotated() {
+
+        ClassMetadata metadata = ClassMetadata.of(PersonMock.class);
+
+        Assert.assertEquals("Unexpected path", "/persons", metadata.getPath());
+        Assert.assertEquals("Unexpected compiled path", "/persons", metadata.getPathTemplate().getPath());
+        Assert.assertNull("Unexpected version", metadata.getVersion());
+        Assert.assertEquals("Unexpected media type", MediaTypeBuilder.SAIL_MEDIA, metadata.getMediaType());
+        Assert.assertSame("Metadata not resolved once", metadata, ClassMetadata.of(PersonMock.class));
+    }
+
+    /**
+     * Test the metadata of a resource without annotations.
+     */
+    @Test
+    public void notAnnotated() {
+
+        ClassMetadata metadata = ClassMetadata.of(NotAnnotatedResource.class);
+
+        Assert.assertNull("Unexpected path", metadata.getPath());
+        Assert.assertNull("Unexpected compiled path", metadata.getPathTemplate());
+        Assert.assertNull("Unexpected annotation", metadata.annotation(Path.class));
+    }
+
+    /**
+     * Test the fields order: class first for pretty printing and superclass
+     * first for properties.
+     */
+    @Test
+    public void fields() {
+
+        ClassMetadata metadata = ClassMetadata.of(Child.class);
+
+        Assert.assertEquals("Unexpected fields", "text, code, id, number", names(metadata.getFields()));
+        Assert.assertEquals("Unexpected properties", "id, number, text", names(metadata.getProperties()));
+    }
+
+    /**
+     * Test platform classes are not reflected.
+     */
+    @Test
+    public void platform() {
+
+        Assert.assertTrue("UUID not a platform class", ClassMetadata.isPlatform(UUID.class));
+        Assert.assertFalse("Resource is a platform class", ClassMetadata.isPlatform(PersonMock.class));
+        Assert.assertEquals("Unexpected fields", 0, ClassMetadata.of(UUID.class).getFields().length);
+        Assert.assertEquals("Unexpected properties", 0, ClassMetadata.of(UUID.class).getProperties().length);
+    }
+
+    private static String names(Field[] fields) {
+
+        StringBuilder builder = new StringBuilder();
+
+        for (Field field : fields) {
+
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+
+            builder.append(field.getName());
+        }
+
+        return builder.toString();
+    }
+
+    @SuppressWarnings("unused")
+    private static class Parent {
+
+        private String id;
+
+        private Integer number;
+    }
+
+    @SuppressWarnings("unused")
+    private static class Child extends Parent {
+
+        private String text;
+
+        private transient String code;
+    }
+}